@@ -0,0 +1,189 @@
+import model.SearchBudget;
+import model.solver.Algorithm;
+import model.solver.BoardSolver;
+import model.solver.SolveResult;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Solves many boards without the game, for vetting candidate levels.
+ *
+ * The input holds boards in the shape GameController.saveGame writes: objects with a "board"
+ * array of rows, and optionally "currentLevel" and "name". Bare boards (arrays of rows) are
+ * accepted too. The file may be one JSON array of them or one per line. Every board gives one
+ * JSON line of output as soon as it is solved, so lines come in completion order and carry
+ * the board's index in the input.
+ *
+ * Usage: java BatchSolver [options] input.json [output.ndjson]
+ *   --threads N      worker threads (default: available processors)
+ *   --algorithm A    A_STAR, IDA_STAR, BIDIRECTIONAL_BFS, ANYTIME or BEAM (default: A_STAR)
+ *   --seconds S      time limit per board (default: 60)
+ *   --beam W         fall back to a beam search of width W, with another S seconds, on
+ *                    boards that exceed their limits (default: no fallback)
+ *   --level L        level of boards that do not name one, for its hidden camps and
+ *                    pattern databases (default: 0)
+ *
+ * Results go to standard output when no output file is given. The memory limit of half the
+ * heap is shared out between the worker threads, and a board whose search fails, even by
+ * running out of memory, still gives a line with an "error".
+ */
+public class BatchSolver {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        Algorithm algorithm = Algorithm.A_STAR;
+        long seconds = 60;
+        int defaultLevel = 0;
+        int beamWidth = 0;
+        List<String> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--algorithm":
+                    algorithm = Algorithm.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--seconds":
+                    seconds = Long.parseLong(args[++i]);
+                    break;
+                case "--beam":
+                    beamWidth = Integer.parseInt(args[++i]);
+                    break;
+                case "--level":
+                    defaultLevel = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    files.add(args[i]);
+            }
+        }
+        if (files.isEmpty() || files.size() > 2) {
+            System.err.println("Usage: java BatchSolver [--threads N] [--algorithm A] [--seconds S] [--beam W] [--level L] input.json [output.ndjson]");
+            System.exit(2);
+        }
+
+        List<JSONObject> boards = readBoards(new String(Files.readAllBytes(Paths.get(files.get(0))), StandardCharsets.UTF_8));
+        PrintStream results = files.size() > 1
+                ? new PrintStream(new FileOutputStream(files.get(1)), true, "UTF-8")
+                : new PrintStream(new FileOutputStream(FileDescriptor.out), true, "UTF-8");
+
+        threads = Math.max(1, threads);
+        BoardSolver solver = new BoardSolver(algorithm);
+        solver.setBudget(new SearchBudget(seconds * 1000, 0, Runtime.getRuntime().maxMemory() / 2 / threads));
+        solver.setFallbackBeamWidth(beamWidth);
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        AtomicInteger written = new AtomicInteger();
+        long start = System.currentTimeMillis();
+        int level = defaultLevel;
+        for (int i = 0; i < boards.size(); i++) {
+            int index = i;
+            workers.execute(() -> {
+                JSONObject line = solve(solver, boards.get(index), index, level);
+                synchronized (results) {
+                    results.println(line);
+                    if (!results.checkError()) {
+                        written.incrementAndGet();
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+        results.close();
+        System.err.println("Wrote " + written.get() + " of " + boards.size() + " boards in "
+                + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * @return one object with a "board" per input board
+     */
+    static List<JSONObject> readBoards(String text) {
+        List<JSONObject> boards = new ArrayList<>();
+        String trimmed = text.trim();
+        if (trimmed.startsWith("[")) {
+            JSONArray array = new JSONArray(trimmed);
+            if (isBoard(array)) {
+                boards.add(new JSONObject().put("board", array));
+            } else {
+                for (int i = 0; i < array.length(); i++) {
+                    boards.add(entry(array.get(i)));
+                }
+            }
+            return boards;
+        }
+        for (String line : trimmed.split("\\R")) {
+            if (!line.trim().isEmpty()) {
+                String value = line.trim();
+                boards.add(entry(value.startsWith("[") ? new JSONArray(value) : new JSONObject(value)));
+            }
+        }
+        return boards;
+    }
+
+    private static boolean isBoard(JSONArray array) {
+        return array.length() > 0 && array.get(0) instanceof JSONArray
+                && ((JSONArray) array.get(0)).length() > 0 && ((JSONArray) array.get(0)).get(0) instanceof Number;
+    }
+
+    private static JSONObject entry(Object value) {
+        if (value instanceof JSONArray) {
+            return new JSONObject().put("board", value);
+        }
+        if (value instanceof JSONObject && ((JSONObject) value).has("board")) {
+            return (JSONObject) value;
+        }
+        throw new IllegalArgumentException("Not a board: " + value);
+    }
+
+    private static JSONObject solve(BoardSolver solver, JSONObject entry, int index, int defaultLevel) {
+        JSONObject line = new JSONObject();
+        line.put("index", index);
+        if (entry.has("name")) {
+            line.put("name", entry.get("name"));
+        }
+        int level = entry.optInt("currentLevel", defaultLevel);
+        line.put("level", level);
+        try {
+            JSONArray rows = entry.getJSONArray("board");
+            int[][] board = new int[rows.length()][];
+            for (int r = 0; r < board.length; r++) {
+                JSONArray row = rows.getJSONArray(r);
+                board[r] = new int[row.length()];
+                for (int c = 0; c < board[r].length; c++) {
+                    board[r][c] = row.getInt(c);
+                }
+            }
+            SolveResult result = solver.solve(board, level);
+            line.put("algorithm", result.getAlgorithm().name());
+            line.put("solved", result.isSolved());
+            line.put("optimal", result.isOptimal());
+            if (result.isSolved()) {
+                line.put("length", result.getMoves().size());
+            }
+            line.put("states", result.getStatesExplored());
+            line.put("millis", result.getElapsedMillis());
+            line.put("peakMemoryBytes", result.getPeakMemoryBytes());
+            line.put("stopReason", result.getStopReason().name());
+        } catch (Throwable e) {
+            // Also OutOfMemoryError: the failed search's tables are garbage by now, and the
+            // board still gets its line
+            line.put("solved", false);
+            line.put("error", e.getMessage() != null ? e.getMessage() : e.toString());
+        }
+        return line;
+    }
+}
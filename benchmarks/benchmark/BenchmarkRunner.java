@@ -0,0 +1,39 @@
+package benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks and writes their results as JSON, with the allocation rate and
+ * collections of every benchmark from the GC profiler. Keep the file of each release to
+ * compare them.
+ *
+ * Usage: java benchmark.BenchmarkRunner [result.json] [benchmark regex...]
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        String result = args.length > 0 ? args[0] : "jmh-result.json";
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length > 1) {
+            for (int i = 1; i < args.length; i++) {
+                options.include(args[i]);
+            }
+        } else {
+            options.include("benchmark\\..*Benchmark");
+        }
+        Options built = options
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .forks(1)
+                // Room for the Expert search and the pattern databases
+                .jvmArgsAppend("-Xmx2g")
+                .build();
+        new Runner(built).run();
+    }
+}
@@ -0,0 +1,57 @@
+package benchmark;
+
+import model.MapModel;
+import model.MoveBuffer;
+import model.MoveGenerator;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Boards of one level for the per-board benchmarks: the start board and the boards of a
+ * random walk from it, the same in every run, so that the measurements cover more than one
+ * position without depending on chance.
+ */
+@State(Scope.Thread)
+public class BoardSamples {
+    public static final int SAMPLES = 256;
+    private static final long SEED = 20240601L;
+
+    @Param({"0", "1", "2", "3"})
+    public int level;
+
+    public MoveGenerator generator;
+    public int[][][] boards;
+    public long[] keys;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[][] start = MapModel.LEVELS[level];
+        generator = MoveGenerator.forLevel(start, level);
+        boards = new int[SAMPLES][][];
+        keys = new long[SAMPLES];
+        MoveBuffer moves = new MoveBuffer();
+        Random random = new Random(SEED);
+        for (int i = 0; i < SAMPLES; i++) {
+            boards[i] = new MapModel(generator.getBoard()).copyMatrix();
+            keys[i] = generator.getKey();
+            generator.generate(moves);
+            int move = random.nextInt(moves.size());
+            generator.apply(moves.getPiece(move), moves.getDirection(move));
+        }
+        generator.load(start);
+    }
+
+    /**
+     * @return the index of the next sample, cycling through all of them
+     */
+    public int next() {
+        next = (next + 1) & (SAMPLES - 1);
+        return next;
+    }
+}
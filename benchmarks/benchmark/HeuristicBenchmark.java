@@ -0,0 +1,70 @@
+package benchmark;
+
+import model.AISolver;
+import model.CaoCaoDistanceHeuristic;
+import model.Heuristic;
+import model.MapModel;
+import model.MoveGenerator;
+import model.PatternDatabaseHeuristic;
+import model.SearchBudget;
+
+import java.util.Arrays;
+
+/**
+ * Compares the A* search under the old weighted score and the admissible heuristics:
+ * states expanded, solution length and time on each level's start board. Unlike the JMH
+ * benchmarks it runs each search once, since a search takes seconds rather than nanoseconds.
+ *
+ * Pattern databases are read from the files of {@link model.PatternDatabaseBuilder}, or built in
+ * memory when a level has none.
+ *
+ * Usage: java benchmark.HeuristicBenchmark [seconds per search] [level...]
+ */
+public class HeuristicBenchmark {
+
+    public static void main(String[] args) {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 30;
+        int[] levels;
+        if (args.length > 1) {
+            levels = Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray();
+        } else {
+            levels = new int[MapModel.LEVELS.length];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = i;
+            }
+        }
+
+        System.out.printf("%-5s  %-18s  %-10s  %6s  %10s  %8s  %s%n",
+                "level", "heuristic", "admissible", "moves", "expanded", "ms", "stopped");
+        for (int level : levels) {
+            int[][] board = MapModel.LEVELS[level];
+            PatternDatabaseHeuristic databases = PatternDatabaseHeuristic.forLevel(level);
+            if (databases == null) {
+                databases = PatternDatabaseHeuristic.build(level, PatternDatabaseHeuristic.DEFAULT_MAX_STATES);
+            }
+            Heuristic[] heuristics = {
+                new AISolver(new MapModel(level)).createWeightedScoreHeuristic(),
+                new CaoCaoDistanceHeuristic(MoveGenerator.forLevel(board, level).getCodec()),
+                databases
+            };
+            for (Heuristic heuristic : heuristics) {
+                run(level, heuristic, seconds);
+            }
+        }
+    }
+
+    private static void run(int level, Heuristic heuristic, long seconds) {
+        AISolver solver = new AISolver(new MapModel(level));
+        solver.setHeuristic(heuristic);
+        solver.setBudget(new SearchBudget(seconds * 1000, 0, Runtime.getRuntime().maxMemory() / 2));
+
+        long start = System.nanoTime();
+        boolean solved = solver.findSolution();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("%-5d  %-18s  %-10s  %6s  %10d  %8d  %s%n", level, heuristic.getName(),
+                heuristic.isAdmissible() ? "yes" : "no",
+                solved ? String.valueOf(solver.getSolutionLength()) : "-", solver.getStatesExplored(), millis,
+                solved ? "" : solver.getStopReason());
+    }
+}
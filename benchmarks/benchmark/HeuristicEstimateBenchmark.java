@@ -0,0 +1,63 @@
+package benchmark;
+
+import model.CaoCaoDistanceHeuristic;
+import model.Heuristic;
+import model.MoveGenerator;
+import model.PatternDatabaseHeuristic;
+import model.WeightedScoreHeuristic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One heuristic estimate per operation: the weighted score that was calculateHeuristic, the
+ * Cao Cao distance and the pattern databases, read from their files or built in memory when a
+ * level has none (which makes the setup of that trial slow).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HeuristicEstimateBenchmark {
+
+    @Param({"WEIGHTED_SCORE", "CAO_CAO_DISTANCE", "PATTERN_DATABASE"})
+    public String heuristicName;
+
+    private Heuristic heuristic;
+
+    @Setup(Level.Trial)
+    public void setUp(BoardSamples samples) {
+        MoveGenerator generator = samples.generator;
+        switch (heuristicName) {
+            case "WEIGHTED_SCORE":
+                heuristic = new WeightedScoreHeuristic(generator.getRows() - 2, (generator.getCols() - 2) / 2);
+                break;
+            case "CAO_CAO_DISTANCE":
+                heuristic = new CaoCaoDistanceHeuristic(generator.getCodec());
+                break;
+            default:
+                PatternDatabaseHeuristic databases = PatternDatabaseHeuristic.forLevel(samples.level);
+                heuristic = databases != null ? databases
+                        : PatternDatabaseHeuristic.build(samples.level, PatternDatabaseHeuristic.DEFAULT_MAX_STATES);
+                break;
+        }
+    }
+
+    @Benchmark
+    public int estimate(BoardSamples samples) {
+        MoveGenerator generator = samples.generator;
+        generator.load(samples.keys[samples.next()]);
+        return heuristic.estimate(generator);
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import model.Direction;
+import model.MoveBuffer;
+import model.MoveGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation, what the solvers used to call generateNextStates and canMove. Every
+ * operation first loads a sample board from its key, as the searches do for each expansion;
+ * {@link #load} measures that part alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MoveGenerationBenchmark {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final MoveBuffer moves = new MoveBuffer();
+
+    @Benchmark
+    public MoveGenerator load(BoardSamples samples) {
+        MoveGenerator generator = samples.generator;
+        generator.load(samples.keys[samples.next()]);
+        return generator;
+    }
+
+    /**
+     * All moves of a board with the keys of the boards they lead to
+     */
+    @Benchmark
+    public int generate(BoardSamples samples) {
+        MoveGenerator generator = samples.generator;
+        generator.load(samples.keys[samples.next()]);
+        generator.generate(moves);
+        return moves.size();
+    }
+
+    /**
+     * Every piece in every direction
+     */
+    @Benchmark
+    public int canMove(BoardSamples samples) {
+        MoveGenerator generator = samples.generator;
+        generator.load(samples.keys[samples.next()]);
+        int count = 0;
+        for (int piece = 0; piece < generator.getPieceCount(); piece++) {
+            for (Direction direction : DIRECTIONS) {
+                if (generator.canMove(piece, direction)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * A move and its undo, as the searches evaluate successors in place
+     */
+    @Benchmark
+    public long applyAndUndo(BoardSamples samples) {
+        MoveGenerator generator = samples.generator;
+        generator.load(samples.keys[samples.next()]);
+        generator.generate(moves);
+        int piece = moves.getPiece(0);
+        Direction direction = moves.getDirection(0);
+        generator.apply(piece, direction);
+        long key = generator.getKey();
+        generator.undo(piece, direction);
+        return key;
+    }
+}
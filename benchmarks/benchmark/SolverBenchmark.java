@@ -0,0 +1,74 @@
+package benchmark;
+
+import model.MapModel;
+import model.SearchBudget;
+import model.solver.Algorithm;
+import model.solver.BoardSolver;
+import model.solver.SolveResult;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A full findSolution on the start board of every level, without the solution cache. Each
+ * search is timed on its own; the states it expanded and the length it found are recorded
+ * next to the time, so a change of heuristic or tie-breaking shows up even when the time
+ * hides it. Searches stop after {@value #BUDGET_SECONDS} s.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class SolverBenchmark {
+    static final long BUDGET_SECONDS = 60;
+
+    @Param({"0", "1", "2", "3"})
+    public int level;
+
+    @Param({"A_STAR"})
+    public String algorithm;
+
+    private BoardSolver solver;
+
+    /**
+     * Secondary results of the last search
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Counters {
+        public long states;
+        public long moves;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            states = 0;
+            moves = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        solver = new BoardSolver(Algorithm.valueOf(algorithm));
+        solver.setBudget(SearchBudget.ofMillis(BUDGET_SECONDS * 1000));
+    }
+
+    @Benchmark
+    public SolveResult findSolution(Counters counters) {
+        SolveResult result = solver.solve(MapModel.LEVELS[level], level);
+        counters.states = result.getStatesExplored();
+        counters.moves = result.isSolved() ? result.getMoves().size() : 0;
+        return result;
+    }
+}
@@ -0,0 +1,83 @@
+package benchmark;
+
+import model.BoardCodec;
+import model.MoveGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board keys: the string key the solver once built with boardToString against the packed keys
+ * of {@link BoardCodec}. The string allocates on every call, packing never does; the GC
+ * profiler shows the difference as allocation per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class StateKeyBenchmark {
+
+    /**
+     * The former AISolver.boardToString, kept here as the baseline
+     */
+    static String boardToString(int[][] board) {
+        StringBuilder sb = new StringBuilder();
+        for (int r = 0; r < board.length; r++) {
+            for (int c = 0; c < board[0].length; c++) {
+                sb.append(board[r][c]).append(",");
+            }
+        }
+        return sb.toString();
+    }
+
+    @Benchmark
+    public String boardToString(BoardSamples samples) {
+        return boardToString(samples.boards[samples.next()]);
+    }
+
+    @Benchmark
+    public int boardToStringHash(BoardSamples samples) {
+        return boardToString(samples.boards[samples.next()]).hashCode();
+    }
+
+    /**
+     * Pack a board array, as done once per search for the start board
+     */
+    @Benchmark
+    public long pack(BoardSamples samples) {
+        return samples.generator.getCodec().pack(samples.boards[samples.next()]);
+    }
+
+    /**
+     * Key of the generator's current board, as done for every successor
+     */
+    @Benchmark
+    public long key(BoardSamples samples) {
+        MoveGenerator generator = samples.generator;
+        generator.load(samples.keys[samples.next()]);
+        return generator.getKey();
+    }
+
+    /**
+     * Smaller of the key and its mirror's, which merges mirror images
+     */
+    @Benchmark
+    public long canonicalKey(BoardSamples samples) {
+        MoveGenerator generator = samples.generator;
+        generator.load(samples.keys[samples.next()]);
+        return generator.getCodec().canonical(generator.getKey());
+    }
+
+    @Benchmark
+    public int[][] unpack(BoardSamples samples) {
+        return samples.generator.getCodec().unpack(samples.keys[samples.next()]);
+    }
+}
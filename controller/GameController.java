@@ -16,8 +16,13 @@ import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Toolkit;
 import model.Direction;
+import model.HintDatabase;
+import model.IncrementalPlanner;
 import model.MapModel;
+import model.MoveGenerator;
 import model.Prop;
+import model.SearchBudget;
+import model.SolutionCache;
 import view.game.AnimationHandler;
 import view.game.BoxComponent;
 import view.game.GamePanel;
@@ -55,6 +60,28 @@ public class GameController {
 
     private AutoSaveManager autoSaveManager;
 
+    /**
+     * Hints in time attack mode settle for the best solution found within this time
+     */
+    public static final long TIME_ATTACK_HINT_MILLIS = 2000;
+
+    // Set by the frame; the game runs against the clock
+    private boolean timeAttackMode;
+
+    /**
+     * Estimates the hint planner learns before it starts over, about 12 to 24 MB
+     */
+    public static final int HINT_MAX_LEARNED = 1 << 20;
+
+    /**
+     * Boards a hint searches for a shorter way once it can lead back to the last hinted path,
+     * some tens of milliseconds at most
+     */
+    public static final long HINT_MAX_DETOUR_STATES = 2_000;
+
+    // Kept between hints, so a hint after a few moves repairs the last search
+    private final IncrementalPlanner hintPlanner = createHintPlanner();
+
     public GameController(GamePanel view, MapModel model) {
         this.moveHistory = new Stack<>();
         this.redoHistory = new Stack<>();
@@ -71,6 +98,39 @@ public class GameController {
         return moveCount;
     }
 
+    public void setTimeAttackMode(boolean timeAttackMode) {
+        this.timeAttackMode = timeAttackMode;
+    }
+
+    public boolean isTimeAttackMode() {
+        return timeAttackMode;
+    }
+
+    /**
+     * @return a planner small and quick enough to run on every hint of a game
+     */
+    public static IncrementalPlanner createHintPlanner() {
+        IncrementalPlanner planner = new IncrementalPlanner(HINT_MAX_LEARNED);
+        planner.setMaxDetourStates(HINT_MAX_DETOUR_STATES);
+        return planner;
+    }
+
+    /**
+     * @return the solver a hint searches with when the hint database has no answer: the
+     *         shared planner, or a short anytime search against the clock
+     */
+    public static model.AISolver createHintSolver(MapModel board, IncrementalPlanner planner, boolean timeAttack) {
+        model.AISolver solver = new model.AISolver(board);
+        solver.setSolutionCache(SolutionCache.getDefault());
+        solver.setIncrementalPlanner(planner);
+        if (timeAttack) {
+            // Against the clock a good hint now beats the shortest one later
+            solver.setAnytimeMode(true);
+            solver.setBudget(SearchBudget.ofMillis(TIME_ATTACK_HINT_MILLIS));
+        }
+        return solver;
+    }
+
     public void setCurrentUser(String username) {
         this.currentUser = username;
         if (username != null && !username.isEmpty()) {
@@ -228,141 +288,21 @@ public class GameController {
         return true;
     }
 
-    private boolean canMove(int row, int col, int width, int height, Direction direction) {
-        // System.err.println("Checking move from ["+row+"]["+col+"] size "+width+"x"+height+" dir "+direction);
-
-        // Get the block type being moved
-        int blockType = model.getId(row, col);
-
-        // Check boundaries first
-        if (direction == Direction.UP && row == 0) return false;
-        if (direction == Direction.DOWN && row + height >= model.getHeight()) return false;
-        if (direction == Direction.LEFT && col == 0) return false;
-        if (direction == Direction.RIGHT && col + width >= model.getWidth()) return false;
-
-        // Debug info for military camps
-        System.out.println("canMove check: blockType=" + blockType + ", direction=" + direction);
-
-        // Check all cells in movement direction
-        if (direction == Direction.UP) {
-            for (int c = col; c < col + width; c++) {
-                int targetCell = model.getId(row - 1, c);
-                System.out.println("  Checking UP at [" + (row-1) + "," + c + "] = " + targetCell);
-
-                // Only block movement if target cell is occupied by another piece
-                if (targetCell > 0 && targetCell < MapModel.BLOCKED) return false;
-
-                // Only block movement for BLOCKED cells (always immovable)
-                if (targetCell == MapModel.BLOCKED) return false;
-
-                // Military camps: allow soldiers to move onto them, block others
-                if (targetCell == MapModel.MILITARY_CAMP) {
-                    if (blockType == MapModel.SOLDIER) {
-                        System.out.println("  Allowing soldier to move onto military camp");
-                    } else {
-                        System.out.println("  Blocking non-soldier from moving onto military camp");
-                        return false;
-                    }
-                }
-            }
-        }
-        else if (direction == Direction.DOWN) {
-            for (int c = col; c < col + width; c++) {
-                int targetCell = model.getId(row + height, c);
-                System.out.println("  Checking DOWN at [" + (row+height) + "," + c + "] = " + targetCell);
-
-                // Only block movement if target cell is occupied by another piece
-                if (targetCell > 0 && targetCell < MapModel.BLOCKED) return false;
-
-                // Only block movement for BLOCKED cells (always immovable)
-                if (targetCell == MapModel.BLOCKED) return false;
-
-                // Military camps: allow soldiers to move onto them, block others
-                if (targetCell == MapModel.MILITARY_CAMP) {
-                    if (blockType == MapModel.SOLDIER) {
-                        System.out.println("  Allowing soldier to move onto military camp");
-                    } else {
-                        System.out.println("  Blocking non-soldier from moving onto military camp");
-                        return false;
-                    }
-                }
-            }
-        }
-        else if (direction == Direction.LEFT) {
-            for (int r = row; r < row + height; r++) {
-                int targetCell = model.getId(r, col - 1);
-                System.out.println("  Checking LEFT at [" + r + "," + (col-1) + "] = " + targetCell);
-
-                // Only block movement if target cell is occupied by another piece
-                if (targetCell > 0 && targetCell < MapModel.BLOCKED) return false;
-
-                // Only block movement for BLOCKED cells (always immovable)
-                if (targetCell == MapModel.BLOCKED) return false;
-
-                // Military camps: allow soldiers to move onto them, block others
-                if (targetCell == MapModel.MILITARY_CAMP) {
-                    if (blockType == MapModel.SOLDIER) {
-                        System.out.println("  Allowing soldier to move onto military camp");
-                    } else {
-                        System.out.println("  Blocking non-soldier from moving onto military camp");
-                        return false;
-                    }
-                }
-            }
-        }
-        else if (direction == Direction.RIGHT) {
-            for (int r = row; r < row + height; r++) {
-                int targetCell = model.getId(r, col + width);
-                System.out.println("  Checking RIGHT at [" + r + "," + (col+width) + "] = " + targetCell);
-
-                // Only block movement if target cell is occupied by another piece
-                if (targetCell > 0 && targetCell < MapModel.BLOCKED) return false;
-
-                // Only block movement for BLOCKED cells (always immovable)
-                if (targetCell == MapModel.BLOCKED) return false;
-
-                // Military camps: allow soldiers to move onto them, block others
-                if (targetCell == MapModel.MILITARY_CAMP) {
-                    if (blockType == MapModel.SOLDIER) {
-                        System.out.println("  Allowing soldier to move onto military camp");
-                    } else {
-                        System.out.println("  Blocking non-soldier from moving onto military camp");
-                        return false;
-                    }
-                }
-            }
-        }
-
-        // System.out.println("Move valid");
-        return true;
-    }
-
     public boolean doMove(int row, int col, Direction direction) {
         // Get the block type at the current position
         int blockType = model.getId(row, col);
-
-        // Determine block dimensions based on type
-        int width = 1;
-        int height = 1;
-        final boolean isGeneral = blockType == MapModel.GENERAL; // Make final for lambda usage
-
-        if (blockType == MapModel.CAO_CAO) { // 2x2 block
-            width = 2;
-            height = 2;
-        } else if (blockType == MapModel.GUAN_YU) { // 2x1 block
-            width = 2;
-            height = 1;
-        } else if (blockType == MapModel.GENERAL) { // 1x2 block
-            width = 1;
-            height = 2;
-        } else if (blockType == MapModel.ZHOU_YU) { // 1x3 block
-            width = 3;
-            height = 1;
-        } else if (blockType == MapModel.BLOCKED || blockType == MapModel.MILITARY_CAMP) { // Immovable pieces
+        if (blockType == MapModel.BLOCKED || blockType == MapModel.MILITARY_CAMP) { // Immovable pieces
             return false;
         }
 
-        boolean canMove = canMove(row, col, width, height, direction);
+        // Check the move with the same rules the AI solver uses
+        MoveGenerator rules = MoveGenerator.forLevel(model.getMatrix(), currentLevel);
+        int piece = rules.findPiece(row, col);
+        if (piece < 0) {
+            return false;
+        }
+        final boolean isGeneral = blockType == MapModel.GENERAL; // Make final for lambda usage
+        boolean canMove = rules.canMove(piece, direction);
 
         // Find and select the box component for this position
         BoxComponent box = findBoxAtPosition(row, col);
@@ -377,8 +317,8 @@ public class GameController {
 
         if (canMove) {
             // Calculate new top-left position
-            final int nextRow = row + direction.getRowOffset();
-            final int nextCol = col + direction.getColOffset();
+            final int nextRow = rules.getPieceRow(piece) + direction.getRowOffset();
+            final int nextCol = rules.getPieceCol(piece) + direction.getColOffset();
 
             // Save current matrix state before modifying
             final int[][] originalMatrix = model.copyMatrix();
@@ -391,11 +331,12 @@ public class GameController {
             selectedBox.setRow(nextRow);
             selectedBox.setCol(nextCol);
 
-            // Clear the old positions in the model
-            clearOldPositions(row, col, width, height);
-
-            // Set the new positions in the model
-            setNewPositions(nextRow, nextCol, width, height, blockType);
+            // Update the model; military camps reappear when a soldier leaves them
+            rules.apply(piece, direction);
+            int[][] movedBoard = rules.getBoard();
+            for (int r = 0; r < model.getHeight(); r++) {
+                System.arraycopy(movedBoard[r], 0, model.getMatrix()[r], 0, model.getWidth());
+            }
 
             // Fixed offset values for consistent positioning
             int xOffset = view.getWidth() / 2 - (model.getWidth() * view.getGRID_SIZE()) / 2;
@@ -571,119 +512,6 @@ public class GameController {
         }
     }
 
-    // Track military camp positions to preserve them
-    private List<int[]> militaryCampPositions = new ArrayList<>();
-
-    /**
-     * Clear positions for the block being moved
-     */
-    private void clearOldPositions(int row, int col, int width, int height) {
-        // Clear military camp positions from previous move
-        militaryCampPositions.clear();
-
-        for (int r = row; r < row + height; r++) {
-            for (int c = col; c < col + width; c++) {
-                if (r < model.getHeight() && c < model.getWidth()) {
-                    // Check if this position originally had a military camp
-                    // This is crucial for Master level where military camps should remain
-                    if (currentLevel == 3) { // Master level
-                        // Check level 3 model if this position should be a military camp
-                        int originalCell = MapModel.LEVELS[3][r][c];
-                        if (originalCell == MapModel.MILITARY_CAMP) {
-                            System.out.println("Preserving military camp at [" + r + "," + c + "]");
-                            militaryCampPositions.add(new int[]{r, c});
-                        }
-                    }
-
-                    // Clear the cell
-                    model.getMatrix()[r][c] = 0;
-                }
-            }
-        }
-    }
-
-    /**
-     * Set new positions for the block after movement
-     */
-    private void setNewPositions(int nextRow, int nextCol, int width, int height, int blockType) {
-        // Extra logging for debugging military camp movement
-        if (blockType == MapModel.SOLDIER) {
-            System.out.println("GameController: Moving a soldier to [" + nextRow + "," + nextCol + "]");
-        }
-
-        // Store military camp positions that will be covered by the moved piece
-        List<int[]> coveredMilitaryCamps = new ArrayList<>();
-
-        // First check if we're moving onto any military camps
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                int targetRow = nextRow + r;
-                int targetCol = nextCol + c;
-
-                if (targetRow < model.getHeight() && targetCol < model.getWidth()) {
-                    // Check if target position is a military camp
-                    if (model.getMatrix()[targetRow][targetCol] == MapModel.MILITARY_CAMP) {
-                        // Only soldiers can step on military camps
-                        if (blockType == MapModel.SOLDIER) {
-                            System.out.println("GameController: Soldier will cover military camp at [" +
-                                    targetRow + "," + targetCol + "]");
-                            coveredMilitaryCamps.add(new int[]{targetRow, targetCol});
-                        }
-                    }
-                }
-            }
-        }
-
-        // Now update positions with the moved piece
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                int targetRow = nextRow + r;
-                int targetCol = nextCol + c;
-
-                if (targetRow < model.getHeight() && targetCol < model.getWidth()) {
-                    // Special handling for soldiers moving onto military camps
-                    boolean isMilitaryCampPosition = false;
-
-                    // Check if this position is a covered military camp
-                    for (int[] campPos : coveredMilitaryCamps) {
-                        if (campPos[0] == targetRow && campPos[1] == targetCol) {
-                            isMilitaryCampPosition = true;
-                            break;
-                        }
-                    }
-
-                    // For soldiers stepping on military camps, we still want to
-                    // update the model to show the soldier (not the camp)
-                    model.getMatrix()[targetRow][targetCol] = blockType;
-                }
-            }
-        }
-
-        // Restore military camps that were saved during clearOldPositions
-        // This ensures military camps are preserved when pieces move off them
-        for (int[] campPos : militaryCampPositions) {
-            int row = campPos[0];
-            int col = campPos[1];
-
-            // Only restore if the position is now empty (not occupied by the moved piece)
-            boolean isOccupiedByMovedPiece = false;
-            for (int r = 0; r < height; r++) {
-                for (int c = 0; c < width; c++) {
-                    if (nextRow + r == row && nextCol + c == col) {
-                        isOccupiedByMovedPiece = true;
-                        break;
-                    }
-                }
-                if (isOccupiedByMovedPiece) break;
-            }
-
-            if (!isOccupiedByMovedPiece) {
-                System.out.println("GameController: Restoring military camp at [" + row + "," + col + "]");
-                model.getMatrix()[row][col] = MapModel.MILITARY_CAMP;
-            }
-        }
-    }
-
     /**
      * Use the hint prop to show the next best 3 moves
      */
@@ -692,19 +520,26 @@ public class GameController {
             return false;
         }
 
-        // Use AI solver to find the best move
-        model.AISolver solver = new model.AISolver(this.model, this);
-        if (solver.findSolution()) {
+        // Look the moves up in the level's distance database, and search only without one
+        List<model.AISolver.Move> solutionMoves = null;
+        HintDatabase hints = HintDatabase.forLevel(currentLevel);
+        if (hints != null) {
+            solutionMoves = hints.getBestMoves(model.getMatrix(), 3);
+        }
+        if (solutionMoves == null) {
+            model.AISolver solver = createHintSolver(this.model, hintPlanner, timeAttackMode);
+            if (solver.findSolution()) {
+                solutionMoves = solver.getSolutionMoves(3);
+            }
+        }
+        if (solutionMoves != null) {
             // Get moves from the solution if available
-            if (solver.getSolutionLength() > 0) {
+            if (!solutionMoves.isEmpty()) {
                 // Get up to 3 steps from the solution
-                int stepsToShow = Math.min(3, solver.getSolutionLength());
+                int stepsToShow = solutionMoves.size();
                 StringBuilder hintMessage = new StringBuilder();
                 hintMessage.append("<html><b>Hint:</b> Here are the next ").append(stepsToShow).append(" moves:<br><br>");
 
-                // Get the solution moves
-                List<model.AISolver.Move> solutionMoves = solver.getSolutionMoves(stepsToShow);
-
                 // Build step-by-step hints
                 for (int i = 0; i < solutionMoves.size(); i++) {
                     model.AISolver.Move move = solutionMoves.get(i);
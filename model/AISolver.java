@@ -1,28 +1,27 @@
 package model;
 
+import java.io.IOException;
 import java.util.*;
-import java.awt.event.ActionEvent;
-import java.awt.event.ActionListener;
-import javax.swing.JOptionPane;
-import javax.swing.Timer;
-import controller.GameController;
-import view.game.BoxComponent;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * AISolver implements an A* search algorithm to find an optimal solution for the Klotski puzzle.
- * The solver uses Manhattan distance as the heuristic function to guide the search towards the goal state.
+ * The search is guided by a {@link Heuristic}, by default an admissible one, so the solution is
+ * a shortest one.
  */
 public class AISolver {
     private MapModel model;
-    private GameController controller;
     private List<Move> solution;
-    private boolean isSolving = false;
-    private boolean isSearching = false;
+    private volatile boolean isSearching = false;
     private int statesExplored = 0;
 
     // Search parameters
-    private static final int MAX_STATES = 1000000;  // 增加最大状态数
-    private static final int REPORT_INTERVAL = 100;
+    // Closed set and best-g map cost ~16 and ~25 bytes per entry (LongHashSet/LongIntHashMap)
+    // instead of ~160 bytes for HashSet<String> keys, which leaves room for more states
+    private static final int MAX_STATES = 5000000;
     private static final int MIN_STATES_TO_EXPLORE = 1000;  // 降低最小探索状态数
     private static final int MAX_DEPTH = 100;  // 降低最大深度限制
 
@@ -32,12 +31,56 @@ public class AISolver {
         return Math.min(MAX_STATES, boardSize * 2000000);
     }
 
-    private int getCacheSize() {
-        return Math.min(50000, getMaxStates() / 100);
-    }
+    private static final long DEFAULT_TIME_LIMIT_MS = 30000;
+
+    // Background searches run on daemon threads so an abandoned one never keeps the game alive
+    private static final Executor SEARCH_EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "ai-solver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private SearchBudget budget;
+    private Consumer<SearchProgress> progressListener;
+    private volatile SearchControl control;
+    private volatile boolean cancelPending;  // cancel() came before the first search started
+
+    // Solutions of earlier searches, shared with later hints and sessions; none unless set
+    private SolutionCache solutionCache;
+    private boolean solutionFromCache;
+    private long resumedStates;
+
+    // Metric of the exact search, or null to use A*
+    private MoveMetric exactMetric;
+    private BidirectionalSolver lastExactSearch;
+
+    // Transposition table size of the IDA* search, or 0 to use A*
+    private long idaStarTableBytes;
+    private IdaStarSolver lastIdaStarSearch;
+
+    // Anytime weighted A* instead of A*, and who hears of its improving solutions
+    private boolean anytime;
+    private Consumer<List<Move>> solutionListener;
+    private AnytimeSolver lastAnytimeSearch;
+
+    // Beam width of the beam search, or 0 to use A*
+    private int beamWidth;
+    private BeamSearchSolver lastBeamSearch;
+
+    // Shorten solutions that are not known to be shortest
+    private boolean pathOptimization = true;
+
+    // Guides A*, null for the default
+    private Heuristic heuristic;
+
+    // Keep the A* nodes and their index in direct memory
+    private boolean offHeap;
+
+    // Saves and resumes unfinished A* searches, null for none
+    private SearchCheckpoint checkpoint;
 
-    // Cache for heuristic values
-    private Map<String, Integer> stateCache;
+    // Incremental A*, kept by the caller across solvers
+    private IncrementalPlanner planner;
 
     // Cache for goal position
     private int goalRow = -1;
@@ -63,62 +106,9 @@ public class AISolver {
         }
     }
 
-    /**
-     * Represents a state in the A* search
-     */
-    private static class State implements Comparable<State> {
-        int[][] board;
-        State parent;
-        int g;  // Cost from start to current state
-        int h;  // Heuristic value (Manhattan distance)
-        int f;  // f = g + h
-        Move lastMove;
-
-        State(int[][] board, State parent, int g, int h, Move lastMove) {
-            this.board = deepCopyBoard(board);
-            this.parent = parent;
-            this.g = g;
-            this.h = h;
-            this.f = g + h;
-            this.lastMove = lastMove;
-        }
-
-        @Override
-        public int compareTo(State other) {
-            return Integer.compare(this.f, other.f);
-        }
-
-        @Override
-        public boolean equals(Object obj) {
-            if (!(obj instanceof State)) return false;
-            State other = (State) obj;
-            boolean equal = Arrays.deepEquals(this.board, other.board);
-            // if (equal) {
-            //     System.out.println("Found equal states:");
-            //     System.out.println("State 1:");
-            //     printBoard(this.board);
-            //     System.out.println("State 2:");
-            //     printBoard(other.board);
-            // }
-            return equal;
-        }
-
-        @Override
-        public int hashCode() {
-            return Arrays.deepHashCode(board);
-        }
-    }
-
-    public AISolver(MapModel model, GameController controller) {
+    public AISolver(MapModel model) {
         this.model = model;
-        this.controller = controller;
         this.solution = new ArrayList<>();
-        this.stateCache = new LinkedHashMap<String, Integer>(getCacheSize(), 0.75f, true) {
-            @Override
-            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
-                return size() > getCacheSize();
-            }
-        };
 
         calculateGoalPosition();
     }
@@ -146,878 +136,642 @@ public class AISolver {
     }
 
     /**
-     * Find an optimal solution using A* search algorithm
+     * Limit the following searches; null restores the default of 30 s, getMaxStates() expanded
+     * states and half of the heap
      */
-    public boolean findSolution() {
-        if (isSearching) {
-            return false;
-        }
-        isSearching = true;
-        solution.clear();
-
-        // 使用当前棋盘状态而不是原始布局
-        int[][] currentBoard = model.copyMatrix();
-        System.out.println("\n=== Starting A* Search ===");
-        System.out.println("Current board state:");
-        printBoard(currentBoard);
-
-        boolean result = performAStarSearch();
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget;
+    }
 
-        isSearching = false;
-        return result;
+    public SearchBudget getBudget() {
+        return budget != null ? budget
+                : new SearchBudget(DEFAULT_TIME_LIMIT_MS, getMaxStates(), Runtime.getRuntime().maxMemory() / 2);
     }
 
     /**
-     * Perform A* search to find the optimal solution
+     * Receive throttled progress of the following searches, on the searching thread
      */
-    private boolean performAStarSearch() {
-        int[][] initialBoard = model.copyMatrix();  // 使用当前棋盘状态
-
-        PriorityQueue<State> openSet = new PriorityQueue<>();
-        Set<String> closedSet = new HashSet<>();
-        Map<String, State> stateMap = new HashMap<>();
-
-        State initialState = new State(initialBoard, null, 0, calculateHeuristic(initialBoard), null);
-        openSet.add(initialState);
-        String initialStateStr = boardToString(initialBoard);
-        stateMap.put(initialStateStr, initialState);
-
-        int statesExplored = 0;
-        long startTime = System.currentTimeMillis();
-        State lastExploredState = null;
-        State bestState = null;
-        int bestHeuristic = Integer.MAX_VALUE;
-        int lastBestHeuristic = Integer.MAX_VALUE;
-
-        while (!openSet.isEmpty() && statesExplored < getMaxStates()) {
-            State current = openSet.poll();
-            lastExploredState = current;
-            statesExplored++;
+    public void setProgressListener(Consumer<SearchProgress> listener) {
+        this.progressListener = listener;
+    }
 
-            // Update best state if current state has better heuristic
-            if (current.h < bestHeuristic) {
-                bestState = current;
-                lastBestHeuristic = bestHeuristic;
-                bestHeuristic = current.h;
-                System.out.println("\n=== Found Better Solution ===");
-                System.out.println("Step: " + statesExplored);
-                System.out.println("Previous best heuristic: " + lastBestHeuristic);
-                System.out.println("New best heuristic: " + bestHeuristic);
-                System.out.println("Improvement: " + (lastBestHeuristic - bestHeuristic));
-                if (current.lastMove != null) {
-                    System.out.println("Move: " + current.lastMove);
-                }
-                printBoard(current.board);
-            }
+    /**
+     * Stop the running search; it returns false within about a millisecond
+     */
+    public void cancel() {
+        SearchControl current = control;
+        if (current != null) {
+            current.cancel();
+        } else {
+            cancelPending = true;
+        }
+    }
 
-            if (statesExplored % REPORT_INTERVAL == 0 || statesExplored == 1) {
-                // System.out.println("\nStep " + statesExplored + ":");
-                // System.out.println("Current heuristic: " + current.h);
-                // System.out.println("Best heuristic so far: " + bestHeuristic);
-                // if (current.lastMove != null) {
-                //     System.out.println("Move: " + current.lastMove);
-                // }
-                // printBoard(current.board);
-            }
+    /**
+     * @return why the last search stopped early, NONE if it finished
+     */
+    public SearchControl.StopReason getStopReason() {
+        SearchControl current = control;
+        return current != null ? current.getStopReason() : SearchControl.StopReason.NONE;
+    }
 
-            if (isGoalState(current.board)) {
-                System.out.println("\n=== Goal State Found! ===");
-                System.out.println("Total steps: " + statesExplored);
-                System.out.println("Final heuristic: " + current.h);
-                System.out.println("Final board state:");
-                printBoard(current.board);
-                solution = reconstructPath(current);
-                return true;
+    /**
+     * Search on a background thread. Cancelling the returned future stops the search.
+     */
+    public CompletableFuture<Boolean> findSolutionAsync() {
+        SearchControl searchControl = new SearchControl(getBudget(), progressListener);
+        control = searchControl;
+        CompletableFuture<Boolean> future = CompletableFuture.supplyAsync(() -> findSolution(searchControl), SEARCH_EXECUTOR);
+        future.whenComplete((result, error) -> {
+            if (future.isCancelled()) {
+                searchControl.cancel();
             }
+        });
+        return future;
+    }
 
-            String currentStateStr = boardToString(current.board);
-            if (closedSet.contains(currentStateStr)) {
-                continue;
-            }
-            closedSet.add(currentStateStr);
+    /**
+     * Find an optimal solution using A* search algorithm
+     */
+    public boolean findSolution() {
+        return findSolution(new SearchControl(getBudget(), progressListener));
+    }
 
-            List<State> nextStates = generateNextStates(current);
+    /**
+     * Search under a control owned by the caller, for runners that manage budgets and
+     * cancellation themselves
+     */
+    public boolean findSolution(SearchControl searchControl) {
+        if (isSearching) {
+            return false;
+        }
+        control = searchControl;
+        if (cancelPending) {
+            cancelPending = false;
+            searchControl.cancel();
+        }
+        isSearching = true;
+        try {
+            return search(searchControl);
+        } finally {
+            // A mode that throws must not leave the solver refusing every later search
+            searchControl.finish();
+            isSearching = false;
+        }
+    }
 
-            for (State next : nextStates) {
-                String nextStateStr = boardToString(next.board);
+    private boolean search(SearchControl searchControl) {
+        solution.clear();
+        solutionFromCache = false;
+        resumedStates = 0;
 
-                if (closedSet.contains(nextStateStr)) {
-                    continue;
-                }
+        // 使用当前棋盘状态而不是原始布局
+        int[][] currentBoard = model.copyMatrix();
 
-                State existingState = stateMap.get(nextStateStr);
-                if (existingState != null) {
-                    if (next.g < existingState.g) {
-                        openSet.remove(existingState);
-                        openSet.add(next);
-                        stateMap.put(nextStateStr, next);
-                    }
-                } else {
-                    openSet.add(next);
-                    stateMap.put(nextStateStr, next);
-                }
+        boolean result = findCachedSolution(currentBoard);
+        if (!result) {
+            if (exactMetric != null) {
+                lastExactSearch = new BidirectionalSolver(currentBoard, model.getCurrentLevel(), exactMetric);
+                result = lastExactSearch.solve(searchControl);
+                solution = new ArrayList<>(lastExactSearch.getSolution());
+            } else if (anytime) {
+                lastAnytimeSearch = new AnytimeSolver(currentBoard, model.getCurrentLevel(), heuristicFor(currentBoard));
+                result = lastAnytimeSearch.solve(searchControl, solutionListener);
+                solution = new ArrayList<>(lastAnytimeSearch.getSolution());
+            } else if (idaStarTableBytes > 0) {
+                lastIdaStarSearch = new IdaStarSolver(currentBoard, model.getCurrentLevel(), idaStarTableBytes);
+                result = lastIdaStarSearch.solve(searchControl);
+                solution = new ArrayList<>(lastIdaStarSearch.getSolution());
+            } else if (beamWidth > 0) {
+                lastBeamSearch = new BeamSearchSolver(currentBoard, model.getCurrentLevel(), heuristic);
+                lastBeamSearch.setBeamWidth(beamWidth);
+                result = lastBeamSearch.solve(searchControl);
+                solution = new ArrayList<>(lastBeamSearch.getSolution());
+            } else if (planner != null) {
+                result = planner.plan(currentBoard, model.getCurrentLevel(), searchControl);
+                solution = new ArrayList<>(planner.getSolution());
+                statesExplored = (int) planner.getStatesVisited();
+            } else {
+                result = performAStarSearch(searchControl);
             }
-
-            if (System.currentTimeMillis() - startTime > 30000) {
-                System.out.println("\nSearch timeout after " + statesExplored + " states");
-                if (bestState != null) {
-                    System.out.println("\n=== Best Solution Found ===");
-                    System.out.println("Total steps: " + statesExplored);
-                    System.out.println("Best heuristic: " + bestHeuristic);
-                    if (bestState.lastMove != null) {
-                        System.out.println("Last move: " + bestState.lastMove);
-                    }
-                    printBoard(bestState.board);
-                }
-                return false;
+            if (result && pathOptimization && !isSolutionOptimal()) {
+                solution = new PathOptimizer(currentBoard, model.getCurrentLevel()).optimize(solution);
             }
-        }
-
-        System.out.println("\n=== Search Failed ===");
-        System.out.println("Search exceeded state limit of " + getMaxStates());
-        System.out.println("States explored: " + statesExplored);
-
-        // Print the best state found
-        if (bestState != null) {
-            System.out.println("\n=== Best Solution Found ===");
-            System.out.println("Total steps: " + statesExplored);
-            System.out.println("Best heuristic: " + bestHeuristic);
-            if (bestState.lastMove != null) {
-                System.out.println("Last move: " + bestState.lastMove);
+            if (result) {
+                cacheSolution(currentBoard);
             }
-            printBoard(bestState.board);
         }
-
-        return false;
-    }
-
-    private static void printBoard(int[][] board) {
-        for (int i = 0; i < board.length; i++) {
-            for (int j = 0; j < board[0].length; j++) {
-                System.out.print(String.format("%2d ", board[i][j]));
-            }
-            System.out.println();
+        if (result) {
+            searchControl.solutionFound(solution.size());
         }
-        System.out.println();
+        return result;
     }
 
     /**
-     * Calculate heuristic value for a board state
+     * Answer from and add to the given cache, such as the game's {@link SolutionCache#getDefault},
+     * or search every board when null (the default)
      */
-    private int calculateHeuristic(int[][] board) {
-        // Find Cao Cao position
-        int[] caoCaoPos = findCaoCaoPosition(board);
-        if (caoCaoPos == null) return Integer.MAX_VALUE;
-
-        int caoCaoRow = caoCaoPos[0];
-        int caoCaoCol = caoCaoPos[1];
-
-        // 1. Manhattan Distance with Linear Conflicts
-        int manhattanDistance = calculateManhattanDistance(caoCaoRow, caoCaoCol);
-        int linearConflicts = calculateLinearConflicts(board, caoCaoRow, caoCaoCol);
-
-        // 2. Pattern Recognition
-        int patternScore = calculatePatternScore(board, caoCaoRow, caoCaoCol);
+    public void setSolutionCache(SolutionCache cache) {
+        this.solutionCache = cache;
+    }
 
-        // 3. Space Analysis
-        int spaceScore = calculateSpaceScore(board, caoCaoRow, caoCaoCol);
+    /**
+     * @return true if the last solution was taken from the cache without searching
+     */
+    public boolean isSolutionFromCache() {
+        return solutionFromCache;
+    }
 
-        // 4. Path Analysis
-        int pathScore = calculatePathScore(board, caoCaoRow, caoCaoCol);
+    /**
+     * @return the states the last A* search took over from its checkpoint, 0 if it started anew
+     */
+    public long getResumedStates() {
+        return resumedStates;
+    }
 
-        // Combine all factors with adjusted weights
-        return manhattanDistance * 20 +     // 增加距离权重
-                linearConflicts * 15 +      // 增加冲突权重
-                patternScore * 5 +          // 降低模式权重
-                spaceScore * 8 +            // 降低空间权重
-                pathScore * 10;             // 降低路径权重
+    private MoveGenerator cacheGenerator(int[][] board) {
+        MoveGenerator generator = MoveGenerator.forLevel(board, model.getCurrentLevel());
+        generator.setCanonical(true);
+        return solutionCache != null && generator.getCodec().isCompact() ? generator : null;
     }
 
     /**
-     * Calculate space score
+     * Take the solution from the cache if the board lies on a cached path. An exact search in
+     * the piece metric always searches, since cached paths are only known to be shortest in
+     * cell moves.
      */
-    private int calculateSpaceScore(int[][] board, int caoCaoRow, int caoCaoCol) {
-        int score = 0;
-
-        // Check space below Cao Cao
-        for (int r = caoCaoRow + 2; r <= goalRow; r++) {
-            if (r < board.length) {
-                int emptyCells = 0;
-                for (int c = 0; c < board[0].length; c++) {
-                    if (board[r][c] == 0) {
-                        emptyCells++;
-                    }
-                }
-                score += emptyCells * 2;  // 降低空单元格奖励
-            }
+    private boolean findCachedSolution(int[][] board) {
+        MoveGenerator generator = cacheGenerator(board);
+        if (generator == null || exactMetric == MoveMetric.PIECE) {
+            return false;
         }
-
-        // Check space around Cao Cao
-        for (int dr = -1; dr <= 2; dr++) {
-            for (int dc = -1; dc <= 2; dc++) {
-                int r = caoCaoRow + dr;
-                int c = caoCaoCol + dc;
-                if (r >= 0 && r < board.length && c >= 0 && c < board[0].length) {
-                    if (board[r][c] == 0) {
-                        score += 1;  // 降低周围空单元格奖励
-                    }
-                }
-            }
+        long[] keys = solutionCache.lookup(generator.getCodec().getLayoutSignature(),
+                generator.getCanonicalKey(), isOptimalMode());
+        if (keys == null) {
+            return false;
+        }
+        List<Long> path = new ArrayList<>(keys.length);
+        for (long key : keys) {
+            path.add(key);
         }
+        solution = replay(generator, path);
+        solutionFromCache = true;
+        return true;
+    }
 
-        return -score;  // Negative because lower is better
+    private void cacheSolution(int[][] board) {
+        MoveGenerator generator = cacheGenerator(board);
+        if (generator == null) {
+            return;
+        }
+        solutionCache.put(generator.getCodec().getLayoutSignature(), SolutionCache.keysOf(generator, solution),
+                isSolutionOptimal());
     }
 
     /**
-     * Generate next possible states from current state
+     * Switch to the exact bidirectional BFS, which returns a provably shortest solution
+     * under the given metric, or back to A* when the metric is null
      */
-    private List<State> generateNextStates(State current) {
-        List<State> nextStates = new ArrayList<>();
-        int[][] board = current.board;
-
-        // Try to move all pieces
-        for (int row = 0; row < board.length; row++) {
-            for (int col = 0; col < board[0].length; col++) {
-                int pieceType = board[row][col];
-                if (pieceType == 0) continue;  // Skip empty cells
-
-                // For Cao Cao, prioritize its movement
-                if (pieceType == MapModel.CAO_CAO) {
-                    // Only process if this is the top-left corner of Cao Cao
-                    if (row > 0 && board[row-1][col] == MapModel.CAO_CAO) continue;
-                    if (col > 0 && board[row][col-1] == MapModel.CAO_CAO) continue;
-
-                    // Try moving in all directions
-                    for (Direction direction : Direction.values()) {
-                        if (canMove(board, row, col, 2, 2, direction)) {
-                            // Create a new board for this move
-                            int[][] newBoard = deepCopyBoard(board);
-                            Move move = new Move(row, col, direction);
-
-                            // Calculate new position
-                            int newRow = row;
-                            int newCol = col;
-                            switch (direction) {
-                                case UP: newRow--; break;
-                                case DOWN: newRow++; break;
-                                case LEFT: newCol--; break;
-                                case RIGHT: newCol++; break;
-                            }
-
-                            // Clear old positions
-                            for (int r = 0; r < 2; r++) {
-                                for (int c = 0; c < 2; c++) {
-                                    newBoard[row + r][col + c] = 0;
-                                }
-                            }
-
-                            // Set new positions
-                            for (int r = 0; r < 2; r++) {
-                                for (int c = 0; c < 2; c++) {
-                                    newBoard[newRow + r][newCol + c] = pieceType;
-                                }
-                            }
-
-                            nextStates.add(new State(newBoard, current, current.g + 1,
-                                    calculateHeuristic(newBoard),
-                                    move));
-                        }
-                    }
-                    continue;
-                }
-
-                // For generals, we need to try each one individually
-                if (pieceType == MapModel.GENERAL) {
-                    // Only process if this is the top of the general piece
-                    if (row > 0 && board[row-1][col] == MapModel.GENERAL) continue;
-                    
-                    // Verify general piece integrity (2x1)
-                    boolean isVertical = true;
-                    if (row + 1 < board.length && board[row + 1][col] == MapModel.GENERAL) {
-                        isVertical = true;
-                    } else if (col + 1 < board[0].length && board[row][col + 1] == MapModel.GENERAL) {
-                        isVertical = false;
-                    } else {
-                        continue;  // Not a valid general piece
-                    }
-
-                    // Try moving in all directions
-                    for (Direction direction : Direction.values()) {
-                        int width = isVertical ? 1 : 2;
-                        int height = isVertical ? 2 : 1;
-                        
-                        if (canMove(board, row, col, width, height, direction)) {
-                            // Create a new board for this move
-                            int[][] newBoard = deepCopyBoard(board);
-                            Move move = new Move(row, col, direction);
-
-                            // Calculate new position
-                            int newRow = row;
-                            int newCol = col;
-                            switch (direction) {
-                                case UP: newRow--; break;
-                                case DOWN: newRow++; break;
-                                case LEFT: newCol--; break;
-                                case RIGHT: newCol++; break;
-                            }
-
-                            // Clear old positions
-                            for (int r = 0; r < height; r++) {
-                                for (int c = 0; c < width; c++) {
-                                    newBoard[row + r][col + c] = 0;
-                                }
-                            }
-
-                            // Set new positions
-                            for (int r = 0; r < height; r++) {
-                                for (int c = 0; c < width; c++) {
-                                    newBoard[newRow + r][newCol + c] = pieceType;
-                                }
-                            }
-
-                            // Verify piece integrity after move
-                            boolean isValid = true;
-                            for (int r = 0; r < height; r++) {
-                                for (int c = 0; c < width; c++) {
-                                    if (newBoard[newRow + r][newCol + c] != pieceType) {
-                                        isValid = false;
-                                        break;
-                                    }
-                                }
-                                if (!isValid) break;
-                            }
-
-                            if (isValid) {
-                                nextStates.add(new State(newBoard, current, current.g + 1,
-                                        calculateHeuristic(newBoard),
-                                        move));
-                            }
-                        }
-                    }
-                    continue;
-                }
-
-                // For soldiers, we need to try each one individually
-                if (pieceType == MapModel.SOLDIER) {
-                    // Try moving in all directions
-                    for (Direction direction : Direction.values()) {
-                        if (canMove(board, row, col, 1, 1, direction)) {
-                            // Create a new board for this move
-                            int[][] newBoard = deepCopyBoard(board);
-                            Move move = new Move(row, col, direction);
-
-                            // Calculate new position
-                            int newRow = row;
-                            int newCol = col;
-                            switch (direction) {
-                                case UP: newRow--; break;
-                                case DOWN: newRow++; break;
-                                case LEFT: newCol--; break;
-                                case RIGHT: newCol++; break;
-                            }
-
-                            // Clear old position
-                            newBoard[row][col] = 0;
-
-                            // Set new position
-                            newBoard[newRow][newCol] = pieceType;
-
-                            nextStates.add(new State(newBoard, current, current.g + 1,
-                                    calculateHeuristic(newBoard),
-                                    move));
-                        }
-                    }
-                    continue;
-                }
-
-                // For other pieces, skip if this is not the top-left corner
-                if (row > 0 && board[row-1][col] == pieceType) {
-                    continue;
-                }
-                if (col > 0 && board[row][col-1] == pieceType) {
-                    continue;
-                }
-
-                // Get piece dimensions
-                int width = 1;
-                int height = 1;
-
-                // Determine piece dimensions
-                if (pieceType == MapModel.CAO_CAO) {
-                    width = 2;
-                    height = 2;
-                } else if (pieceType == MapModel.GUAN_YU) {
-                    width = 2;
-                    height = 1;
-                } else if (pieceType == MapModel.ZHOU_YU) {
-                    width = 3;
-                    height = 1;
-                }
-
-                // Try moving in all directions
-                for (Direction direction : Direction.values()) {
-                    if (canMove(board, row, col, width, height, direction)) {
-                        // Create a new board for this move
-                        int[][] newBoard = deepCopyBoard(board);
-                        Move move = new Move(row, col, direction);
-
-                        // Calculate new position
-                        int newRow = row;
-                        int newCol = col;
-                        switch (direction) {
-                            case UP: newRow--; break;
-                            case DOWN: newRow++; break;
-                            case LEFT: newCol--; break;
-                            case RIGHT: newCol++; break;
-                        }
-
-                        // Clear old positions
-                        for (int r = 0; r < height; r++) {
-                            for (int c = 0; c < width; c++) {
-                                newBoard[row + r][col + c] = 0;
-                            }
-                        }
-
-                        // Set new positions
-                        for (int r = 0; r < height; r++) {
-                            for (int c = 0; c < width; c++) {
-                                newBoard[newRow + r][newCol + c] = pieceType;
-                            }
-                        }
-
-                        nextStates.add(new State(newBoard, current, current.g + 1,
-                                calculateHeuristic(newBoard),
-                                move));
-                    }
-                }
-            }
+    public void setExactMode(MoveMetric metric) {
+        this.exactMetric = metric;
+        if (metric != null) {
+            idaStarTableBytes = 0;
+            anytime = false;
+            beamWidth = 0;
         }
+    }
 
-        return nextStates;
+    public MoveMetric getExactMode() {
+        return exactMetric;
     }
 
     /**
-     * Reconstruct path from goal state to initial state
+     * @return the last exact search with its per-layer frontier sizes, or null if none ran
      */
-    private List<Move> reconstructPath(State goalState) {
-        List<Move> path = new ArrayList<>();
-        State current = goalState;
+    public BidirectionalSolver getLastExactSearch() {
+        return lastExactSearch;
+    }
 
-        while (current.parent != null) {
-            path.add(0, current.lastMove);
-            current = current.parent;
+    /**
+     * Switch to IDA*, or back to A* when tableBytes is 0. The mode is bounded-memory, may not
+     * finish: it needs no more memory than a transposition table of the given size and returns
+     * a shortest solution in cell moves if it ends, but on the larger levels a table of a few
+     * megabytes forgets most boards and the search runs past any reasonable budget, so set one.
+     */
+    public void setIdaStarMode(long tableBytes) {
+        this.idaStarTableBytes = Math.max(0, tableBytes);
+        if (tableBytes > 0) {
+            exactMetric = null;
+            anytime = false;
+            beamWidth = 0;
         }
+    }
 
-        return path;
+    /**
+     * @return the transposition table size of IDA*, or 0 if it is not used
+     */
+    public long getIdaStarMode() {
+        return idaStarTableBytes;
     }
 
     /**
-     * Check if the current state is a goal state
+     * @return the last IDA* search with its iteration bounds, or null if none ran
      */
-    private boolean isGoalState(int[][] board) {
-        int[] caoCaoPos = findCaoCao(board);
-        if (caoCaoPos == null) {
-            return false;
-        }
+    public IdaStarSolver getLastIdaStarSearch() {
+        return lastIdaStarSearch;
+    }
 
-        // Check if Cao Cao is at the bottom of the board
-        // For a 2x2 piece, the bottom position should be at board.length - 2
-        if (caoCaoPos[0] == board.length - 2) {
-            // Calculate the middle position for the board width
-            int middleCol = (board[0].length - 2) / 2;
-
-            // Check if Cao Cao is in the middle position
-            if (caoCaoPos[1] == middleCol) {
-                // Verify that Cao Cao completely covers the bottom middle area
-                for (int r = board.length - 2; r < board.length; r++) {
-                    for (int c = middleCol; c < middleCol + 2; c++) {
-                        if (board[r][c] != MapModel.CAO_CAO) {
-                            return false;
-                        }
-                    }
-                }
-                return true;
-            }
+    /**
+     * Switch to anytime weighted A*, which finds a solution quickly and keeps publishing
+     * shorter ones to the solution listener until the budget runs out or the last one is
+     * proven shortest, or back to A*. The result is the best solution found in time.
+     */
+    public void setAnytimeMode(boolean enabled) {
+        this.anytime = enabled;
+        if (enabled) {
+            exactMetric = null;
+            idaStarTableBytes = 0;
+            beamWidth = 0;
         }
+    }
 
-        return false;
+    public boolean isAnytimeMode() {
+        return anytime;
     }
 
     /**
-     * Find Cao Cao's position in the board
+     * Receive every strictly shorter solution of an anytime search, on the searching thread
      */
-    private int[] findCaoCao(int[][] board) {
-        for (int i = 0; i < board.length - 1; i++) {
-            for (int j = 0; j < board[0].length - 1; j++) {
-                if (board[i][j] == MapModel.CAO_CAO &&
-                        board[i][j+1] == MapModel.CAO_CAO &&
-                        board[i+1][j] == MapModel.CAO_CAO &&
-                        board[i+1][j+1] == MapModel.CAO_CAO) {
-                    return new int[]{i, j};
-                }
-            }
-        }
-        return null;
+    public void setSolutionListener(Consumer<List<Move>> listener) {
+        this.solutionListener = listener;
     }
 
     /**
-     * Convert board state to string for hashing
+     * @return the last anytime search with the lengths and times of its solutions, or null if
+     *         none ran
      */
-    private String boardToString(int[][] board) {
-        StringBuilder sb = new StringBuilder();
-        for (int r = 0; r < board.length; r++) {
-            for (int c = 0; c < board[0].length; c++) {
-                sb.append(board[r][c]).append(",");
-            }
-        }
-        return sb.toString();
+    public AnytimeSolver getLastAnytimeSearch() {
+        return lastAnytimeSearch;
     }
 
     /**
-     * Deep copy a board state
+     * Switch to beam search, which keeps the given number of boards per move and finds a
+     * solution, though rarely a shortest one, in bounded time and memory even on boards far too
+     * large for A*; or back to A* when the width is 0
      */
-    private static int[][] deepCopyBoard(int[][] board) {
-        int[][] copy = new int[board.length][board[0].length];
-        for (int i = 0; i < board.length; i++) {
-            System.arraycopy(board[i], 0, copy[i], 0, board[i].length);
+    public void setBeamMode(int width) {
+        this.beamWidth = Math.max(0, width);
+        if (width > 0) {
+            exactMetric = null;
+            idaStarTableBytes = 0;
+            anytime = false;
         }
-        return copy;
     }
 
     /**
-     * Execute the solution move by move with animation
+     * @return the beam width of the beam search, or 0 if it is not used
      */
-    public void executeSolution() {
-        if (solution.isEmpty() || isSolving) {
-            return;
-        }
+    public int getBeamMode() {
+        return beamWidth;
+    }
 
-        isSolving = true;
-        controller.setAISolving(true);  // Set AI solving flag
-        final int[] moveIndex = {0};
-        final long[] lastMoveTime = {System.currentTimeMillis()};
+    /**
+     * @return the last beam search, or null if none ran
+     */
+    public BeamSearchSolver getLastBeamSearch() {
+        return lastBeamSearch;
+    }
 
-        Timer timer = new Timer(1000, e -> {
-            long currentTime = System.currentTimeMillis();
-            if (currentTime - lastMoveTime[0] < 800) {
-                return;
-            }
+    /**
+     * Shorten the solutions of weighted, greedy and beam searches afterwards with a
+     * {@link PathOptimizer} (the default), or return them as found
+     */
+    public void setPathOptimization(boolean enabled) {
+        this.pathOptimization = enabled;
+    }
 
-            if (moveIndex[0] >= solution.size()) {
-                ((Timer)e.getSource()).stop();
-                isSolving = false;
-                controller.setAISolving(false);  // Reset AI solving flag
+    public boolean isPathOptimization() {
+        return pathOptimization;
+    }
 
-                JOptionPane.showMessageDialog(
-                        null,
-                        "<html><h2>Solution Complete!</h2>" +
-                                "The AI has successfully solved the puzzle in " + solution.size() + " moves.</html>",
-                        "AI Solution Complete",
-                        JOptionPane.INFORMATION_MESSAGE
-                );
+    /**
+     * @return true if the solution just found is known to be shortest in cell moves; an
+     *         anytime search or a planner's detour may have stopped before that was proven
+     */
+    private boolean isSolutionOptimal() {
+        if (anytime) {
+            return lastAnytimeSearch.isOptimal();
+        }
+        if (planner != null && exactMetric == null && idaStarTableBytes == 0 && beamWidth == 0) {
+            return planner.isOptimal();
+        }
+        return isOptimalMode();
+    }
 
-                return;
-            }
+    /**
+     * @return true if the selected search returns shortest solutions in cell moves
+     */
+    private boolean isOptimalMode() {
+        if (exactMetric != null) {
+            return exactMetric == MoveMetric.CELL;
+        }
+        if (beamWidth > 0) {
+            return false;
+        }
+        return idaStarTableBytes > 0 || heuristic == null || heuristic.isAdmissible();
+    }
 
-            Move move = solution.get(moveIndex[0]);
-            
-            // 获取当前棋盘状态
-            int[][] currentBoard = model.copyMatrix();
-            
-            // 打印解决方案中的这一步
-            System.out.println("\n=== Step " + moveIndex[0] + " in Solution ===");
-            System.out.println("Move: " + move);
-            System.out.println("Expected board state:");
-            printBoard(currentBoard);
-            
-            // 打印实际棋盘状态
-            System.out.println("\nActual board state:");
-            printBoard(model.copyMatrix());
-            
-            // 验证当前位置的方块
-            BoxComponent selectedBox = controller.selectBoxAt(move.row, move.col);
-            if (selectedBox == null) {
-                System.out.println("\nError: Could not select box at [" + move.row + "," + move.col + "]");
-                if (findSolution()) {
-                    System.out.println("Recalculated solution with " + solution.size() + " moves");
-                    moveIndex[0] = 0;
-                    return;
-                } else {
-                    System.out.println("Error: Could not find new solution after failed move");
-                    ((Timer)e.getSource()).stop();
-                    isSolving = false;
-                    JOptionPane.showMessageDialog(
-                            null,
-                            "Failed to execute solution. The puzzle state has changed.",
-                            "AI Solution Failed",
-                            JOptionPane.ERROR_MESSAGE
-                    );
-                    return;
-                }
-            }
+    /**
+     * Guide the A* search with the given heuristic, or with the default one when null: the
+     * level's pattern databases if they were built, else the Cao Cao distance. Both are
+     * admissible, so A* returns shortest solutions.
+     */
+    public void setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+    }
 
-            boolean moveSuccess = controller.doMove(move.row, move.col, move.direction);
-            if (moveSuccess) {
-                lastMoveTime[0] = System.currentTimeMillis();
-                moveIndex[0]++;
-            } else {
-                System.out.println("\nWarning: Move failed at step " + moveIndex[0]);
-                if (findSolution()) {
-                    System.out.println("Recalculated solution with " + solution.size() + " moves");
-                    moveIndex[0] = 0;
-                } else {
-                    System.out.println("Error: Could not find new solution after failed move");
-                    ((Timer)e.getSource()).stop();
-                    isSolving = false;
-                    JOptionPane.showMessageDialog(
-                            null,
-                            "Failed to execute solution. The puzzle state has changed.",
-                            "AI Solution Failed",
-                            JOptionPane.ERROR_MESSAGE
-                    );
-                }
-            }
-        });
+    /**
+     * Keep the nodes of the A* search, the index of visited boards and the open set's
+     * priorities in direct memory. The heap then only holds the ids of the queued boards, four
+     * bytes each, so searches of more than a hundred million boards run without long
+     * collections; the buffers are dropped as soon as a search ends.
+     */
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
 
-        timer.start();
+    public boolean isOffHeap() {
+        return offHeap;
     }
 
     /**
-     * Get the length of the current solution
+     * Save the A* search to the checkpoint's file at its interval and whenever the search stops
+     * early, and resume the following search of the same board from that file. The file is
+     * deleted once the search completes. Null turns checkpoints off.
      */
-    public int getSolutionLength() {
-        return solution.size();
+    public void setCheckpoint(SearchCheckpoint checkpoint) {
+        this.checkpoint = checkpoint;
+    }
+
+    public SearchCheckpoint getCheckpoint() {
+        return checkpoint;
     }
 
     /**
-     * Get a specific number of moves from the solution
+     * Search with the given planner instead of a fresh A*, so that a search after a few moves
+     * reuses what the earlier ones learned. Share one planner between the solvers of a game;
+     * null goes back to plain A*.
      */
-    public List<Move> getSolutionMoves(int count) {
-        int movesToReturn = Math.min(count, solution.size());
-        return solution.subList(0, movesToReturn);
+    public void setIncrementalPlanner(IncrementalPlanner planner) {
+        this.planner = planner;
     }
 
-    private int getPieceWidth(int pieceType) {
-        switch (pieceType) {
-            case MapModel.CAO_CAO: return 2;  // 2x2
-            case MapModel.GUAN_YU: return 2;  // 2x1
-            case MapModel.GENERAL: return 1;  // 1x2
-            case MapModel.SOLDIER: return 1;  // 1x1
-            case MapModel.ZHOU_YU: return 3;  // 3x1
-            default: return 1;
-        }
+    public IncrementalPlanner getIncrementalPlanner() {
+        return planner;
     }
 
-    private int getPieceHeight(int pieceType) {
-        switch (pieceType) {
-            case MapModel.CAO_CAO: return 2;  // 2x2
-            case MapModel.GUAN_YU: return 1;  // 2x1
-            case MapModel.GENERAL: return 2;  // 1x2
-            case MapModel.SOLDIER: return 1;  // 1x1
-            case MapModel.ZHOU_YU: return 1;  // 3x1
-            default: return 1;
-        }
+    private Heuristic heuristicFor(int[][] board) {
+        return heuristic != null ? heuristic : PatternDatabaseHeuristic.bestFor(board, model.getCurrentLevel());
     }
 
-    private boolean canMove(int[][] board, int row, int col, int width, int height, Direction direction) {
-        // Check if position is out of bounds
-        if (row < 0 || col < 0 || row >= board.length || col >= board[0].length) {
-            return false;
-        }
+    /**
+     * @return the weighted score A* used before the admissible heuristics, aimed at this
+     *         solver's goal position
+     */
+    public WeightedScoreHeuristic createWeightedScoreHeuristic() {
+        return new WeightedScoreHeuristic(goalRow, goalCol);
+    }
 
-        // Check if there is a piece at the position
-        int pieceType = board[row][col];
-        if (pieceType == 0 || pieceType == MapModel.BLOCKED || pieceType == MapModel.MILITARY_CAMP) {
-            return false;
-        }
+    /**
+     * @return the states expanded by the last A* search
+     */
+    public int getStatesExplored() {
+        return statesExplored;
+    }
 
-        // Verify piece dimensions
-        if (row + height > board.length || col + width > board[0].length) {
-            return false;
-        }
+    /**
+     * Perform A* search to find the optimal solution
+     */
+    private boolean performAStarSearch(SearchControl control) {
+        int[][] initialBoard = model.copyMatrix();  // 使用当前棋盘状态
+        MoveGenerator generator = MoveGenerator.forLevel(initialBoard, model.getCurrentLevel());
 
-        // Verify piece integrity
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                if (board[row + r][col + c] != pieceType) {
-                    return false;
-                }
+        // Every generated state gets a node in the arena; the open set orders node indices by
+        // f, then h, and a shorter path to a queued state lowers its key in place
+        NodeStore nodes = offHeap ? new OffHeapNodeArena() : new NodeArena(1 << 16);
+        IndexedMinHeap openSet = new IndexedMinHeap(1 << 16, offHeap);
+        LongIntMap nodeIndex = offHeap ? new OffHeapLongIntHashMap(-1) : new LongIntHashMap(1 << 16, -1);
+        try {
+            return performAStarSearch(control, generator, initialBoard, nodes, openSet, nodeIndex);
+        } finally {
+            // Off-heap tables go back to the system now, not at the next collection
+            if (nodes instanceof OffHeapNodeArena) {
+                ((OffHeapNodeArena) nodes).close();
             }
+            if (nodeIndex instanceof OffHeapLongIntHashMap) {
+                ((OffHeapLongIntHashMap) nodeIndex).close();
+            }
+            openSet.close();
         }
+    }
 
-        // Calculate new position
-        int newRow = row;
-        int newCol = col;
-        switch (direction) {
-            case UP: newRow--; break;
-            case DOWN: newRow++; break;
-            case LEFT: newCol--; break;
-            case RIGHT: newCol++; break;
+    private boolean performAStarSearch(SearchControl control, MoveGenerator generator, int[][] initialBoard,
+                                       NodeStore nodes, IndexedMinHeap openSet, LongIntMap nodeIndex) {
+        MoveBuffer successors = new MoveBuffer();
+
+        // A board and its mirror image share one node on symmetric layouts
+        generator.setCanonical(true);
+        Heuristic heuristic = heuristicFor(initialBoard);
+        // Checkpoints only hold compact keys; wide ones are interned per codec
+        SearchCheckpoint checkpoint = generator.getCodec().isCompact() ? this.checkpoint : null;
+        long layout = generator.getCodec().getLayoutSignature();
+        long startKey = generator.getCanonicalKey();
+        long resumedStates = checkpoint != null ? resume(checkpoint, layout, startKey, heuristic, nodes) : -1;
+        if (resumedStates >= 0) {
+            // Open nodes are exactly those not closed yet
+            for (int node = 0; node < nodes.size(); node++) {
+                nodeIndex.put(nodes.getKey(node), node);
+                if (!nodes.isClosed(node)) {
+                    openSet.insert(node, nodes.getF(node), nodes.getH(node));
+                }
+            }
+        } else {
+            resumedStates = 0;
+            int root = nodes.add(startKey, NodeStore.NO_PARENT, 0, heuristic.estimate(generator));
+            nodeIndex.put(nodes.getKey(root), root);
+            openSet.insert(root, nodes.getF(root), nodes.getH(root));
         }
 
-        // Check if new position is within bounds
-        if (newRow < 0 || newRow + height > board.length ||
-                newCol < 0 || newCol + width > board[0].length) {
-            return false;
-        }
+        statesExplored = (int) resumedStates;
+        this.resumedStates = resumedStates;
+        int bestHeuristic = Integer.MAX_VALUE;
 
-        // Check if target area is empty and valid
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                // Skip checking the original piece's position
-                if (newRow + r >= row && newRow + r < row + height &&
-                        newCol + c >= col && newCol + c < col + width) {
-                    continue;
+        while (!openSet.isEmpty()) {
+            long memory = nodes.memoryUsage() + openSet.memoryUsage() + nodeIndex.memoryUsage();
+            // The budget applies to this run, not to the work resumed
+            if (control.checkpoint(statesExplored - resumedStates, memory, bestHeuristic, openSet.size())) {
+                if (checkpoint != null) {
+                    saveCheckpoint(checkpoint, layout, startKey, heuristic, nodes);
+                }
+                break;
+            }
+            if (checkpoint != null && (statesExplored & 0xFFF) == 0 && checkpoint.isDue()) {
+                saveCheckpoint(checkpoint, layout, startKey, heuristic, nodes);
+            }
+            int current = openSet.poll();
+            statesExplored++;
+            generator.load(nodes.getKey(current));
+            bestHeuristic = Math.min(bestHeuristic, nodes.getH(current));
+
+            if (generator.isGoal()) {
+                solution = reconstructPath(nodes, current, generator, initialBoard);
+                control.solutionFound(solution.size());
+                control.report(statesExplored - resumedStates, memory, bestHeuristic, openSet.size());
+                if (checkpoint != null) {
+                    checkpoint.delete();
                 }
+                return true;
+            }
 
-                int targetCell = board[newRow + r][newCol + c];
+            if (!nodes.markClosed(current)) {
+                continue;
+            }
 
-                // Check for blocked cells and military camps - cannot move onto or through them
-                if (targetCell == MapModel.BLOCKED || targetCell == MapModel.MILITARY_CAMP) {
-                    // Only soldiers can step on military camps
-                    if (targetCell == MapModel.MILITARY_CAMP && pieceType == MapModel.SOLDIER) {
-                        continue;
-                    }
-                    return false;
-                }
+            generator.generate(successors);
+            int duplicates = 0;
 
-                // For generals, we need to check both positions
-                if (pieceType == MapModel.GENERAL) {
-                    if (direction == Direction.LEFT || direction == Direction.RIGHT) {
-                        // For horizontal movement, check both rows
-                        if (targetCell != 0) {
-                            return false;
-                        }
-                    } else {
-                        // For vertical movement, check both columns
-                        if (targetCell != 0) {
-                            return false;
-                        }
-                    }
+            for (int i = 0; i < successors.size(); i++) {
+                long nextKey = successors.getKey(i);
+                int index = nodeIndex.get(nextKey);
+                if (index >= 0) {
+                    duplicates++;
                 }
-                // For Zhou Yu, we need to check all three positions
-                else if (pieceType == MapModel.ZHOU_YU) {
-                    if (direction == Direction.UP || direction == Direction.DOWN) {
-                        // For vertical movement, check all three columns
-                        if (targetCell != 0) {
-                            return false;
-                        }
-                    } else {
-                        // For horizontal movement, check all three positions
-                        if (targetCell != 0) {
-                            return false;
-                        }
-                    }
+                if (index >= 0 && nodes.isClosed(index)) {
+                    continue;
                 }
-                // For other pieces
-                else {
-                    if (targetCell != 0) {
-                        return false;
-                    }
+
+                int nextG = nodes.getG(current) + 1;
+                if (index < 0) {
+                    // Evaluate the successor in place, then restore the current board
+                    int piece = successors.getPiece(i);
+                    Direction direction = successors.getDirection(i);
+                    generator.apply(piece, direction);
+                    int h = heuristic.estimate(generator);
+                    generator.undo(piece, direction);
+
+                    index = nodes.add(nextKey, current, nextG, h);
+                    nodeIndex.put(nextKey, index);
+                    openSet.insert(index, nodes.getF(index), h);
+                } else if (nextG < nodes.getG(index)) {
+                    nodes.relax(index, current, nextG);
+                    openSet.decreaseKey(index, nodes.getF(index), nodes.getH(index));
                 }
             }
+            control.countSuccessors(successors.size(), duplicates);
         }
 
-        return true;
+        if (checkpoint != null && openSet.isEmpty()) {
+            // Nothing left to resume: the board has no solution
+            checkpoint.delete();
+        }
+
+        return false;
     }
 
-    private void applyMove(int[][] board, Move move) {
-        int row = move.row;
-        int col = move.col;
-        Direction direction = move.direction;
-
-        // Get the block type and dimensions
-        int blockType = board[row][col];
-        int width = 1;
-        int height = 1;
-
-        // Determine piece dimensions
-        if (blockType == MapModel.CAO_CAO) {
-            width = 2;
-            height = 2;
-        } else if (blockType == MapModel.GUAN_YU) {
-            width = 2;
-            height = 1;
-        } else if (blockType == MapModel.GENERAL) {
-            width = 1;
-            height = 2;
-        } else if (blockType == MapModel.ZHOU_YU) {
-            width = 3;
-            height = 1;
+    /**
+     * Load the nodes of an earlier run of this search
+     *
+     * @return the states it explored, or -1 to start over
+     */
+    private static long resume(SearchCheckpoint checkpoint, long layout, long startKey, Heuristic heuristic,
+                               NodeStore nodes) {
+        try {
+            return checkpoint.read(layout, startKey, heuristic.getName(), nodes);
+        } catch (IOException e) {
+            System.err.println("Ignoring search checkpoint " + checkpoint.getFile() + ": " + e.getMessage());
+            nodes.clear();
+            return -1;
         }
+    }
 
-        // Calculate new position
-        int nextRow = row;
-        int nextCol = col;
-        switch (direction) {
-            case UP:
-                nextRow = row - 1;
-                break;
-            case DOWN:
-                nextRow = row + 1;
-                break;
-            case LEFT:
-                nextCol = col - 1;
-                break;
-            case RIGHT:
-                nextCol = col + 1;
-                break;
+    private void saveCheckpoint(SearchCheckpoint checkpoint, long layout, long startKey, Heuristic heuristic,
+                                NodeStore nodes) {
+        try {
+            checkpoint.write(layout, startKey, heuristic.getName(), statesExplored, nodes);
+        } catch (IOException e) {
+            System.err.println("Could not write the search checkpoint: " + e.getMessage());
         }
+    }
 
-        // Debug output before move
-        System.out.println("\nBefore move:");
-        System.out.println("Moving piece type " + blockType + " (" + width + "x" + height + ")");
-        System.out.println("From [" + row + "," + col + "] to [" + nextRow + "," + nextCol + "]");
-        printBoard(board);
-
-        // Create a temporary board to store the new state
-        int[][] tempBoard = deepCopyBoard(board);
+    /**
+     * Reconstruct path from goal state to initial state
+     */
+    private List<Move> reconstructPath(NodeStore nodes, int goal, MoveGenerator generator, int[][] initialBoard) {
+        List<Long> keys = new ArrayList<>();
+        for (int node = goal; node != NodeStore.NO_PARENT; node = nodes.getParent(node)) {
+            keys.add(nodes.getKey(node));
+        }
+        Collections.reverse(keys);
+        // Replay on the search's own generator: keys of wide layouts are ids interned by its codec
+        generator.load(initialBoard);
+        return replay(generator, keys);
+    }
 
-        // Clear old positions
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                if (row + r < board.length && col + c < board[0].length) {
-                    tempBoard[row + r][col + c] = 0;
+    /**
+     * Turn a chain of canonical keys into moves. A node may stand for the mirror image of the
+     * board actually reached, so the moves are found again by replaying them on the real
+     * boards, starting from the generator's board, and matching each successor's key.
+     */
+    static List<Move> replay(MoveGenerator generator, List<Long> keys) {
+        List<Move> path = new ArrayList<>();
+        MoveBuffer successors = new MoveBuffer();
+        for (int step = 1; step < keys.size(); step++) {
+            generator.generate(successors);
+            int match = -1;
+            for (int i = 0; i < successors.size() && match < 0; i++) {
+                if (successors.getKey(i) == keys.get(step)) {
+                    match = i;
                 }
             }
-        }
-
-        // Set new positions
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                if (nextRow + r < board.length && nextCol + c < board[0].length) {
-                    tempBoard[nextRow + r][nextCol + c] = blockType;
-                }
+            if (match < 0) {
+                throw new IllegalStateException("No move leads to step " + step + " of the path");
             }
+            path.add(new Move(successors.getRow(match), successors.getCol(match), successors.getDirection(match)));
+            generator.apply(successors.getPiece(match), successors.getDirection(match));
         }
+        return path;
+    }
 
-        // Verify piece integrity in new position
-        boolean isValid = true;
-        for (int r = 0; r < height; r++) {
-            for (int c = 0; c < width; c++) {
-                if (tempBoard[nextRow + r][nextCol + c] != blockType) {
-                    isValid = false;
-                    System.out.println("ERROR: Piece integrity check failed at [" + (nextRow + r) + "," + (nextCol + c) + "]");
-                    break;
+    /**
+     * Find Cao Cao's position in the board
+     */
+    private int[] findCaoCao(int[][] board) {
+        for (int i = 0; i < board.length - 1; i++) {
+            for (int j = 0; j < board[0].length - 1; j++) {
+                if (board[i][j] == MapModel.CAO_CAO &&
+                        board[i][j+1] == MapModel.CAO_CAO &&
+                        board[i+1][j] == MapModel.CAO_CAO &&
+                        board[i+1][j+1] == MapModel.CAO_CAO) {
+                    return new int[]{i, j};
                 }
             }
-            if (!isValid) break;
         }
+        return null;
+    }
 
-        if (isValid) {
-            // Copy the temporary board back to the original board
-            for (int i = 0; i < board.length; i++) {
-                System.arraycopy(tempBoard[i], 0, board[i], 0, board[i].length);
-            }
-            System.out.println("Move successful - piece integrity maintained");
-        } else {
-            System.out.println("ERROR: Piece integrity check failed after move!");
-            System.out.println("Keeping original board state");
-        }
+    /**
+     * Get the length of the current solution
+     */
+    public int getSolutionLength() {
+        return solution.size();
+    }
 
-        // Debug output after move
-        System.out.println("\nAfter move:");
-        printBoard(board);
+    /**
+     * Get a specific number of moves from the solution
+     */
+    public List<Move> getSolutionMoves(int count) {
+        int movesToReturn = Math.min(count, solution.size());
+        return solution.subList(0, movesToReturn);
     }
 
     /**
@@ -1035,9 +789,11 @@ public class AISolver {
         }
 
         // Then check if Cao Cao can move in any direction
+        MoveGenerator generator = MoveGenerator.forLevel(board, model.getCurrentLevel());
+        int caoCao = generator.findPiece(caoCaoPos[0], caoCaoPos[1]);
         boolean canMove = false;
         for (Direction dir : Direction.values()) {
-            if (canMove(board, caoCaoPos[0], caoCaoPos[1], 2, 2, dir)) {
+            if (caoCao >= 0 && generator.canMove(caoCao, dir)) {
                 canMove = true;
                 System.out.println("Cao Cao can move " + dir);
                 break;
@@ -1086,115 +842,4 @@ public class AISolver {
         System.out.println("Layout is solvable");
         return true;
     }
-
-    /**
-     * Find Cao Cao's position in the board
-     */
-    private int[] findCaoCaoPosition(int[][] board) {
-        for (int r = 0; r < board.length - 1; r++) {
-            for (int c = 0; c < board[0].length - 1; c++) {
-                if (board[r][c] == MapModel.CAO_CAO &&
-                    board[r][c+1] == MapModel.CAO_CAO &&
-                    board[r+1][c] == MapModel.CAO_CAO &&
-                    board[r+1][c+1] == MapModel.CAO_CAO) {
-                    return new int[]{r, c};
-                }
-            }
-        }
-        return null;
-    }
-
-    /**
-     * Calculate Manhattan distance to goal
-     */
-    private int calculateManhattanDistance(int row, int col) {
-        return Math.abs(row - goalRow) + Math.abs(col - goalCol);
-    }
-
-    /**
-     * Calculate linear conflicts
-     */
-    private int calculateLinearConflicts(int[][] board, int caoCaoRow, int caoCaoCol) {
-        int conflicts = 0;
-
-        // Check horizontal conflicts
-        for (int c = 0; c < board[0].length; c++) {
-            if (c != caoCaoCol && board[caoCaoRow][c] != 0) {
-                conflicts++;
-            }
-        }
-
-        // Check vertical conflicts
-        for (int r = 0; r < board.length; r++) {
-            if (r != caoCaoRow && board[r][caoCaoCol] != 0) {
-                conflicts++;
-            }
-        }
-
-        return conflicts;
-    }
-
-    /**
-     * Calculate pattern score
-     */
-    private int calculatePatternScore(int[][] board, int caoCaoRow, int caoCaoCol) {
-        int score = 0;
-
-        // Check if Cao Cao is in a corner
-        if ((caoCaoRow == 0 || caoCaoRow == board.length - 2) &&
-                (caoCaoCol == 0 || caoCaoCol == board[0].length - 2)) {
-            score += 5;
-        }
-
-        // Check if Cao Cao is aligned with goal
-        if (caoCaoRow == goalRow) {
-            score += 3;
-        }
-        if (caoCaoCol == goalCol) {
-            score += 3;
-        }
-
-        return score;
-    }
-
-    /**
-     * Calculate path score
-     */
-    private int calculatePathScore(int[][] board, int caoCaoRow, int caoCaoCol) {
-        int score = 0;
-
-        // Check if there's a clear path to the goal
-        boolean hasClearPath = true;
-
-        // Check horizontal path
-        int startCol = Math.min(caoCaoCol, goalCol);
-        int endCol = Math.max(caoCaoCol, goalCol);
-        for (int c = startCol; c <= endCol; c++) {
-            if (board[goalRow][c] != 0) {
-                hasClearPath = false;
-                break;
-            }
-        }
-
-        if (hasClearPath) {
-            score += 10;
-        }
-
-        // Check vertical path
-        hasClearPath = true;
-        int startRow = Math.min(caoCaoRow, goalRow);
-        int endRow = Math.max(caoCaoRow, goalRow);
-        for (int r = startRow; r <= endRow; r++) {
-            if (board[r][goalCol] != 0) {
-                hasClearPath = false;
-                break;
-            }
-        }
-
-        if (hasClearPath) {
-            score += 10;
-        }
-
-        return score;
-    }
-}
\ No newline at end of file
+}
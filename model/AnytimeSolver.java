@@ -0,0 +1,207 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Anytime search for play against the clock: a first solution comes within a fraction of a
+ * second and is replaced by shorter ones for as long as the budget allows.
+ *
+ * The search runs weighted A* (f = g + w * h) over a falling series of weights, restarting for
+ * each one. A high weight follows the heuristic almost greedily and finds a long solution
+ * quickly; every lower weight searches more of the tree for a shorter one. Each run discards
+ * boards that cannot beat the best solution so far (g + h at least its length, which is sound
+ * since h never overestimates), so later runs stay small. A run with weight 1 is plain A*:
+ * when it completes, the best solution is a shortest one.
+ *
+ * Only strictly shorter solutions are published. If the budget runs out, the best one so far
+ * is the result.
+ */
+public class AnytimeSolver {
+    /**
+     * Weights of the successive runs, in tenths
+     */
+    public static final int[] DEFAULT_WEIGHTS = {50, 30, 20, 15, 12, 10};
+
+    private final int[][] board;
+    private final MoveGenerator generator;
+    private final Heuristic heuristic;
+    private int[] weights = DEFAULT_WEIGHTS;
+
+    private List<AISolver.Move> solution = new ArrayList<>();
+    private final List<Integer> improvements = new ArrayList<>();
+    private final List<Long> improvementMillis = new ArrayList<>();
+    private boolean optimal;
+    private long statesVisited;
+
+    public AnytimeSolver(int[][] board, int level) {
+        this(board, level, PatternDatabaseHeuristic.bestFor(board, level));
+    }
+
+    public AnytimeSolver(int[][] board, int level, Heuristic heuristic) {
+        this.board = board;
+        this.generator = MoveGenerator.forLevel(board, level);
+        this.heuristic = heuristic;
+    }
+
+    /**
+     * Use other weights, in tenths, from the highest down; a last weight of 10 makes the final
+     * run prove optimality
+     */
+    public void setWeights(int... weights) {
+        this.weights = weights.clone();
+    }
+
+    public boolean solve() {
+        return solve(new SearchControl(SearchBudget.unlimited(), null), null);
+    }
+
+    /**
+     * @param listener receives each strictly shorter solution on the searching thread, may be
+     *                 null
+     * @return true if a solution was found, even if the budget stopped the search before it
+     *         could be proven shortest
+     */
+    public boolean solve(SearchControl control, Consumer<List<AISolver.Move>> listener) {
+        solution = new ArrayList<>();
+        improvements.clear();
+        improvementMillis.clear();
+        optimal = false;
+        statesVisited = 0;
+        if (generator.findCaoCao() < 0) {
+            return false;
+        }
+        // Pruning by g + h is only sound with an admissible heuristic
+        boolean prune = heuristic.isAdmissible();
+        for (int weight : weights) {
+            int bound = prune && !solution.isEmpty() ? solution.size() : Integer.MAX_VALUE;
+            List<AISolver.Move> found = search(control, weight, bound);
+            if (control.getStopReason() != SearchControl.StopReason.NONE) {
+                break;
+            }
+            if (found != null && (solution.isEmpty() || found.size() < solution.size())) {
+                solution = found;
+                control.solutionFound(found.size());
+                improvements.add(found.size());
+                improvementMillis.add(control.getElapsedMillis());
+                if (listener != null) {
+                    listener.accept(Collections.unmodifiableList(new ArrayList<>(found)));
+                }
+            }
+            if (weight <= 10 && prune) {
+                // A* with an admissible heuristic: nothing shorter exists
+                optimal = !solution.isEmpty();
+                break;
+            }
+        }
+        return !solution.isEmpty();
+    }
+
+    /**
+     * One weighted A* run that ignores boards with g + h of at least the bound
+     *
+     * @return the solution found, or null if there is none below the bound or the run stopped
+     */
+    private List<AISolver.Move> search(SearchControl control, int weight, int bound) {
+        generator.load(board);
+        generator.setCanonical(true);
+        NodeArena nodes = new NodeArena(1 << 12);
+        IndexedMinHeap openSet = new IndexedMinHeap(1 << 12);
+        LongIntHashMap nodeIndex = new LongIntHashMap(1 << 12, -1);
+        MoveBuffer successors = new MoveBuffer();
+
+        int root = nodes.add(generator.getCanonicalKey(), NodeStore.NO_PARENT, 0, heuristic.estimate(generator));
+        nodeIndex.put(nodes.getKey(root), root);
+        openSet.insert(root, priority(nodes, root, weight), nodes.getH(root));
+        int bestHeuristic = nodes.getH(root);
+
+        while (!openSet.isEmpty()) {
+            long memory = nodes.memoryUsage() + openSet.memoryUsage() + nodeIndex.memoryUsage();
+            if (control.checkpoint(statesVisited, memory, bestHeuristic, openSet.size())) {
+                return null;
+            }
+            int current = openSet.poll();
+            statesVisited++;
+            nodes.markClosed(current);
+            generator.load(nodes.getKey(current));
+            bestHeuristic = Math.min(bestHeuristic, nodes.getH(current));
+            if (generator.isGoal()) {
+                List<Long> keys = new ArrayList<>();
+                for (int node = current; node != NodeStore.NO_PARENT; node = nodes.getParent(node)) {
+                    keys.add(nodes.getKey(node));
+                }
+                Collections.reverse(keys);
+                generator.load(board);
+                return AISolver.replay(generator, keys);
+            }
+
+            generator.generate(successors);
+            int nextG = nodes.getG(current) + 1;
+            int duplicates = 0;
+            for (int i = 0; i < successors.size(); i++) {
+                long nextKey = successors.getKey(i);
+                int index = nodeIndex.get(nextKey);
+                if (index >= 0) {
+                    duplicates++;
+                    // Closed boards are not reopened, which keeps each run fast
+                    if (!nodes.isClosed(index) && nextG < nodes.getG(index)) {
+                        nodes.relax(index, current, nextG);
+                        openSet.decreaseKey(index, priority(nodes, index, weight), nodes.getH(index));
+                    }
+                    continue;
+                }
+                int piece = successors.getPiece(i);
+                Direction direction = successors.getDirection(i);
+                generator.apply(piece, direction);
+                int h = heuristic.estimate(generator);
+                generator.undo(piece, direction);
+                if ((long) nextG + h >= bound || h >= Heuristic.UNREACHABLE) {
+                    continue;
+                }
+                index = nodes.add(nextKey, current, nextG, h);
+                nodeIndex.put(nextKey, index);
+                openSet.insert(index, priority(nodes, index, weight), h);
+            }
+            control.countSuccessors(successors.size(), duplicates);
+        }
+        return null;
+    }
+
+    private static int priority(NodeStore nodes, int node, int weight) {
+        return 10 * nodes.getG(node) + weight * nodes.getH(node);
+    }
+
+    /**
+     * @return the shortest solution found so far
+     */
+    public List<AISolver.Move> getSolution() {
+        return Collections.unmodifiableList(solution);
+    }
+
+    /**
+     * @return true if the solution is proven shortest in cell moves
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * @return the length of every published solution, in order
+     */
+    public List<Integer> getImprovements() {
+        return Collections.unmodifiableList(improvements);
+    }
+
+    /**
+     * @return when each published solution was found, in ms since the search started
+     */
+    public List<Long> getImprovementMillis() {
+        return Collections.unmodifiableList(improvementMillis);
+    }
+
+    public long getStatesVisited() {
+        return statesVisited;
+    }
+}
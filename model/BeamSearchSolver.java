@@ -0,0 +1,334 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Beam search for boards too large for the exact searches, such as 8x8 to 10x10 custom boards
+ * from save files: a good solution in predictable time and memory, but not a shortest one.
+ *
+ * The search goes forward one move per layer and keeps only the beam width best boards of each
+ * layer. A board's score is the heuristic plus the cells of other pieces between Cao Cao and
+ * the exit, which still tells progress apart where the Cao Cao distance alone stays flat for
+ * dozens of moves. Novel boards come first: those that put some piece on a cell where no
+ * earlier board of the same score had a piece of its type. This keeps the beam spread over
+ * different arrangements instead of filling it with variations of one, and is what lets it
+ * cross plateaus without pattern databases. Among equals the lower score wins.
+ *
+ * Boards that occur twice in a layer or were in an earlier beam are dropped, so the beam
+ * neither fills with transpositions nor walks in circles; that history is cleared when it
+ * reaches its limit. Besides it, a layer keeps its boards' parents and moves for the path, 8
+ * bytes per board, and only the current layer holds whole boards. Memory is at most 16 *
+ * history limit + width * (8 * max depth + 8 * cells) bytes, and time grows with width * depth.
+ *
+ * Boards are told apart by a 64-bit hash of their cells instead of by codec keys, since wide
+ * layouts would intern every key they ever produced.
+ */
+public class BeamSearchSolver {
+    public static final int DEFAULT_BEAM_WIDTH = 2000;
+    public static final int DEFAULT_MAX_DEPTH = 5000;
+    public static final int DEFAULT_HISTORY_LIMIT = 1 << 22;
+
+    private static final int MAX_SCORE = (1 << 30) - 1;
+
+    /**
+     * How a search ended
+     */
+    public enum Outcome {
+        SOLVED,
+        /** Every board of the last layer led only to boards seen before */
+        DIED_OUT,
+        /** No solution within the maximum depth */
+        DEPTH_LIMIT,
+        /** The search control stopped it, see {@link SearchControl#getStopReason()} */
+        STOPPED
+    }
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int[][] board;
+    private final MoveGenerator generator;
+    private final Heuristic heuristic;
+    private int beamWidth = DEFAULT_BEAM_WIDTH;
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    private int historyLimit = DEFAULT_HISTORY_LIMIT;
+
+    private final List<AISolver.Move> solution = new ArrayList<>();
+    private long statesVisited;
+    private Outcome outcome;
+
+    public BeamSearchSolver(int[][] board, int level) {
+        this(board, level, null);
+    }
+
+    /**
+     * @param heuristic the ordering of each layer, or null for the level's pattern databases
+     *                  or the Cao Cao distance
+     */
+    public BeamSearchSolver(int[][] board, int level, Heuristic heuristic) {
+        this.board = copy(board);
+        this.generator = MoveGenerator.forLevel(board, level);
+        this.heuristic = heuristic != null ? heuristic : PatternDatabaseHeuristic.bestFor(board, level);
+    }
+
+    /**
+     * Keep this many boards per layer; wider beams find shorter solutions more often and take
+     * proportionally longer
+     */
+    public void setBeamWidth(int beamWidth) {
+        this.beamWidth = Math.max(1, beamWidth);
+    }
+
+    public int getBeamWidth() {
+        return beamWidth;
+    }
+
+    /**
+     * Give up after this many moves
+     */
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = Math.max(1, maxDepth);
+    }
+
+    /**
+     * Remember at most this many boards of earlier beams
+     */
+    public void setHistoryLimit(int historyLimit) {
+        this.historyLimit = Math.max(1, historyLimit);
+    }
+
+    public boolean solve() {
+        return solve(new SearchControl(SearchBudget.unlimited(), null));
+    }
+
+    /**
+     * @return true if a solution was found; false if the beam died out, the depth limit was
+     *         reached or the control stopped the search, see {@link #getOutcome()}
+     */
+    public boolean solve(SearchControl control) {
+        solution.clear();
+        statesVisited = 0;
+        generator.load(board);
+        if (generator.findCaoCao() < 0) {
+            outcome = Outcome.DIED_OUT;
+            return false;
+        }
+        if (generator.isGoal()) {
+            outcome = Outcome.SOLVED;
+            return true;
+        }
+
+        int rows = generator.getRows();
+        int cols = generator.getCols();
+        int[][][] beam = {copy(board)};
+        List<int[]> parents = new ArrayList<>();
+        List<int[]> moves = new ArrayList<>();
+        LongHashSet history = new LongHashSet(beamWidth * 16);
+        history.add(BoardCodec.hashCells(generator.getBoard()));
+        int bestHeuristic = Heuristic.UNREACHABLE;
+        // Per score, the (piece type, anchor cell) pairs of the boards kept with that score
+        int atomCount = (MapModel.ZHOU_YU + 1) * rows * cols;
+        boolean[][] seenAtoms = new boolean[64][];
+
+        // Candidates of the next layer: parent entry, piece, direction, score
+        int capacity = beamWidth * 8;
+        int[] candidateParents = new int[capacity];
+        int[] candidatePieces = new int[capacity];
+        int[] candidateDirections = new int[capacity];
+        int[] candidateScores = new int[capacity];
+        long[] order = new long[capacity];
+
+        for (int depth = 0; depth < maxDepth; depth++) {
+            LongHashSet current = new LongHashSet(beamWidth * 4);
+            int candidates = 0;
+            for (int entry = 0; entry < beam.length; entry++) {
+                long memory = 8L * beamWidth * (depth + (long) rows * cols) + current.memoryUsage()
+                        + history.memoryUsage() + 20L * capacity;
+                if (control.checkpoint(statesVisited, memory, bestHeuristic, beam.length - entry)) {
+                    outcome = Outcome.STOPPED;
+                    return false;
+                }
+                statesVisited++;
+                generator.load(beam[entry]);
+                int generated = 0;
+                int duplicates = 0;
+                for (int piece = 0; piece < generator.getPieceCount(); piece++) {
+                    for (Direction direction : DIRECTIONS) {
+                        if (!generator.canMove(piece, direction)) {
+                            continue;
+                        }
+                        generated++;
+                        int row = generator.getPieceRow(piece);
+                        int col = generator.getPieceCol(piece);
+                        generator.apply(piece, direction);
+                        if (generator.isGoal()) {
+                            generator.undo(piece, direction);
+                            control.countSuccessors(generated, duplicates);
+                            buildSolution(parents, moves, entry, new AISolver.Move(row, col, direction));
+                            control.solutionFound(solution.size());
+                            outcome = Outcome.SOLVED;
+                            return true;
+                        }
+                        long key = BoardCodec.hashCells(generator.getBoard());
+                        if (history.contains(key) || !current.add(key)) {
+                            duplicates++;
+                            generator.undo(piece, direction);
+                            continue;
+                        }
+                        int h = heuristic.estimate(generator);
+                        if (h >= Heuristic.UNREACHABLE) {
+                            generator.undo(piece, direction);
+                            continue;
+                        }
+                        int score = Math.min(h + blockers(), MAX_SCORE);
+                        boolean novel = score >= seenAtoms.length || isNovel(seenAtoms[score], cols);
+                        generator.undo(piece, direction);
+                        bestHeuristic = Math.min(bestHeuristic, h);
+                        if (candidates == capacity) {
+                            capacity *= 2;
+                            candidateParents = Arrays.copyOf(candidateParents, capacity);
+                            candidatePieces = Arrays.copyOf(candidatePieces, capacity);
+                            candidateDirections = Arrays.copyOf(candidateDirections, capacity);
+                            candidateScores = Arrays.copyOf(candidateScores, capacity);
+                            order = Arrays.copyOf(order, capacity);
+                        }
+                        candidateParents[candidates] = entry;
+                        candidatePieces[candidates] = piece;
+                        candidateDirections[candidates] = direction.ordinal();
+                        candidateScores[candidates] = score;
+                        // Novel boards first, then the lowest score, then in the order generated
+                        order[candidates] = (novel ? 0L : 1L) << 62 | (long) score << 32 | candidates;
+                        candidates++;
+                    }
+                }
+                control.countSuccessors(generated, duplicates);
+            }
+            if (candidates == 0) {
+                outcome = Outcome.DIED_OUT;
+                return false;
+            }
+
+            // The best candidates become the next layer
+            Arrays.sort(order, 0, candidates);
+            int width = Math.min(beamWidth, candidates);
+            int[][][] next = new int[width][][];
+            int[] layerParents = new int[width];
+            int[] layerMoves = new int[width];
+            for (int i = 0; i < width; i++) {
+                int candidate = (int) order[i];  // the low 32 bits
+                int parent = candidateParents[candidate];
+                int piece = candidatePieces[candidate];
+                Direction direction = DIRECTIONS[candidateDirections[candidate]];
+                generator.load(beam[parent]);
+                layerParents[i] = parent;
+                layerMoves[i] = generator.getPieceRow(piece) << 16 | generator.getPieceCol(piece) << 8
+                        | direction.ordinal();
+                generator.apply(piece, direction);
+                next[i] = copy(generator.getBoard());
+
+                int score = candidateScores[candidate];
+                if (score >= seenAtoms.length) {
+                    seenAtoms = Arrays.copyOf(seenAtoms, Math.max(score + 1, seenAtoms.length * 2));
+                }
+                if (seenAtoms[score] == null) {
+                    seenAtoms[score] = new boolean[atomCount];
+                }
+                for (int p = 0; p < generator.getPieceCount(); p++) {
+                    seenAtoms[score][atom(p, cols)] = true;
+                }
+            }
+            parents.add(layerParents);
+            moves.add(layerMoves);
+            beam = next;
+            if (history.size() + width > historyLimit) {
+                history = new LongHashSet(beamWidth * 16);
+            }
+            for (int[][] kept : next) {
+                history.add(BoardCodec.hashCells(kept));
+            }
+        }
+        outcome = Outcome.DEPTH_LIMIT;
+        return false;
+    }
+
+    /**
+     * @return true if the generator's board has a piece where no kept board of the same score
+     *         had a piece of its type
+     */
+    private boolean isNovel(boolean[] seen, int cols) {
+        if (seen == null) {
+            return true;
+        }
+        for (int piece = 0; piece < generator.getPieceCount(); piece++) {
+            if (!seen[atom(piece, cols)]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int atom(int piece, int cols) {
+        return (generator.getPieceType(piece) * generator.getRows() + generator.getPieceRow(piece)) * cols
+                + generator.getPieceCol(piece);
+    }
+
+    private void buildSolution(List<int[]> parents, List<int[]> moves, int entry, AISolver.Move last) {
+        solution.add(last);
+        for (int layer = parents.size() - 1; layer >= 0; layer--) {
+            int move = moves.get(layer)[entry];
+            solution.add(new AISolver.Move(move >>> 16, move >>> 8 & 0xFF, DIRECTIONS[move & 0xFF]));
+            entry = parents.get(layer)[entry];
+        }
+        Collections.reverse(solution);
+    }
+
+    /**
+     * @return the cells of other pieces in the rectangle spanned by Cao Cao and the exit
+     */
+    private int blockers() {
+        int caoCao = generator.findCaoCao();
+        int goalRow = generator.getRows() - 2;
+        int goalCol = (generator.getCols() - 2) / 2;
+        int row = generator.getPieceRow(caoCao);
+        int col = generator.getPieceCol(caoCao);
+        int[][] cells = generator.getBoard();
+        int count = 0;
+        for (int r = Math.min(row, goalRow); r <= Math.max(row, goalRow) + 1; r++) {
+            for (int c = Math.min(col, goalCol); c <= Math.max(col, goalCol) + 1; c++) {
+                int cell = cells[r][c];
+                if (cell > MapModel.CAO_CAO && cell <= MapModel.ZHOU_YU) {
+                    count++;
+                }
+            }
+        }
+        return Math.min(count, 0xFFFF);
+    }
+
+    private static int[][] copy(int[][] board) {
+        int[][] copy = new int[board.length][];
+        for (int r = 0; r < board.length; r++) {
+            copy[r] = board[r].clone();
+        }
+        return copy;
+    }
+
+    /**
+     * @return the solution of the last search, empty if there was none
+     */
+    public List<AISolver.Move> getSolution() {
+        return Collections.unmodifiableList(solution);
+    }
+
+    public long getStatesVisited() {
+        return statesVisited;
+    }
+
+    /**
+     * @return how the last search ended, or null if none ran
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+}
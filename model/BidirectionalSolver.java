@@ -0,0 +1,510 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Exact solver: breadth-first search from the start board and, at the same time, from every
+ * goal board (Cao Cao on the exit, all other pieces anywhere).
+ *
+ * Every move can be undone by the opposite move, so searching backwards from the goals is a
+ * plain BFS as well. The two searches expand whole layers, always the smaller frontier
+ * first, and stop at the first layer in which they meet. The shortest of the meeting points
+ * found in that layer is a shortest solution under the chosen {@link MoveMetric}.
+ *
+ * When the board has too many goal boards to list, the search runs forwards only and stops
+ * at the first layer that contains a goal, which is still exact.
+ *
+ * The solution is always returned as single-cell moves, so the view can replay it; under
+ * {@link MoveMetric#PIECE} one counted move may expand to several of them.
+ *
+ * On mirror-symmetric layouts both searches store canonical keys, see
+ * {@link BoardCodec#canonical}.
+ */
+public class BidirectionalSolver {
+    private static final int MAX_GOAL_BOARDS = 1 << 20;
+
+    private final int[][] initialBoard;
+    private final MoveGenerator generator;
+    private final BoardCodec codec;
+    private final MoveMetric metric;
+    private final int rows;
+    private final int cols;
+
+    private final MoveBuffer successors = new MoveBuffer();
+    private long[] neighbors = new long[64];
+    private int neighborCount;
+
+    // Positions of one piece reached by sliding it, see explorePiece
+    private final int[] positionCells;
+    private final int[] positionParents;
+    private final int[] positionDirections;
+    private final long[] positionKeys;
+    private final boolean[] seenCells;
+    private final int[] pathScratch;
+
+    private final List<Integer> forwardLayerSizes = new ArrayList<>();
+    private final List<Integer> backwardLayerSizes = new ArrayList<>();
+    private final List<AISolver.Move> solution = new ArrayList<>();
+    private int moveCount = -1;
+    private long statesVisited;
+    private boolean bidirectional;
+
+    public BidirectionalSolver(int[][] board, int level, MoveMetric metric) {
+        this.initialBoard = board;
+        this.generator = MoveGenerator.forLevel(board, level);
+        this.codec = generator.getCodec();
+        this.metric = metric;
+        generator.setCanonical(true);
+        this.rows = board.length;
+        this.cols = board[0].length;
+
+        int cellCount = rows * cols;
+        this.positionCells = new int[cellCount];
+        this.positionParents = new int[cellCount];
+        this.positionDirections = new int[cellCount];
+        this.positionKeys = new long[cellCount];
+        this.seenCells = new boolean[cellCount];
+        this.pathScratch = new int[cellCount];
+    }
+
+    /**
+     * Run the search, limited only to half of the heap
+     * @return true if a shortest solution was found
+     */
+    public boolean solve() {
+        return solve(new SearchControl(SearchBudget.unlimited(), null));
+    }
+
+    /**
+     * Run the search within the control's budget
+     * @return true if a shortest solution was found, false if there is none or the search
+     *         was stopped, see {@link SearchControl#getStopReason()}
+     */
+    public boolean solve(SearchControl control) {
+        forwardLayerSizes.clear();
+        backwardLayerSizes.clear();
+        solution.clear();
+        moveCount = -1;
+        statesVisited = 0;
+
+        generator.load(initialBoard);
+        long startKey = generator.getCanonicalKey();
+        LongIntHashMap forward = new LongIntHashMap(1 << 16, -1);
+        LongIntHashMap backward = new LongIntHashMap(1 << 16, -1);
+        LongArrayList forwardFrontier = new LongArrayList();
+        LongArrayList backwardFrontier = new LongArrayList();
+
+        forward.put(startKey, 0);
+        forwardFrontier.add(startKey);
+        forwardLayerSizes.add(1);
+
+        bidirectional = enumerateGoals(backward, backwardFrontier);
+        if (bidirectional) {
+            if (backwardFrontier.isEmpty()) {
+                // No goal board fits the pieces of this board
+                return false;
+            }
+            backwardLayerSizes.add(backwardFrontier.size());
+        }
+
+        int forwardDepth = 0;
+        int backwardDepth = 0;
+        long meetKey = 0L;
+        int best = Integer.MAX_VALUE;
+
+        if (bidirectional && backward.containsKey(startKey)) {
+            best = 0;
+            meetKey = startKey;
+        }
+
+        while (best == Integer.MAX_VALUE && !forwardFrontier.isEmpty()
+                && (!bidirectional || !backwardFrontier.isEmpty())) {
+            boolean expandForward = !bidirectional || forwardFrontier.size() <= backwardFrontier.size();
+            LongIntHashMap own = expandForward ? forward : backward;
+            LongIntHashMap other = expandForward ? backward : forward;
+            LongArrayList frontier = expandForward ? forwardFrontier : backwardFrontier;
+            int depth = expandForward ? forwardDepth : backwardDepth;
+
+            LongArrayList next = new LongArrayList(frontier.size() * 2);
+            for (int i = 0; i < frontier.size(); i++) {
+                generator.load(frontier.get(i));
+                if (!bidirectional && generator.isGoal()) {
+                    // Searching forwards only: the first goal in a layer is a closest one
+                    best = depth;
+                    meetKey = frontier.get(i);
+                    break;
+                }
+                long bytes = forward.memoryUsage() + backward.memoryUsage() + forwardFrontier.memoryUsage()
+                        + backwardFrontier.memoryUsage() + next.memoryUsage();
+                if (control.checkpoint(statesVisited, bytes, depth, frontier.size() - i)) {
+                    return false;
+                }
+                collectNeighbors();
+                statesVisited++;
+                int duplicates = 0;
+                for (int j = 0; j < neighborCount; j++) {
+                    long key = neighbors[j];
+                    if (own.containsKey(key)) {
+                        duplicates++;
+                        continue;
+                    }
+                    own.put(key, depth + 1);
+                    next.add(key);
+
+                    int remaining = other.get(key);
+                    if (remaining >= 0 && depth + 1 + remaining < best) {
+                        best = depth + 1 + remaining;
+                        meetKey = key;
+                    }
+                }
+                control.countSuccessors(neighborCount, duplicates);
+            }
+
+            if (best < Integer.MAX_VALUE && !bidirectional) {
+                break;
+            }
+            if (expandForward) {
+                forwardFrontier = next;
+                forwardDepth++;
+                forwardLayerSizes.add(next.size());
+            } else {
+                backwardFrontier = next;
+                backwardDepth++;
+                backwardLayerSizes.add(next.size());
+            }
+        }
+
+        if (best == Integer.MAX_VALUE) {
+            return false;
+        }
+
+        moveCount = best;
+        control.solutionFound(best);
+        control.report(statesVisited, forward.memoryUsage() + backward.memoryUsage(), 0, 0);
+        buildSolution(reconstructKeys(meetKey, forward, backward));
+        return true;
+    }
+
+    /**
+     * @return the shortest solution as single-cell moves
+     */
+    public List<AISolver.Move> getSolution() {
+        return Collections.unmodifiableList(solution);
+    }
+
+    /**
+     * @return the length of the solution under the search metric, or -1 if none was found
+     */
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    public MoveMetric getMetric() {
+        return metric;
+    }
+
+    /**
+     * @return the number of new states in each layer of the forward search, starting at depth 0
+     */
+    public List<Integer> getForwardLayerSizes() {
+        return Collections.unmodifiableList(forwardLayerSizes);
+    }
+
+    /**
+     * @return the number of new states in each layer of the backward search, empty if the
+     *         search ran forwards only
+     */
+    public List<Integer> getBackwardLayerSizes() {
+        return Collections.unmodifiableList(backwardLayerSizes);
+    }
+
+    public boolean isBidirectional() {
+        return bidirectional;
+    }
+
+    public long getStatesVisited() {
+        return statesVisited;
+    }
+
+    /**
+     * Fill the neighbor buffer with the boards one move away from the generator's board
+     */
+    private void collectNeighbors() {
+        neighborCount = 0;
+        if (metric == MoveMetric.CELL) {
+            generator.generate(successors);
+            for (int i = 0; i < successors.size(); i++) {
+                addNeighbor(successors.getKey(i));
+            }
+            return;
+        }
+        for (int piece = 0; piece < generator.getPieceCount(); piece++) {
+            int reached = explorePiece(piece);
+            for (int position = 1; position < reached; position++) {
+                addNeighbor(positionKeys[position]);
+            }
+        }
+    }
+
+    private void addNeighbor(long key) {
+        if (neighborCount == neighbors.length) {
+            neighbors = Arrays.copyOf(neighbors, neighborCount * 2);
+        }
+        neighbors[neighborCount++] = key;
+    }
+
+    /**
+     * Breadth-first search over the cells one piece can reach while the others stay put.
+     * Position 0 is the piece's current cell; each later position records its parent, the
+     * direction it was reached in and the key of the board. The board is left unchanged.
+     *
+     * @return the number of positions reached
+     */
+    private int explorePiece(int piece) {
+        Arrays.fill(seenCells, false);
+        int start = generator.getPieceRow(piece) * cols + generator.getPieceCol(piece);
+        positionCells[0] = start;
+        positionParents[0] = -1;
+        positionKeys[0] = generator.getCanonicalKey();
+        seenCells[start] = true;
+        int count = 1;
+
+        for (int head = 0; head < count; head++) {
+            int depth = walkTo(piece, head);
+            for (Direction direction : Direction.values()) {
+                if (!generator.canMove(piece, direction)) {
+                    continue;
+                }
+                int cell = positionCells[head] + direction.getRowOffset() * cols + direction.getColOffset();
+                if (seenCells[cell]) {
+                    continue;
+                }
+                seenCells[cell] = true;
+                generator.apply(piece, direction);
+                positionCells[count] = cell;
+                positionParents[count] = head;
+                positionDirections[count] = direction.ordinal();
+                positionKeys[count] = generator.getCanonicalKey();
+                generator.undo(piece, direction);
+                count++;
+            }
+            walkBack(piece, depth);
+        }
+        return count;
+    }
+
+    /**
+     * Slide the piece from its start cell to a recorded position
+     * @return the number of one-cell moves applied
+     */
+    private int walkTo(int piece, int position) {
+        int depth = 0;
+        for (int p = position; positionParents[p] >= 0; p = positionParents[p]) {
+            pathScratch[depth++] = p;
+        }
+        for (int i = depth - 1; i >= 0; i--) {
+            generator.apply(piece, Direction.values()[positionDirections[pathScratch[i]]]);
+        }
+        return depth;
+    }
+
+    private void walkBack(int piece, int depth) {
+        for (int i = 0; i < depth; i++) {
+            generator.undo(piece, Direction.values()[positionDirections[pathScratch[i]]]);
+        }
+    }
+
+    /**
+     * Boards from the start to a goal, following strictly decreasing distances from the
+     * meeting board towards both ends
+     */
+    private List<Long> reconstructKeys(long meetKey, LongIntHashMap forward, LongIntHashMap backward) {
+        List<Long> keys = new ArrayList<>();
+        keys.add(meetKey);
+
+        long current = meetKey;
+        for (int distance = forward.get(meetKey); distance > 0; distance--) {
+            current = stepToward(current, forward, distance - 1);
+            keys.add(0, current);
+        }
+        if (bidirectional) {
+            current = meetKey;
+            for (int distance = backward.get(meetKey); distance > 0; distance--) {
+                current = stepToward(current, backward, distance - 1);
+                keys.add(current);
+            }
+        }
+        return keys;
+    }
+
+    private long stepToward(long key, LongIntHashMap distances, int distance) {
+        generator.load(key);
+        collectNeighbors();
+        for (int i = 0; i < neighborCount; i++) {
+            if (distances.get(neighbors[i]) == distance) {
+                return neighbors[i];
+            }
+        }
+        throw new IllegalStateException("Broken BFS layer at distance " + distance);
+    }
+
+    /**
+     * Turn consecutive boards into single-cell moves
+     */
+    private void buildSolution(List<Long> keys) {
+        // Keys may be mirror images of the boards on the way, so replay from the real start
+        generator.load(initialBoard);
+        if (metric == MoveMetric.CELL) {
+            solution.addAll(AISolver.replay(generator, keys));
+            return;
+        }
+        for (int i = 1; i < keys.size(); i++) {
+            appendPieceMove(keys.get(i));
+        }
+    }
+
+    private void appendPieceMove(long to) {
+        for (int piece = 0; piece < generator.getPieceCount(); piece++) {
+            int reached = explorePiece(piece);
+            for (int position = 1; position < reached; position++) {
+                if (positionKeys[position] != to) {
+                    continue;
+                }
+                int depth = 0;
+                for (int p = position; positionParents[p] >= 0; p = positionParents[p]) {
+                    pathScratch[depth++] = p;
+                }
+                for (int j = depth - 1; j >= 0; j--) {
+                    int from = positionCells[positionParents[pathScratch[j]]];
+                    solution.add(new AISolver.Move(from / cols, from % cols,
+                            Direction.values()[positionDirections[pathScratch[j]]]));
+                }
+                walkTo(piece, position);
+                return;
+            }
+        }
+        throw new IllegalStateException("No single piece move leads to the next board");
+    }
+
+    /**
+     * Put every goal board (Cao Cao on the exit, the other pieces in any arrangement) into the
+     * backward search at distance 0.
+     *
+     * @return false if there are more than {@link #MAX_GOAL_BOARDS} of them
+     */
+    private boolean enumerateGoals(LongIntHashMap backward, LongArrayList frontier) {
+        int[] counts = new int[MapModel.ZHOU_YU + 1];
+        for (int piece = 0; piece < generator.getPieceCount(); piece++) {
+            counts[generator.getPieceType(piece)]++;
+        }
+        if (counts[MapModel.CAO_CAO] != 1) {
+            return true;
+        }
+
+        int cellCount = rows * cols;
+        int[][] board = new int[rows][cols];
+        boolean[] taken = new boolean[cellCount];
+        int freeCells = 0;
+        for (int cell = 0; cell < cellCount; cell++) {
+            int r = cell / cols;
+            int c = cell % cols;
+            if (codec.isFixedCell(cell)) {
+                board[r][c] = initialBoard[r][c];
+                taken[cell] = true;
+            } else {
+                board[r][c] = codec.isCampCell(cell) ? MapModel.MILITARY_CAMP : 0;
+                freeCells++;
+            }
+        }
+
+        int goalRow = rows - 2;
+        int goalCol = (cols - 2) / 2;
+        if (!fits(board, taken, MapModel.CAO_CAO, goalRow * cols + goalCol)) {
+            return true;
+        }
+        place(board, taken, MapModel.CAO_CAO, goalRow * cols + goalCol, MapModel.CAO_CAO);
+        counts[MapModel.CAO_CAO] = 0;
+
+        int pieceCells = 4;
+        for (int type = MapModel.GUAN_YU; type <= MapModel.ZHOU_YU; type++) {
+            pieceCells += counts[type] * BoardCodec.getPieceWidth(type) * BoardCodec.getPieceHeight(type);
+        }
+        return fillGoals(board, taken, counts, 0, freeCells - pieceCells, backward, frontier);
+    }
+
+    private boolean fillGoals(int[][] board, boolean[] taken, int[] counts, int cell, int emptyLeft,
+                              LongIntHashMap backward, LongArrayList frontier) {
+        int cellCount = rows * cols;
+        while (cell < cellCount && taken[cell]) {
+            cell++;
+        }
+        if (cell == cellCount) {
+            long key = codec.canonical(codec.pack(board));
+            if (!backward.containsKey(key)) {
+                backward.put(key, 0);
+                frontier.add(key);
+            }
+            return frontier.size() <= MAX_GOAL_BOARDS;
+        }
+
+        if (emptyLeft > 0) {
+            taken[cell] = true;
+            boolean ok = fillGoals(board, taken, counts, cell + 1, emptyLeft - 1, backward, frontier);
+            taken[cell] = false;
+            if (!ok) {
+                return false;
+            }
+        }
+        for (int type = MapModel.GUAN_YU; type <= MapModel.ZHOU_YU; type++) {
+            if (counts[type] == 0 || !fits(board, taken, type, cell)) {
+                continue;
+            }
+            counts[type]--;
+            place(board, taken, type, cell, type);
+            boolean ok = fillGoals(board, taken, counts, cell + 1, emptyLeft, backward, frontier);
+            place(board, taken, type, cell, -1);
+            counts[type]++;
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean fits(int[][] board, boolean[] taken, int type, int anchor) {
+        int row = anchor / cols;
+        int col = anchor % cols;
+        int width = BoardCodec.getPieceWidth(type);
+        int height = BoardCodec.getPieceHeight(type);
+        if (row + height > rows || col + width > cols) {
+            return false;
+        }
+        for (int r = row; r < row + height; r++) {
+            for (int c = col; c < col + width; c++) {
+                int cell = r * cols + c;
+                if (taken[cell] || (type != MapModel.SOLDIER && codec.isCampCell(cell))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Cover a piece's cells with its type, or restore them when value is -1
+     */
+    private void place(int[][] board, boolean[] taken, int type, int anchor, int value) {
+        int row = anchor / cols;
+        int col = anchor % cols;
+        for (int r = row; r < row + BoardCodec.getPieceHeight(type); r++) {
+            for (int c = col; c < col + BoardCodec.getPieceWidth(type); c++) {
+                int cell = r * cols + c;
+                taken[cell] = value >= 0;
+                board[r][c] = value >= 0 ? value : (codec.isCampCell(cell) ? MapModel.MILITARY_CAMP : 0);
+            }
+        }
+    }
+}
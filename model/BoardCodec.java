@@ -0,0 +1,547 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs Klotski boards into primitive keys for the solver.
+ *
+ * A codec is built from a reference board and only encodes boards of the same layout
+ * (same size, same BLOCKED cells and military camps). Cells are visited in row-major order;
+ * static cells and cells covered by an earlier piece are skipped, every other cell writes a
+ * prefix code: empty = "0", soldier = "10", other pieces = "11" + 2 bits. The code length is
+ * the same for every board of a layout, so all shipped levels fit into a single long.
+ *
+ * Layouts whose code does not fit in 64 bits (large custom boards from save files) fall back
+ * to multi-word codes which are interned, and the returned key is the intern id instead.
+ *
+ * A soldier standing on a military camp hides the camp in the board matrix, so a codec can
+ * also be given the level layout the board was started from to recover those camps.
+ *
+ * When the layout and the goal column are the same after a left-right flip, a board and its
+ * mirror image need the same number of moves, and {@link #canonical} maps both to one key.
+ *
+ * Instances keep scratch buffers and are not thread-safe.
+ */
+public class BoardCodec {
+    // Piece codes, written least significant bit first
+    private static final int CODE_SOLDIER = 0b01;
+    private static final int[] OTHER_TYPES = {
+        MapModel.CAO_CAO, MapModel.GUAN_YU, MapModel.GENERAL, MapModel.ZHOU_YU
+    };
+
+    // Code and length per anchor entry + 1: covered cell (-1), free cell (0), piece types 1..5
+    private static final int[] ANCHOR_CODES = new int[MapModel.ZHOU_YU + 2];
+    private static final int[] ANCHOR_LENGTHS = new int[MapModel.ZHOU_YU + 2];
+    static {
+        ANCHOR_LENGTHS[1] = 1;
+        for (int type = MapModel.CAO_CAO; type <= MapModel.ZHOU_YU; type++) {
+            ANCHOR_CODES[type + 1] = codeOf(type);
+            ANCHOR_LENGTHS[type + 1] = codeLength(type);
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+    private final int[] fixedCells;     // non-zero for cells that never change (BLOCKED, broken fragments)
+    private final boolean[] campCells;  // military camps, soldiers may stand on them
+    private final int[] dynamicCells;   // cells that are not fixed, in row-major order
+    private final int[] dynamicRank;    // number of dynamic cells before each cell
+    private final int bitLength;
+    private final int words;
+    private final boolean mirrorSymmetric;
+    private int[][] mirrorScratch;
+
+    // Scratch buffers
+    private final boolean[] covered;
+    private final long[] wideScratch;
+    private final WideKey wideProbe;    // views wideScratch for lookups
+
+    // Wide fallback: intern table for boards that need more than 64 bits
+    private final Map<WideKey, Long> wideIds;
+    private final List<long[]> wideCodes;
+
+    public BoardCodec(int[][] reference) {
+        this(reference, null);
+    }
+
+    /**
+     * @param layout the level layout the board was started from, or null if unknown
+     */
+    public BoardCodec(int[][] reference, int[][] layout) {
+        this.rows = reference.length;
+        this.cols = reference[0].length;
+        this.fixedCells = new int[rows * cols];
+        this.campCells = new boolean[rows * cols];
+        this.covered = new boolean[rows * cols];
+
+        int bits = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                int type = reference[r][c];
+                if (type == MapModel.BLOCKED) {
+                    fixedCells[cell] = type;
+                } else if (type == MapModel.MILITARY_CAMP) {
+                    campCells[cell] = true;
+                } else if (type == MapModel.SOLDIER && layout != null
+                        && layout[r][c] == MapModel.MILITARY_CAMP) {
+                    campCells[cell] = true;
+                }
+            }
+        }
+
+        // Pieces that do not have their full shape can never move; keep them as static cells
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                if (fixedCells[cell] != 0 || covered[cell]) {
+                    continue;
+                }
+                int type = reference[r][c];
+                if (!isPiece(type)) {
+                    bits += 1;
+                    continue;
+                }
+                if (fits(reference, r, c, type)) {
+                    cover(r, c, type);
+                    bits += codeLength(type);
+                } else {
+                    fixedCells[cell] = type;
+                }
+            }
+        }
+
+        int dynamicCount = 0;
+        for (int cell : fixedCells) {
+            if (cell == 0) {
+                dynamicCount++;
+            }
+        }
+        this.dynamicCells = new int[dynamicCount];
+        this.dynamicRank = new int[fixedCells.length + 1];
+        for (int cell = 0, i = 0; cell < fixedCells.length; cell++) {
+            dynamicRank[cell] = i;
+            if (fixedCells[cell] == 0) {
+                dynamicCells[i++] = cell;
+            }
+            dynamicRank[cell + 1] = i;
+        }
+        this.bitLength = bits;
+        this.words = Math.max(1, (bits + 63) / 64);
+        this.mirrorSymmetric = computeMirrorSymmetric();
+        if (words > 1) {
+            this.wideScratch = new long[words];
+            this.wideProbe = new WideKey(wideScratch);
+            this.wideIds = new HashMap<>();
+            this.wideCodes = new ArrayList<>();
+        } else {
+            this.wideScratch = null;
+            this.wideProbe = null;
+            this.wideIds = null;
+            this.wideCodes = null;
+        }
+    }
+
+    /**
+     * @return true if every board of this layout packs into a single long
+     */
+    public boolean isCompact() {
+        return words == 1;
+    }
+
+    /**
+     * The goal column (cols - 2) / 2 is its own mirror only for an even width, and the static
+     * cells and camps must look the same after the flip.
+     */
+    private boolean computeMirrorSymmetric() {
+        if (cols % 2 != 0) {
+            return false;
+        }
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols / 2; c++) {
+                int cell = r * cols + c;
+                int mirror = r * cols + cols - 1 - c;
+                if (fixedCells[cell] != fixedCells[mirror] || campCells[cell] != campCells[mirror]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return true if mirrored boards of this layout are equivalent, see {@link #canonical}
+     */
+    public boolean isMirrorSymmetric() {
+        return mirrorSymmetric;
+    }
+
+    /**
+     * @return the key of the board flipped left to right
+     */
+    public long mirror(long key) {
+        if (mirrorScratch == null) {
+            mirrorScratch = new int[rows][cols];
+        }
+        unpack(key, mirrorScratch);
+        for (int[] row : mirrorScratch) {
+            for (int left = 0, right = cols - 1; left < right; left++, right--) {
+                int type = row[left];
+                row[left] = row[right];
+                row[right] = type;
+            }
+        }
+        return pack(mirrorScratch);
+    }
+
+    /**
+     * @return the smaller of the key and its mirror's key on symmetric layouts, else the key
+     */
+    public long canonical(long key) {
+        return mirrorSymmetric ? Math.min(key, mirror(key)) : key;
+    }
+
+    /**
+     * @return a hash of the size, static cells and camps, the same in every run; keys of two
+     *         codecs can only be compared when their signatures match
+     */
+    public long getLayoutSignature() {
+        long hash = rows * 31L + cols;
+        for (int cell = 0; cell < fixedCells.length; cell++) {
+            hash = hash * 0x100000001B3L + fixedCells[cell] * 2 + (campCells[cell] ? 1 : 0);
+        }
+        return hash;
+    }
+
+    public int getBitLength() {
+        return bitLength;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    boolean isFixedCell(int cell) {
+        return fixedCells[cell] != 0;
+    }
+
+    boolean isCampCell(int cell) {
+        return campCells[cell];
+    }
+
+    /**
+     * Pack a board into its key. For wide layouts the key is an intern id.
+     */
+    public long pack(int[][] board) {
+        if (words == 1) {
+            return encode(board, null);
+        }
+        Arrays.fill(wideScratch, 0L);
+        encode(board, wideScratch);
+        return internScratch();
+    }
+
+    /**
+     * Look the code in wideScratch up in place; only a new code is copied into a key of its own
+     */
+    private long internScratch() {
+        wideProbe.rehash();
+        Long id = wideIds.get(wideProbe);
+        if (id == null) {
+            long[] code = wideScratch.clone();
+            id = (long) wideCodes.size();
+            wideIds.put(new WideKey(code), id);
+            wideCodes.add(code);
+        }
+        return id;
+    }
+
+    private static void writeBits(long[] wide, int pos, int code, int length) {
+        for (int i = 0; i < length; i++) {
+            if ((code >>> i & 1) != 0) {
+                wide[(pos + i) >>> 6] |= 1L << (pos + i);
+            }
+        }
+    }
+
+    /**
+     * Pack a board given as one entry per cell: the piece type for the top-left cell of a
+     * piece, -1 for the other cells of a piece and 0 for free cells. Static cells are ignored.
+     * This skips the piece parsing done by {@link #pack(int[][])}.
+     */
+    long pack(int[] anchors) {
+        if (words == 1) {
+            long single = 0L;
+            int pos = 0;
+            for (int cell : dynamicCells) {
+                int entry = anchors[cell] + 1;
+                single |= (long) ANCHOR_CODES[entry] << pos;
+                pos += ANCHOR_LENGTHS[entry];
+            }
+            return single;
+        }
+        Arrays.fill(wideScratch, 0L);
+        int pos = 0;
+        for (int cell : dynamicCells) {
+            int entry = anchors[cell] + 1;
+            writeBits(wideScratch, pos, ANCHOR_CODES[entry], ANCHOR_LENGTHS[entry]);
+            pos += ANCHOR_LENGTHS[entry];
+        }
+        return internScratch();
+    }
+
+    /**
+     * Pack a compact board like {@link #pack(int[])} and record the bit offset at which each
+     * dynamic cell's code starts, for use with {@link #repack}.
+     *
+     * @param offsets receives dynamic cell count + 1 offsets
+     */
+    long pack(int[] anchors, int[] offsets) {
+        long single = 0L;
+        int pos = 0;
+        for (int i = 0; i < dynamicCells.length; i++) {
+            offsets[i] = pos;
+            int entry = anchors[dynamicCells[i]] + 1;
+            single |= (long) ANCHOR_CODES[entry] << pos;
+            pos += ANCHOR_LENGTHS[entry];
+        }
+        offsets[dynamicCells.length] = pos;
+        return single;
+    }
+
+    /**
+     * Key of a compact board that differs from a packed board only in cells firstCell..lastCell.
+     * Every board of a layout has the same code length, so a move never shifts the codes
+     * outside the cells it touches and only that range has to be encoded again.
+     *
+     * @param key     the key of the board before the change
+     * @param anchors the changed board
+     * @param offsets the offsets recorded when the key was packed
+     */
+    long repack(long key, int[] anchors, int[] offsets, int firstCell, int lastCell) {
+        int first = dynamicRank[firstCell];
+        int end = dynamicRank[lastCell + 1];
+        int start = offsets[first];
+        int length = offsets[end] - start;
+        long bits = 0L;
+        int pos = 0;
+        for (int i = first; i < end; i++) {
+            int entry = anchors[dynamicCells[i]] + 1;
+            bits |= (long) ANCHOR_CODES[entry] << pos;
+            pos += ANCHOR_LENGTHS[entry];
+        }
+        long mask = length == 64 ? -1L : ((1L << length) - 1) << start;
+        return (key & ~mask) | (bits << start);
+    }
+
+    int getDynamicCellCount() {
+        return dynamicCells.length;
+    }
+
+    /**
+     * Unpack a key into a newly allocated board.
+     */
+    public int[][] unpack(long key) {
+        int[][] board = new int[rows][cols];
+        unpack(key, board);
+        return board;
+    }
+
+    /**
+     * Unpack a key into an existing board of the layout's size.
+     */
+    public void unpack(long key, int[][] board) {
+        long[] code = words == 1 ? null : wideCodes.get((int) key);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                if (fixedCells[cell] != 0) {
+                    board[r][c] = fixedCells[cell];
+                } else {
+                    board[r][c] = campCells[cell] ? MapModel.MILITARY_CAMP : 0;
+                }
+            }
+        }
+
+        int pos = 0;
+        Arrays.fill(covered, false);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                if (fixedCells[cell] != 0 || covered[cell]) {
+                    continue;
+                }
+                if (readBit(key, code, pos++) == 0) {
+                    continue;
+                }
+                int type;
+                if (readBit(key, code, pos++) == 0) {
+                    type = MapModel.SOLDIER;
+                } else {
+                    type = OTHER_TYPES[readBit(key, code, pos) | (readBit(key, code, pos + 1) << 1)];
+                    pos += 2;
+                }
+                cover(r, c, type);
+                for (int dr = 0; dr < getPieceHeight(type); dr++) {
+                    for (int dc = 0; dc < getPieceWidth(type); dc++) {
+                        board[r + dr][c + dc] = type;
+                    }
+                }
+            }
+        }
+    }
+
+    private long encode(int[][] board, long[] wide) {
+        long single = 0L;
+        int pos = 0;
+        Arrays.fill(covered, false);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                if (fixedCells[cell] != 0 || covered[cell]) {
+                    continue;
+                }
+                int type = board[r][c];
+                int code;
+                int length;
+                if (!isPiece(type)) {
+                    code = 0;
+                    length = 1;
+                } else {
+                    cover(r, c, type);
+                    code = codeOf(type);
+                    length = codeLength(type);
+                }
+                if (wide == null) {
+                    single |= (long) code << pos;
+                } else {
+                    writeBits(wide, pos, code, length);
+                }
+                pos += length;
+            }
+        }
+        return single;
+    }
+
+    private static int readBit(long key, long[] code, int pos) {
+        if (code == null) {
+            return (int) (key >>> pos) & 1;
+        }
+        return (int) (code[pos >>> 6] >>> pos) & 1;
+    }
+
+    private void cover(int row, int col, int type) {
+        for (int dr = 0; dr < getPieceHeight(type); dr++) {
+            for (int dc = 0; dc < getPieceWidth(type); dc++) {
+                covered[(row + dr) * cols + col + dc] = true;
+            }
+        }
+    }
+
+    private boolean fits(int[][] board, int row, int col, int type) {
+        int height = getPieceHeight(type);
+        int width = getPieceWidth(type);
+        if (row + height > rows || col + width > cols) {
+            return false;
+        }
+        for (int dr = 0; dr < height; dr++) {
+            for (int dc = 0; dc < width; dc++) {
+                int cell = (row + dr) * cols + col + dc;
+                if (board[row + dr][col + dc] != type || covered[cell] || fixedCells[cell] != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPiece(int type) {
+        return type >= MapModel.CAO_CAO && type <= MapModel.ZHOU_YU;
+    }
+
+    private static int codeOf(int type) {
+        if (type == MapModel.SOLDIER) {
+            return CODE_SOLDIER;
+        }
+        for (int i = 0; i < OTHER_TYPES.length; i++) {
+            if (OTHER_TYPES[i] == type) {
+                return 0b11 | (i << 2);
+            }
+        }
+        throw new IllegalArgumentException("Not a movable piece: " + type);
+    }
+
+    private static int codeLength(int type) {
+        return type == MapModel.SOLDIER ? 2 : 4;
+    }
+
+    /**
+     * @return a 64-bit hash of a board's cells, for boards too wide to pack without interning;
+     *         different boards may collide, so check the boards where that matters
+     */
+    static long hashCells(int[][] board) {
+        long hash = 0x9E3779B97F4A7C15L;
+        for (int[] row : board) {
+            for (int cell : row) {
+                hash = (hash ^ cell) * 0x100000001B3L;
+                hash ^= hash >>> 29;
+            }
+        }
+        return hash;
+    }
+
+    static int getPieceWidth(int type) {
+        switch (type) {
+            case MapModel.CAO_CAO: return 2;
+            case MapModel.GUAN_YU: return 2;
+            case MapModel.ZHOU_YU: return 3;
+            default: return 1;
+        }
+    }
+
+    static int getPieceHeight(int type) {
+        switch (type) {
+            case MapModel.CAO_CAO: return 2;
+            case MapModel.GENERAL: return 2;
+            default: return 1;
+        }
+    }
+
+    /**
+     * Hashable wrapper for multi-word codes
+     */
+    private static final class WideKey {
+        final long[] code;
+        int hash;
+
+        WideKey(long[] code) {
+            this.code = code;
+            rehash();
+        }
+
+        /**
+         * Update the hash after the code changed; only for the probe, keys in the table never change
+         */
+        void rehash() {
+            hash = Arrays.hashCode(code);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof WideKey && Arrays.equals(code, ((WideKey) obj).code);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Admissible estimate: the moves Cao Cao needs to reach the exit around the cells no piece
+ * ever leaves (BLOCKED cells, military camps, broken fragments), plus the number of other
+ * pieces on the exit cells.
+ *
+ * Every move shifts one piece by one cell, and each piece on the exit has to move at least
+ * once before Cao Cao can get there, so the sum never overestimates. It also changes by at
+ * most one per move, which keeps A* from reopening states.
+ */
+public class CaoCaoDistanceHeuristic implements Heuristic {
+    private final int rows;
+    private final int cols;
+    private final int goalRow;
+    private final int goalCol;
+    private final int[] distances;  // per Cao Cao anchor cell
+    private final int[] exitPieces = new int[4];
+
+    public CaoCaoDistanceHeuristic(BoardCodec codec) {
+        this.rows = codec.getRows();
+        this.cols = codec.getCols();
+        this.goalRow = rows - 2;
+        this.goalCol = (cols - 2) / 2;
+        this.distances = new int[rows * cols];
+        Arrays.fill(distances, UNREACHABLE);
+
+        // BFS over Cao Cao's anchors from the exit
+        int[] queue = new int[rows * cols];
+        int head = 0;
+        int tail = 0;
+        int goal = goalRow * cols + goalCol;
+        if (fits(codec, goalRow, goalCol)) {
+            distances[goal] = 0;
+            queue[tail++] = goal;
+        }
+        int[][] steps = {{0, -1}, {-1, 0}, {0, 1}, {1, 0}};
+        while (head < tail) {
+            int anchor = queue[head++];
+            for (int[] step : steps) {
+                int row = anchor / cols + step[0];
+                int col = anchor % cols + step[1];
+                int next = row * cols + col;
+                if (fits(codec, row, col) && distances[next] == UNREACHABLE) {
+                    distances[next] = distances[anchor] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+    }
+
+    private boolean fits(BoardCodec codec, int row, int col) {
+        if (row < 0 || col < 0 || row + 2 > rows || col + 2 > cols) {
+            return false;
+        }
+        for (int r = row; r < row + 2; r++) {
+            for (int c = col; c < col + 2; c++) {
+                int cell = r * cols + c;
+                if (codec.isFixedCell(cell) || codec.isCampCell(cell)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int estimate(MoveGenerator generator) {
+        int caoCao = generator.findCaoCao();
+        if (caoCao < 0) {
+            return UNREACHABLE;
+        }
+        int distance = distances[generator.getPieceRow(caoCao) * cols + generator.getPieceCol(caoCao)];
+        if (distance == UNREACHABLE) {
+            return UNREACHABLE;
+        }
+        int blockers = 0;
+        for (int r = goalRow; r < goalRow + 2; r++) {
+            for (int c = goalCol; c < goalCol + 2; c++) {
+                int piece = generator.findPiece(r, c);
+                if (piece < 0 || piece == caoCao) {
+                    continue;
+                }
+                boolean counted = false;
+                for (int i = 0; i < blockers && !counted; i++) {
+                    counted = exitPieces[i] == piece;
+                }
+                if (!counted) {
+                    exitPieces[blockers++] = piece;
+                }
+            }
+        }
+        return distance + blockers;
+    }
+
+    @Override
+    public boolean isAdmissible() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "Cao Cao distance";
+    }
+}
@@ -0,0 +1,74 @@
+package model;
+
+/**
+ * Thread-safe set of primitive longs, split into independently locked {@link LongHashSet}
+ * stripes.
+ *
+ * A key's stripe is chosen from a different hash than the one the stripe uses for its own
+ * slots, so keys stay evenly spread inside each stripe. With many more stripes than threads
+ * two threads rarely wait for the same lock, and each stripe grows on its own.
+ */
+public class ConcurrentLongHashSet {
+    private static final long STRIPE_MULTIPLIER = 0x9E3779B97F4A7C15L;
+
+    private final LongHashSet[] stripes;
+    private final int stripeShift;
+
+    /**
+     * @param expectedSize number of keys the set should hold without growing
+     * @param concurrency  number of threads expected to add keys at the same time
+     */
+    public ConcurrentLongHashSet(long expectedSize, int concurrency) {
+        int stripeCount = Integer.highestOneBit(Math.max(1, concurrency) * 64 - 1) << 1;
+        this.stripes = new LongHashSet[stripeCount];
+        this.stripeShift = 64 - Integer.numberOfTrailingZeros(stripeCount);
+        int perStripe = (int) Math.min(1 << 28, Math.max(16, expectedSize / stripeCount));
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new LongHashSet(perStripe);
+        }
+    }
+
+    private LongHashSet stripeOf(long key) {
+        return stripes[(int) ((key * STRIPE_MULTIPLIER) >>> stripeShift)];
+    }
+
+    /**
+     * @return true if the key was not present before
+     */
+    public boolean add(long key) {
+        LongHashSet stripe = stripeOf(key);
+        synchronized (stripe) {
+            return stripe.add(key);
+        }
+    }
+
+    public boolean contains(long key) {
+        LongHashSet stripe = stripeOf(key);
+        synchronized (stripe) {
+            return stripe.contains(key);
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (LongHashSet stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return approximate heap footprint in bytes
+     */
+    public long memoryUsage() {
+        long bytes = 16L + 4L * stripes.length;
+        for (LongHashSet stripe : stripes) {
+            synchronized (stripe) {
+                bytes += stripe.memoryUsage();
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,46 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocation of the direct buffers behind the off-heap search structures.
+ *
+ * A direct buffer is released once the garbage collector finds it unreachable, so the off-heap
+ * structures drop their buffers when closed instead of freeing them. The collector notices a
+ * large dead buffer late, since on the heap it is a small object; when direct memory runs out
+ * the JDK triggers a collection and retries before it throws. Off-heap memory counts against
+ * -XX:MaxDirectMemorySize, which defaults to the maximum heap size.
+ */
+final class DirectMemory {
+    private static final AtomicLong ALLOCATED = new AtomicLong();
+
+    private DirectMemory() {
+    }
+
+    /**
+     * @return a zeroed direct buffer in native byte order
+     */
+    static ByteBuffer allocate(int bytes) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        ALLOCATED.addAndGet(bytes);
+        return buffer;
+    }
+
+    /**
+     * Give up a buffer from {@link #allocate}; the caller must drop its references to it
+     */
+    static void free(ByteBuffer buffer) {
+        if (buffer != null) {
+            ALLOCATED.addAndGet(-buffer.capacity());
+        }
+    }
+
+    /**
+     * @return the bytes allocated and not yet given up
+     */
+    static long allocatedBytes() {
+        return ALLOCATED.get();
+    }
+}
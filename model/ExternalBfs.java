@@ -0,0 +1,446 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Breadth-first search that keeps its layers on disk, for offline analysis of boards whose
+ * state space does not fit the heap.
+ *
+ * Each layer is a file of packed board keys in ascending order. The successors of a layer are
+ * collected in a buffer of {@link #setRunSize run size} keys, which is sorted and written as a
+ * run whenever it is full. The runs are then merged into the next layer, and duplicates are
+ * removed on the way by streaming the current and the previous layer alongside: every move can
+ * be undone, so a successor of layer d is in layer d-1, d or d+1, and the two older layers are
+ * all the visited set a board has to be checked against. Memory use is the run buffer plus one
+ * read buffer per run, whatever the number of states.
+ *
+ * Only layouts whose boards pack into one long are supported, as in {@link ParallelBfs}. On
+ * mirror-symmetric layouts keys are canonical unless symmetry reduction is turned off.
+ *
+ * Usage: java model.ExternalBfs [level] [work directory] [run size]
+ */
+public class ExternalBfs {
+    private static final int IO_BUFFER = 1 << 16;
+    private static final int DEFAULT_RUN_SIZE = 1 << 22;
+
+    /**
+     * Statistics of one finished layer
+     */
+    public static class Layer {
+        private final int depth;
+        private final long states;
+        private final long bytesWritten;
+        private final long elapsedMillis;
+
+        Layer(int depth, long states, long bytesWritten, long elapsedMillis) {
+            this.depth = depth;
+            this.states = states;
+            this.bytesWritten = bytesWritten;
+            this.elapsedMillis = elapsedMillis;
+        }
+
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * @return the number of distinct boards in the layer
+         */
+        public long getStates() {
+            return states;
+        }
+
+        /**
+         * @return bytes of runs and of the merged layer written to produce it
+         */
+        public long getBytesWritten() {
+            return bytesWritten;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        /**
+         * @return new boards per second spent on the layer
+         */
+        public double getStatesPerSecond() {
+            return states * 1000.0 / Math.max(1, elapsedMillis);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("depth %d: %d states, %d bytes written, %d ms, %.0f states/s",
+                    depth, states, bytesWritten, elapsedMillis, getStatesPerSecond());
+        }
+    }
+
+    private final int[][] board;
+    private final MoveGenerator generator;
+    private final File workDirectory;
+    private final boolean temporary;
+    private int runSize = DEFAULT_RUN_SIZE;
+    private boolean symmetryReduction = true;
+    private long maxStates = Long.MAX_VALUE;
+
+    private final List<Layer> layers = new ArrayList<>();
+    private long stateCount;
+    private long bytesWritten;
+    private long elapsedMillis;
+    private boolean complete;
+
+    /**
+     * @param board         start board, also used for the layout
+     * @param level         the level the board belongs to, for hidden camps, or -1
+     * @param workDirectory where layers and runs are written, or null for a new temporary
+     *                      directory
+     */
+    public ExternalBfs(int[][] board, int level, File workDirectory) throws IOException {
+        this.board = board;
+        this.generator = MoveGenerator.forLevel(board, level);
+        if (!generator.getCodec().isCompact()) {
+            throw new IllegalArgumentException("External BFS needs a layout that packs into one long");
+        }
+        this.temporary = workDirectory == null;
+        this.workDirectory = temporary ? Files.createTempDirectory("klotski-bfs").toFile() : workDirectory;
+        if (!this.workDirectory.isDirectory() && !this.workDirectory.mkdirs()) {
+            throw new IOException("Cannot create " + this.workDirectory);
+        }
+    }
+
+    /**
+     * Number of keys sorted in memory before they are written as a run, 8 bytes each
+     */
+    public void setRunSize(int runSize) {
+        this.runSize = Math.max(16, runSize);
+    }
+
+    /**
+     * Treat a board and its mirror image as one state on symmetric layouts (the default)
+     */
+    public void setSymmetryReduction(boolean enabled) {
+        this.symmetryReduction = enabled;
+    }
+
+    /**
+     * Stop after the layer in which this many states have been found
+     */
+    public void setMaxStates(long maxStates) {
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * Explore everything reachable from the start board, deleting all files when done
+     *
+     * @param visitor receives each layer's keys in ascending order, may be null
+     * @return true if the whole reachable state space was enumerated, false if the state
+     *         budget ran out first
+     */
+    public boolean explore(ParallelBfs.LayerVisitor visitor) throws IOException {
+        layers.clear();
+        stateCount = 0;
+        bytesWritten = 0;
+        complete = false;
+        long startTime = System.currentTimeMillis();
+        generator.setCanonical(symmetryReduction);
+        generator.load(board);
+
+        try {
+            File previous = null;
+            File current = layerFile(0);
+            try (KeyWriter out = new KeyWriter(current)) {
+                out.write(generator.getCanonicalKey());
+            }
+            bytesWritten += Long.BYTES;
+            layers.add(new Layer(0, 1, Long.BYTES, System.currentTimeMillis() - startTime));
+            stateCount = 1;
+            visit(visitor, 0, current);
+
+            for (int depth = 1; ; depth++) {
+                if (stateCount >= maxStates) {
+                    return false;
+                }
+                long layerStart = System.currentTimeMillis();
+                long written = bytesWritten;
+                List<File> runs = expand(current, depth);
+                File next = layerFile(depth);
+                long states = merge(runs, previous, current, next);
+                for (File run : runs) {
+                    Files.delete(run.toPath());
+                }
+                if (states == 0) {
+                    Files.delete(next.toPath());
+                    complete = true;
+                    return true;
+                }
+                layers.add(new Layer(depth, states, bytesWritten - written, System.currentTimeMillis() - layerStart));
+                stateCount += states;
+                visit(visitor, depth, next);
+                if (previous != null) {
+                    Files.delete(previous.toPath());
+                }
+                previous = current;
+                current = next;
+            }
+        } finally {
+            elapsedMillis = System.currentTimeMillis() - startTime;
+            deleteLayers();
+        }
+    }
+
+    private File layerFile(int depth) {
+        return new File(workDirectory, "layer" + depth + ".keys");
+    }
+
+    /**
+     * Write the successors of a layer as sorted runs without duplicates
+     */
+    private List<File> expand(File layer, int depth) throws IOException {
+        List<File> runs = new ArrayList<>();
+        long[] buffer = new long[runSize];
+        int size = 0;
+        MoveBuffer successors = new MoveBuffer();
+        try (KeyReader in = new KeyReader(layer)) {
+            while (in.advance()) {
+                generator.load(in.current);
+                generator.generate(successors);
+                for (int m = 0; m < successors.size(); m++) {
+                    if (size == buffer.length) {
+                        runs.add(writeRun(buffer, size, depth, runs.size()));
+                        size = 0;
+                    }
+                    buffer[size++] = successors.getKey(m);
+                }
+            }
+        }
+        if (size > 0) {
+            runs.add(writeRun(buffer, size, depth, runs.size()));
+        }
+        return runs;
+    }
+
+    private File writeRun(long[] buffer, int size, int depth, int index) throws IOException {
+        Arrays.sort(buffer, 0, size);
+        File run = new File(workDirectory, "layer" + depth + ".run" + index);
+        try (KeyWriter out = new KeyWriter(run)) {
+            for (int i = 0; i < size; i++) {
+                if (i == 0 || buffer[i] != buffer[i - 1]) {
+                    out.write(buffer[i]);
+                }
+            }
+            bytesWritten += out.count * Long.BYTES;
+        }
+        return run;
+    }
+
+    /**
+     * Merge the runs into the next layer, dropping keys found in the two older layers
+     *
+     * @return the number of keys written
+     */
+    private long merge(List<File> runs, File previous, File current, File next) throws IOException {
+        PriorityQueue<KeyReader> heads = new PriorityQueue<>((a, b) -> Long.compare(a.current, b.current));
+        List<KeyReader> readers = new ArrayList<>();
+        try (KeyReader older = new KeyReader(previous);
+             KeyReader recent = new KeyReader(current);
+             KeyWriter out = new KeyWriter(next)) {
+            for (File run : runs) {
+                KeyReader reader = new KeyReader(run);
+                readers.add(reader);
+                if (reader.advance()) {
+                    heads.add(reader);
+                }
+            }
+            older.advance();
+            recent.advance();
+            boolean first = true;
+            long last = 0;
+            while (!heads.isEmpty()) {
+                KeyReader head = heads.poll();
+                long key = head.current;
+                if (head.advance()) {
+                    heads.add(head);
+                }
+                if (!first && key == last) {
+                    continue;
+                }
+                first = false;
+                last = key;
+                if (!older.skipTo(key) && !recent.skipTo(key)) {
+                    out.write(key);
+                }
+            }
+            bytesWritten += out.count * Long.BYTES;
+            return out.count;
+        } finally {
+            for (KeyReader reader : readers) {
+                reader.close();
+            }
+        }
+    }
+
+    private void visit(ParallelBfs.LayerVisitor visitor, int depth, File layer) throws IOException {
+        if (visitor == null) {
+            return;
+        }
+        // Passed on in blocks, like the in-memory BFS passes whole layers
+        long[] block = new long[Math.min(runSize, 1 << 20)];
+        int count = 0;
+        try (KeyReader in = new KeyReader(layer)) {
+            while (in.advance()) {
+                block[count++] = in.current;
+                if (count == block.length) {
+                    visitor.visit(depth, block, count);
+                    count = 0;
+                }
+            }
+        }
+        if (count > 0) {
+            visitor.visit(depth, block, count);
+        }
+    }
+
+    private void deleteLayers() {
+        File[] files = workDirectory.listFiles((directory, name) -> name.startsWith("layer"));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        if (temporary) {
+            workDirectory.delete();
+        }
+    }
+
+    /**
+     * Reads a file of keys one at a time; a null file reads as empty
+     */
+    private static final class KeyReader implements AutoCloseable {
+        private final DataInputStream in;
+        private boolean ended;
+        long current;
+
+        KeyReader(File file) throws IOException {
+            in = file != null ? new DataInputStream(new BufferedInputStream(new FileInputStream(file), IO_BUFFER)) : null;
+            ended = in == null;
+        }
+
+        /**
+         * @return false at the end of the file
+         */
+        boolean advance() throws IOException {
+            if (ended) {
+                return false;
+            }
+            try {
+                current = in.readLong();
+                return true;
+            } catch (EOFException e) {
+                ended = true;
+                return false;
+            }
+        }
+
+        /**
+         * Move forward to the first key not below the given one
+         *
+         * @return true if the key is in the file
+         */
+        boolean skipTo(long key) throws IOException {
+            while (!ended && current < key) {
+                advance();
+            }
+            return !ended && current == key;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+            }
+        }
+    }
+
+    private static final class KeyWriter implements AutoCloseable {
+        private final DataOutputStream out;
+        long count;
+
+        KeyWriter(File file) throws IOException {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), IO_BUFFER));
+        }
+
+        void write(long key) throws IOException {
+            out.writeLong(key);
+            count++;
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    /**
+     * @return statistics of each layer of the last exploration
+     */
+    public List<Layer> getLayers() {
+        return Collections.unmodifiableList(layers);
+    }
+
+    public long getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * @return bytes written to disk by the last exploration, runs included
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return true if the last exploration reached every reachable board
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public File getWorkDirectory() {
+        return workDirectory;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int level = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        File directory = args.length > 1 ? new File(args[1]) : null;
+        ExternalBfs bfs = new ExternalBfs(MapModel.LEVELS[level], level, directory);
+        if (args.length > 2) {
+            bfs.setRunSize(Integer.parseInt(args[2]));
+        }
+        boolean complete = bfs.explore(null);
+        for (Layer layer : bfs.getLayers()) {
+            System.out.println(layer);
+        }
+        System.out.printf("Level %d: %d states in %d layers%s, %d bytes written, %d ms, %.0f states/s%n",
+                level, bfs.getStateCount(), bfs.getLayers().size(), complete ? "" : " (incomplete)",
+                bfs.getBytesWritten(), bfs.getElapsedMillis(),
+                bfs.getStateCount() * 1000.0 / Math.max(1, bfs.getElapsedMillis()));
+    }
+}
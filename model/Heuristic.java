@@ -0,0 +1,28 @@
+package model;
+
+/**
+ * Estimate of the number of cell moves left from a board to a goal board, for the informed
+ * searches.
+ *
+ * An admissible heuristic never overestimates, so A* and IDA* guided by it return shortest
+ * solutions. The boards passed in are those of one layout, the one the heuristic was created
+ * for.
+ */
+public interface Heuristic {
+    /**
+     * Returned for boards from which the goal cannot be reached
+     */
+    int UNREACHABLE = 0xFFFF;
+
+    /**
+     * @return the estimate for the generator's current board; the generator is left unchanged
+     */
+    int estimate(MoveGenerator generator);
+
+    /**
+     * @return true if the estimate is a lower bound on the moves left
+     */
+    boolean isAdmissible();
+
+    String getName();
+}
@@ -0,0 +1,184 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exact distance to the goal of every board reachable in one level, memory-mapped from a file
+ * written by {@link HintDatabaseBuilder}.
+ *
+ * File layout (big-endian): a header with the magic number, format version, level, board size,
+ * a hash of the level layout, the state count and whether keys are canonical; the
+ * {@link MinimalPerfectHash} of all reachable boards; then one distance byte per board, at
+ * the board's hash index. On mirror-symmetric levels only canonical boards are stored, which
+ * halves the file.
+ *
+ * A board outside the database gets an arbitrary distance from the perfect hash, so a hint is
+ * only given after the whole path of strictly decreasing distances down to a goal board has
+ * been checked. That walk takes a few hundred lookups, well under a millisecond.
+ */
+public class HintDatabase {
+    static final int MAGIC = 0x4B484442;  // "KHDB"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 36;
+    static final int UNKNOWN_DISTANCE = 0xFF;
+
+    private static final String DIRECTORY = "hintdb";
+    private static final Map<Integer, HintDatabase> OPENED = new HashMap<>();
+
+    private final int level;
+    private final MappedByteBuffer buffer;
+    private final MinimalPerfectHash index;
+    private final int distancesOffset;
+    private final long stateCount;
+    private final boolean canonical;
+
+    private HintDatabase(int level, MappedByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a hint database");
+        }
+        int[][] layout = MapModel.LEVELS[level];
+        if (buffer.getInt(8) != level || buffer.getInt(12) != layout.length
+                || buffer.getInt(16) != layout[0].length || buffer.getInt(20) != layoutHash(layout)) {
+            throw new IOException("Hint database was built for a different layout");
+        }
+        this.level = level;
+        this.buffer = buffer;
+        this.stateCount = buffer.getLong(24);
+        this.canonical = buffer.getInt(32) != 0;
+        this.index = MinimalPerfectHash.read(buffer, HEADER_SIZE);
+        this.distancesOffset = HEADER_SIZE + index.serializedSize();
+        if (index.size() != stateCount || (long) distancesOffset + stateCount > buffer.capacity()) {
+            throw new IOException("Hint database is truncated");
+        }
+    }
+
+    static File fileFor(int level) {
+        return new File(DIRECTORY, "level" + level + ".kdb");
+    }
+
+    static int layoutHash(int[][] layout) {
+        return Arrays.deepHashCode(layout);
+    }
+
+    /**
+     * @return the database of a level, or null if it was not built or does not match the
+     *         level's layout
+     */
+    public static synchronized HintDatabase forLevel(int level) {
+        if (level < 0 || level >= MapModel.LEVELS.length) {
+            return null;
+        }
+        if (OPENED.containsKey(level)) {
+            return OPENED.get(level);
+        }
+        HintDatabase database = null;
+        File file = fileFor(level);
+        if (file.isFile()) {
+            try {
+                database = open(file, level);
+            } catch (IOException e) {
+                System.err.println("Ignoring hint database " + file + ": " + e.getMessage());
+            }
+        }
+        OPENED.put(level, database);
+        return database;
+    }
+
+    public static HintDatabase open(File file, int level) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r");
+             FileChannel channel = raf.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Hint database is larger than 2 GB");
+            }
+            // The mapping stays valid after the channel is closed
+            return new HintDatabase(level, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public long getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * @return the stored distance for a packed board; meaningless for boards outside the level
+     */
+    int distance(long key) {
+        long position = index.lookup(key);
+        if (position < 0 || position >= stateCount) {
+            return UNKNOWN_DISTANCE;
+        }
+        return buffer.get(distancesOffset + (int) position) & 0xFF;
+    }
+
+    /**
+     * @return the number of moves an optimal solution needs from the board, or -1 if the board
+     *         is not in the database
+     */
+    public int getDistance(int[][] board) {
+        MoveGenerator generator = generatorFor(board);
+        int distance = distance(generator.getCanonicalKey());
+        return verifiedPath(generator, 0, null) ? distance : -1;
+    }
+
+    /**
+     * The first moves of an optimal solution from a board, each to the neighbor closest to the
+     * goal.
+     *
+     * @return up to count moves, empty on a goal board, or null if the board is not in the
+     *         database
+     */
+    public List<AISolver.Move> getBestMoves(int[][] board, int count) {
+        MoveGenerator generator = generatorFor(board);
+        List<AISolver.Move> moves = new ArrayList<>();
+        return verifiedPath(generator, count, moves) ? moves : null;
+    }
+
+    private MoveGenerator generatorFor(int[][] board) {
+        MoveGenerator generator = MoveGenerator.forLevel(board, level);
+        generator.setCanonical(canonical);
+        return generator;
+    }
+
+    /**
+     * Follow strictly decreasing distances from the generator's board to a goal board,
+     * collecting the first count moves
+     */
+    private boolean verifiedPath(MoveGenerator generator, int count, List<AISolver.Move> moves) {
+        int current = distance(generator.getCanonicalKey());
+        if (current == UNKNOWN_DISTANCE) {
+            return false;
+        }
+        MoveBuffer successors = new MoveBuffer();
+        for (int steps = current; steps > 0; steps--) {
+            generator.generate(successors);
+            int best = -1;
+            for (int i = 0; i < successors.size() && best < 0; i++) {
+                if (distance(successors.getKey(i)) == current - 1) {
+                    best = i;
+                }
+            }
+            if (best < 0) {
+                return false;
+            }
+            if (moves != null && moves.size() < count) {
+                moves.add(new AISolver.Move(successors.getRow(best), successors.getCol(best), successors.getDirection(best)));
+            }
+            generator.apply(successors.getPiece(best), successors.getDirection(best));
+            current--;
+        }
+        return generator.isGoal();
+    }
+}
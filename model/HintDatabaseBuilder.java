@@ -0,0 +1,115 @@
+package model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Offline tool that writes the {@link HintDatabase} of each level.
+ *
+ * The reachable boards of a level are enumerated forwards from its layout, keeping the goal
+ * boards among them. A second, retrograde BFS from all of those goals at once then gives every
+ * reachable board its exact distance to the nearest goal; since every move can be undone it
+ * reaches exactly the same boards. Both passes run on {@link ParallelBfs}.
+ *
+ * Usage: java model.HintDatabaseBuilder [level...]   (all levels when none are given)
+ */
+public class HintDatabaseBuilder {
+
+    public static void main(String[] args) throws IOException {
+        int[] levels;
+        if (args.length == 0) {
+            levels = new int[MapModel.LEVELS.length];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = i;
+            }
+        } else {
+            levels = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        }
+        for (int level : levels) {
+            if (!build(level, HintDatabase.fileFor(level))) {
+                System.out.println("Level " + level + ": skipped");
+            }
+        }
+    }
+
+    /**
+     * Build and write the database of one level
+     * @return false if the level's state space does not fit the heap or has no goal
+     */
+    public static boolean build(int level, File file) throws IOException {
+        int[][] layout = MapModel.LEVELS[level];
+        long startTime = System.currentTimeMillis();
+        ParallelBfs bfs = new ParallelBfs(layout, level);
+        MoveGenerator generator = MoveGenerator.forLevel(layout, level);
+
+        LongArrayList goals = new LongArrayList();
+        boolean complete = bfs.explore((depth, keys, count) -> {
+            for (int i = 0; i < count; i++) {
+                generator.load(keys[i]);
+                if (generator.isGoal()) {
+                    goals.add(keys[i]);
+                }
+            }
+        });
+        if (!complete || goals.isEmpty()) {
+            return false;
+        }
+        long reachable = bfs.getStateCount();
+        if (reachable > Integer.MAX_VALUE - 8) {
+            return false;
+        }
+
+        long[] goalKeys = new long[goals.size()];
+        for (int i = 0; i < goalKeys.length; i++) {
+            goalKeys[i] = goals.get(i);
+        }
+        long[] keys = new long[(int) reachable];
+        byte[] depths = new byte[(int) reachable];
+        int[] filled = {0};
+        boolean[] overflow = {false};
+        bfs.explore(goalKeys, (depth, layer, count) -> {
+            if (depth >= HintDatabase.UNKNOWN_DISTANCE) {
+                overflow[0] = true;
+            }
+            System.arraycopy(layer, 0, keys, filled[0], count);
+            Arrays.fill(depths, filled[0], filled[0] + count, (byte) depth);
+            filled[0] += count;
+        });
+        if (overflow[0] || filled[0] != reachable) {
+            System.out.println("Level " + level + ": distances do not fit in one byte");
+            return false;
+        }
+
+        MinimalPerfectHash index = MinimalPerfectHash.build(keys, filled[0]);
+        byte[] distances = new byte[filled[0]];
+        for (int i = 0; i < filled[0]; i++) {
+            distances[(int) index.lookup(keys[i])] = depths[i];
+        }
+
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(HintDatabase.MAGIC);
+            out.writeInt(HintDatabase.VERSION);
+            out.writeInt(level);
+            out.writeInt(layout.length);
+            out.writeInt(layout[0].length);
+            out.writeInt(HintDatabase.layoutHash(layout));
+            out.writeLong(filled[0]);
+            out.writeInt(bfs.isSymmetryReduced() ? 1 : 0);
+            index.write(out);
+            out.write(distances);
+        }
+
+        System.out.println("Level " + level + ": " + reachable + " states, " + goalKeys.length + " goals, farthest "
+                + (bfs.getLayerSizes().size() - 1) + " moves, " + file.length() + " bytes, "
+                + (System.currentTimeMillis() - startTime) + " ms");
+        return true;
+    }
+}
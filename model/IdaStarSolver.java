@@ -0,0 +1,273 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Iterative-deepening A* for small heaps: memory stays at a fixed-size transposition table
+ * plus one move buffer per depth, whatever the size of the level, at the price of searching
+ * the shallow part of the tree again in every iteration.
+ *
+ * With an admissible {@link Heuristic}, by default the level's pattern databases or the Cao Cao
+ * distance, the solution is shortest in cell moves.
+ *
+ * The table maps canonical keys to the smallest depth at which a board was searched in the
+ * current iteration, which cuts the many transpositions of a sliding puzzle, and to a lower
+ * bound on its distance learned from earlier iterations. Children are searched in order of
+ * that bound, or their estimate if higher, and those above the iteration's threshold are not
+ * entered at all. Each key hashes to a bucket of two slots; a full bucket gives up the entry
+ * of an older iteration first, then the deeper one. A lost entry costs search time only, never
+ * correctness, but with a table much smaller than the level's state space, as on Expert and
+ * Master, the search repeats so much work that it may not finish within any budget.
+ */
+public class IdaStarSolver {
+    public static final long DEFAULT_TABLE_BYTES = 4L << 20;
+    private static final int BYTES_PER_SLOT = 16;
+
+    private static final int FOUND = -1;
+    private static final int ABORTED = -2;
+    private static final int INFINITY = Heuristic.UNREACHABLE;
+
+    private final MoveGenerator generator;
+    private final boolean useTable;  // wide layouts intern every key, which would grow without bound
+    private final Heuristic heuristic;
+
+    // Table slot: key, and bound | g << 16 | iteration << 32 (0 when empty)
+    private final long[] tableKeys;
+    private final long[] tableValues;
+    private final int tableMask;
+
+    private final List<MoveBuffer> buffers = new ArrayList<>();
+    private final List<int[]> childBounds = new ArrayList<>();  // h of each move, then the order
+    private final List<AISolver.Move> solution = new ArrayList<>();
+    private final List<Integer> thresholds = new ArrayList<>();
+    private SearchControl control;
+    private int iteration;
+    private long statesVisited;
+    private int bestHeuristic;
+
+    public IdaStarSolver(int[][] board, int level) {
+        this(board, level, DEFAULT_TABLE_BYTES);
+    }
+
+    /**
+     * @param tableBytes size of the transposition table, rounded down to a power of two
+     */
+    public IdaStarSolver(int[][] board, int level, long tableBytes) {
+        this(board, level, tableBytes, PatternDatabaseHeuristic.bestFor(board, level));
+    }
+
+    public IdaStarSolver(int[][] board, int level, long tableBytes, Heuristic heuristic) {
+        this.generator = MoveGenerator.forLevel(board, level);
+        this.useTable = generator.getCodec().isCompact();
+        generator.setCanonical(useTable);
+        this.heuristic = heuristic;
+
+        int slots = (int) Long.highestOneBit(Math.max(2, Math.min(tableBytes / BYTES_PER_SLOT, 1 << 30)));
+        this.tableKeys = new long[useTable ? slots : 0];
+        this.tableValues = new long[useTable ? slots : 0];
+        this.tableMask = slots - 1;
+    }
+
+    public boolean solve() {
+        return solve(new SearchControl(SearchBudget.unlimited(), null));
+    }
+
+    /**
+     * @return true if a solution was found; false if there is none or the search was stopped
+     */
+    public boolean solve(SearchControl control) {
+        this.control = control;
+        solution.clear();
+        thresholds.clear();
+        statesVisited = 0;
+        if (generator.findCaoCao() < 0) {
+            return false;
+        }
+        long key = useTable ? generator.getCanonicalKey() : 0L;
+        int h = bound(key);
+        int threshold = h;
+        bestHeuristic = threshold;
+        while (threshold < INFINITY) {
+            iteration++;
+            thresholds.add(threshold);
+            int result = search(key, 0, h, threshold, -1, -1);
+            if (result == FOUND) {
+                Collections.reverse(solution);
+                control.solutionFound(solution.size());
+                control.report(statesVisited, memoryUsage(), 0, 0);
+                return true;
+            }
+            if (result == ABORTED) {
+                return false;
+            }
+            // Every move costs one, so the next bound is at least one higher
+            threshold = Math.max(threshold + 1, result);
+            h = Math.max(h, result);
+        }
+        return false;
+    }
+
+    /**
+     * @param h the estimate of this board, raised to the bound learned in the table
+     * @return FOUND, ABORTED or a lower bound on the length of solutions through this board
+     */
+    private int search(long key, int g, int h, int threshold, int lastPiece, int lastDirection) {
+        int f = g + h;
+        if (f > threshold) {
+            return f;
+        }
+        if (generator.isGoal()) {
+            return FOUND;
+        }
+        int slot = findSlot(key);
+        long entry = slot >= 0 ? tableValues[slot] : 0L;
+        if (slot >= 0 && (int) (entry >>> 32) == iteration && (int) (entry >>> 16 & 0xFFFF) <= g) {
+            // Already searched in this iteration with at least as many moves left
+            return f;
+        }
+        if (control.checkpoint(++statesVisited, memoryUsage(), bestHeuristic, g)) {
+            return ABORTED;
+        }
+        bestHeuristic = Math.min(bestHeuristic, h);
+        store(key, g, h);
+
+        while (buffers.size() <= g) {
+            buffers.add(new MoveBuffer());
+            childBounds.add(new int[0]);
+        }
+        MoveBuffer moves = buffers.get(g);
+        generator.generate(moves);
+        int size = moves.size();
+        if (childBounds.get(g).length < 2 * size) {
+            childBounds.set(g, new int[4 * size]);
+        }
+        int[] bounds = childBounds.get(g);
+        int backwards = 0;
+        int min = INFINITY;
+        int children = 0;
+        for (int i = 0; i < size; i++) {
+            int piece = moves.getPiece(i);
+            int direction = moves.getDirectionIndex(i);
+            // Directions are LEFT, UP, RIGHT, DOWN: the opposite one is two further on
+            if (piece == lastPiece && direction == (lastDirection + 2) % 4) {
+                backwards++;
+                continue;
+            }
+            generator.apply(piece, moves.getDirection(i));
+            bounds[i] = bound(moves.getKey(i));
+            generator.undo(piece, moves.getDirection(i));
+            if (g + 1 + bounds[i] > threshold) {
+                min = Math.min(min, g + 1 + bounds[i]);
+                continue;
+            }
+            // Insertion sort by estimate, so the most promising move is searched first
+            int at = size + children++;
+            while (at > size && bounds[bounds[at - 1]] > bounds[i]) {
+                bounds[at] = bounds[at - 1];
+                at--;
+            }
+            bounds[at] = i;
+        }
+        for (int c = 0; c < children; c++) {
+            int i = bounds[size + c];
+            int piece = moves.getPiece(i);
+            int direction = moves.getDirectionIndex(i);
+            generator.apply(piece, moves.getDirection(i));
+            int result = search(moves.getKey(i), g + 1, bounds[i], threshold, piece, direction);
+            generator.undo(piece, moves.getDirection(i));
+            if (result == FOUND) {
+                solution.add(new AISolver.Move(moves.getRow(i), moves.getCol(i), moves.getDirection(i)));
+                control.countSuccessors(size, backwards);
+                return FOUND;
+            }
+            if (result == ABORTED) {
+                return ABORTED;
+            }
+            min = Math.min(min, result);
+        }
+        control.countSuccessors(size, backwards);
+        store(key, g, Math.min(INFINITY, Math.max(h, min - g)));
+        return min;
+    }
+
+    /**
+     * @return the estimate of the current board, or the bound an earlier iteration left in the
+     *         table for it if that is higher
+     */
+    private int bound(long key) {
+        int h = heuristic();
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            h = Math.max(h, (int) (tableValues[slot] & 0xFFFF));
+        }
+        return h;
+    }
+
+    private int heuristic() {
+        return Math.min(INFINITY, heuristic.estimate(generator));
+    }
+
+    /**
+     * @return the slot holding the key, or -1 if it has none or there is no table
+     */
+    private int findSlot(long key) {
+        if (!useTable) {
+            return -1;
+        }
+        int bucket = LongHashSet.hash(key) & tableMask & ~1;
+        for (int slot = bucket; slot < bucket + 2; slot++) {
+            if (tableValues[slot] != 0 && tableKeys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private void store(long key, int g, int bound) {
+        if (!useTable) {
+            return;
+        }
+        int slot = findSlot(key);
+        if (slot < 0) {
+            int bucket = LongHashSet.hash(key) & tableMask & ~1;
+            slot = priority(bucket) <= priority(bucket + 1) ? bucket : bucket + 1;
+        }
+        tableKeys[slot] = key;
+        tableValues[slot] = bound | (long) Math.min(g, 0xFFFF) << 16 | (long) iteration << 32;
+    }
+
+    /**
+     * Lower is replaced first: empty slots, then older iterations, then deeper boards
+     */
+    private long priority(int slot) {
+        long value = tableValues[slot];
+        if (value == 0) {
+            return Long.MIN_VALUE;
+        }
+        return (value >>> 32) << 16 | (0xFFFF - (value >>> 16 & 0xFFFF));
+    }
+
+    /**
+     * @return the table and move buffers, the only memory that grows with the search
+     */
+    public long memoryUsage() {
+        return (long) tableKeys.length * BYTES_PER_SLOT + (long) buffers.size() * 1024;
+    }
+
+    public List<AISolver.Move> getSolution() {
+        return solution;
+    }
+
+    public long getStatesVisited() {
+        return statesVisited;
+    }
+
+    /**
+     * @return the f bound of each iteration, the last one being the solution length
+     */
+    public List<Integer> getThresholds() {
+        return thresholds;
+    }
+}
@@ -0,0 +1,319 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A* that keeps what it learned between searches of one layout, for hints that are asked for
+ * again after every few player moves.
+ *
+ * Two things are kept. First, every board on a solution found earlier, with its exact distance
+ * to the goal: a later search stops as soon as it takes such a board from the open set and
+ * finishes with the rest of the earlier path, so a player who follows the hint, or steps off it
+ * and back, is answered almost without searching. Second, a better estimate for every board an
+ * earlier search expanded: with a shortest solution of length C found from a start at distance
+ * g from the board, the board is at least C - g from the goal, which is never less than the
+ * heuristic and stays admissible and consistent (Adaptive A*). Boards near the old search front
+ * then no longer look promising, and the search goes straight back to the known paths.
+ *
+ * A board one move off a known path is at most one move farther from the goal than the board
+ * it left and at most one nearer, so the search has a solution through that path almost at
+ * once. Nothing estimated at or beyond its length is queued, and known boards win ties, so only
+ * a shorter way has to be searched for. {@link #setMaxDetourStates} caps that search, which on
+ * the larger levels can still take seconds; the path back is then taken instead.
+ *
+ * D* Lite and LPA* repair a search that runs backwards from the goal; here the goal is any of
+ * many boards, so the planner learns forward instead. Both kinds of knowledge are only kept
+ * with an admissible heuristic, and are dropped when the layout or level changes or the learned
+ * table grows past its limit.
+ *
+ * Instances are not thread-safe.
+ */
+public class IncrementalPlanner {
+    /**
+     * Learned estimates kept before the table is dropped, 12 to 24 bytes each; enough for
+     * every board a search of the Expert level expands
+     */
+    public static final int DEFAULT_MAX_LEARNED = 1 << 23;
+
+    private final int maxLearned;
+    private long maxDetourStates = Long.MAX_VALUE;
+    private Heuristic fixedHeuristic;
+
+    // Knowledge of the current layout
+    private MoveGenerator generator;
+    private Heuristic heuristic;
+    private int level;
+    private long layout;
+    private LongIntHashMap learned = new LongIntHashMap(1 << 12, -1);
+    private LongArrayList pathKeys = new LongArrayList();    // earlier solutions, one after another
+    private LongIntHashMap pathIndex = new LongIntHashMap(1 << 8, -1);  // key -> position in pathKeys
+
+    private List<AISolver.Move> solution = new ArrayList<>();
+    private long statesVisited;
+    private int reusedMoves;
+    private boolean optimal;
+
+    public IncrementalPlanner() {
+        this(DEFAULT_MAX_LEARNED);
+    }
+
+    public IncrementalPlanner(int maxLearned) {
+        this.maxLearned = maxLearned;
+    }
+
+    /**
+     * Once a solution through a known path has been found, look this many boards further for a
+     * shorter one, then take it; off by one move from a known path it is at most two moves
+     * longer than the shortest. Unlimited by default, so solutions are always shortest.
+     */
+    public void setMaxDetourStates(long maxDetourStates) {
+        this.maxDetourStates = Math.max(0, maxDetourStates);
+    }
+
+    /**
+     * Guide the searches with this heuristic instead of the level's best one; forgets what was
+     * learned
+     */
+    public void setHeuristic(Heuristic heuristic) {
+        this.fixedHeuristic = heuristic;
+        reset();
+    }
+
+    /**
+     * Forget all earlier searches
+     */
+    public void reset() {
+        generator = null;
+        heuristic = null;
+        // New tables, since clearing would keep the old ones at their largest
+        learned = new LongIntHashMap(1 << 12, -1);
+        pathKeys = new LongArrayList();
+        pathIndex = new LongIntHashMap(1 << 8, -1);
+    }
+
+    /**
+     * Find a shortest solution, reusing earlier searches of the same layout and level
+     *
+     * @return true if a solution was found
+     */
+    public boolean plan(int[][] board, int level, SearchControl control) {
+        solution = new ArrayList<>();
+        statesVisited = 0;
+        reusedMoves = 0;
+        optimal = false;
+        MoveGenerator fresh = MoveGenerator.forLevel(board, level);
+        if (generator == null || level != this.level || fresh.getCodec().getLayoutSignature() != layout
+                || learned.size() > maxLearned) {
+            reset();
+            // Wide layouts intern their keys per codec, so the generator is kept with the knowledge
+            generator = fresh;
+            generator.setCanonical(true);
+            heuristic = fixedHeuristic != null ? fixedHeuristic : PatternDatabaseHeuristic.bestFor(board, level);
+            this.level = level;
+            this.layout = generator.getCodec().getLayoutSignature();
+        }
+        generator.load(board);
+        if (generator.findCaoCao() < 0) {
+            return false;
+        }
+        boolean learn = heuristic.isAdmissible();
+
+        NodeArena nodes = new NodeArena(1 << 12);
+        IndexedMinHeap openSet = new IndexedMinHeap(1 << 12);
+        LongIntHashMap nodeIndex = new LongIntHashMap(1 << 12, -1);
+        MoveBuffer successors = new MoveBuffer();
+
+        int root = nodes.add(generator.getCanonicalKey(), NodeStore.NO_PARENT, 0, estimate(generator.getCanonicalKey()));
+        nodeIndex.put(nodes.getKey(root), root);
+        openSet.insert(root, nodes.getF(root), tieBreak(root, nodes, learn));
+        int bestHeuristic = nodes.getH(root);
+        // Length of the best solution through a known path generated so far, and the node at
+        // which it joins that path; nothing estimated at or above it needs to be queued, since
+        // that path is taken first
+        int bound = Heuristic.UNREACHABLE;
+        int boundNode = -1;
+        long detourStart = -1;
+
+        while (!openSet.isEmpty()) {
+            long memory = nodes.memoryUsage() + openSet.memoryUsage() + nodeIndex.memoryUsage()
+                    + learned.memoryUsage() + pathKeys.memoryUsage() + pathIndex.memoryUsage();
+            if (control.checkpoint(statesVisited, memory, bestHeuristic, openSet.size())) {
+                return false;
+            }
+            if (boundNode >= 0 && statesVisited - detourStart >= maxDetourStates) {
+                // Not proven shortest, so nothing is learned from it
+                finish(board, nodes, boundNode, pathIndex.get(nodes.getKey(boundNode)), false);
+                control.solutionFound(solution.size());
+                control.report(statesVisited, memory, bestHeuristic, openSet.size());
+                return true;
+            }
+            int current = openSet.poll();
+            statesVisited++;
+            long key = nodes.getKey(current);
+            bestHeuristic = Math.min(bestHeuristic, nodes.getH(current));
+
+            // A known path is as good as the goal: its length is exact, and nothing open is
+            // estimated below it
+            int known = learn ? pathIndex.get(key) : -1;
+            generator.load(key);
+            if (known >= 0 || generator.isGoal()) {
+                finish(board, nodes, current, known, learn);
+                control.solutionFound(solution.size());
+                control.report(statesVisited, memory, bestHeuristic, openSet.size());
+                return true;
+            }
+
+            nodes.markClosed(current);
+            generator.generate(successors);
+            int nextG = nodes.getG(current) + 1;
+            int duplicates = 0;
+            for (int i = 0; i < successors.size(); i++) {
+                long nextKey = successors.getKey(i);
+                int index = nodeIndex.get(nextKey);
+                if (index >= 0) {
+                    duplicates++;
+                    if (!nodes.isClosed(index) && nextG < nodes.getG(index)) {
+                        nodes.relax(index, current, nextG);
+                        openSet.decreaseKey(index, nodes.getF(index), tieBreak(index, nodes, learn));
+                        if (learn && pathIndex.containsKey(nextKey) && nodes.getF(index) <= bound) {
+                            bound = nodes.getF(index);
+                            boundNode = index;
+                        }
+                    }
+                    continue;
+                }
+                int h = learned.get(nextKey);
+                if (h < 0) {
+                    int piece = successors.getPiece(i);
+                    Direction direction = successors.getDirection(i);
+                    generator.apply(piece, direction);
+                    h = heuristic.estimate(generator);
+                    generator.undo(piece, direction);
+                }
+                if (h >= Heuristic.UNREACHABLE) {
+                    continue;
+                }
+                boolean onPath = learn && pathIndex.containsKey(nextKey);
+                if (!onPath && nextG + h >= bound) {
+                    continue;
+                }
+                index = nodes.add(nextKey, current, nextG, h);
+                nodeIndex.put(nextKey, index);
+                openSet.insert(index, nodes.getF(index), tieBreak(index, nodes, learn));
+                if (onPath && nextG + h < bound) {
+                    bound = nextG + h;
+                    boundNode = index;
+                    if (detourStart < 0) {
+                        detourStart = statesVisited;
+                    }
+                }
+            }
+            control.countSuccessors(successors.size(), duplicates);
+        }
+        return false;
+    }
+
+    /**
+     * Set the solution to the path to the node, followed by the rest of the known path if the
+     * node lies on one
+     *
+     * @param proven whether the solution is shortest, so that it may be learned from
+     */
+    private void finish(int[][] board, NodeArena nodes, int node, int known, boolean proven) {
+        List<Long> keys = new ArrayList<>();
+        for (int step = node; step != NodeStore.NO_PARENT; step = nodes.getParent(step)) {
+            keys.add(nodes.getKey(step));
+        }
+        Collections.reverse(keys);
+        if (known >= 0) {
+            reusedMoves = nodes.getH(node);
+            for (int step = 1; step <= reusedMoves; step++) {
+                keys.add(pathKeys.get(known + step));
+            }
+        }
+        if (proven) {
+            learn(nodes, keys, nodes.getF(node));
+        }
+        optimal = proven;
+        generator.load(board);
+        solution = AISolver.replay(generator, keys);
+    }
+
+    /**
+     * @return the secondary key of a node in the open set: among boards of equal f, those on a
+     *         known path come first, since their h is exact and ends the search, then lower h
+     */
+    private int tieBreak(int node, NodeArena nodes, boolean learn) {
+        return learn && pathIndex.containsKey(nodes.getKey(node)) ? -1 : nodes.getH(node);
+    }
+
+    private int estimate(long key) {
+        int h = learned.get(key);
+        return h >= 0 ? h : heuristic.estimate(generator);
+    }
+
+    /**
+     * Keep the solution's boards with their exact distances, and raise the estimate of every
+     * expanded board to length - g
+     */
+    private void learn(NodeArena nodes, List<Long> keys, int length) {
+        if (learned.size() + nodes.size() <= maxLearned) {
+            for (int node = 0; node < nodes.size(); node++) {
+                if (nodes.isClosed(node)) {
+                    raise(nodes.getKey(node), length - nodes.getG(node));
+                }
+            }
+        }
+        int start = pathKeys.size();
+        for (int step = 0; step < keys.size(); step++) {
+            long key = keys.get(step);
+            pathKeys.add(key);
+            pathIndex.put(key, start + step);
+            raise(key, length - step);
+        }
+    }
+
+    private void raise(long key, int h) {
+        if (h > learned.get(key)) {
+            learned.put(key, h);
+        }
+    }
+
+    /**
+     * @return the solution of the last plan, empty if there was none
+     */
+    public List<AISolver.Move> getSolution() {
+        return Collections.unmodifiableList(solution);
+    }
+
+    /**
+     * @return the boards expanded by the last plan
+     */
+    public long getStatesVisited() {
+        return statesVisited;
+    }
+
+    /**
+     * @return true if the last solution is known to be shortest: the heuristic is admissible and
+     *         the search was not cut short by {@link #setMaxDetourStates}
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * @return the moves at the end of the last solution that were taken from an earlier one
+     */
+    public int getReusedMoves() {
+        return reusedMoves;
+    }
+
+    /**
+     * @return the boards with a learned estimate
+     */
+    public int getLearnedStates() {
+        return learned.size();
+    }
+}
@@ -0,0 +1,263 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Binary min-heap of int ids with an index from id to heap slot, so the priority of a queued
+ * id can be lowered in O(log n) instead of removing and re-adding it.
+ *
+ * Ids are small non-negative ints (the solver uses node indices). Entries are ordered by the
+ * primary priority, ties are broken on the lower secondary priority.
+ *
+ * The slot and priorities of every id take 12 bytes, as many ids as the search has nodes. Off
+ * heap they are kept in direct buffers of {@value #CHUNK_IDS} ids that are added as ids grow and
+ * dropped by {@link #close}; only the heap array of queued ids stays on the Java heap.
+ */
+public class IndexedMinHeap implements AutoCloseable {
+    private static final int ID_BYTES = 12;
+    private static final int PRIMARY = 4;
+    private static final int SECONDARY = 8;
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_IDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_IDS - 1;
+
+    private int[] heap;
+    private int size;
+
+    // Indexed by id, on the heap
+    private int[] slots;
+    private int[] primary;
+    private int[] secondary;
+
+    // Indexed by id, off the heap: slot, primary, secondary
+    private ByteBuffer[] chunks;
+    private int chunkCount;
+
+    public IndexedMinHeap() {
+        this(1024);
+    }
+
+    public IndexedMinHeap(int initialCapacity) {
+        this(initialCapacity, false);
+    }
+
+    /**
+     * @param offHeap keep the slots and priorities of the ids in direct memory
+     */
+    public IndexedMinHeap(int initialCapacity, boolean offHeap) {
+        int capacity = Math.max(16, initialCapacity);
+        heap = new int[capacity];
+        if (offHeap) {
+            chunks = new ByteBuffer[16];
+        } else {
+            slots = new int[capacity];
+            primary = new int[capacity];
+            secondary = new int[capacity];
+            Arrays.fill(slots, -1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int id) {
+        return id < idCapacity() && slot(id) >= 0;
+    }
+
+    /**
+     * Add an id that is not in the heap
+     */
+    public void insert(int id, int primaryKey, int secondaryKey) {
+        if (contains(id)) {
+            throw new IllegalStateException("Id already queued: " + id);
+        }
+        ensureIdCapacity(id);
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        setPriority(id, primaryKey, secondaryKey);
+        heap[size] = id;
+        setSlot(id, size);
+        siftUp(size++);
+    }
+
+    /**
+     * Lower the priority of a queued id
+     */
+    public void decreaseKey(int id, int primaryKey, int secondaryKey) {
+        if (!contains(id)) {
+            throw new IllegalStateException("Id not queued: " + id);
+        }
+        setPriority(id, primaryKey, secondaryKey);
+        siftUp(slot(id));
+    }
+
+    public int peek() {
+        if (size == 0) {
+            throw new IllegalStateException("Heap is empty");
+        }
+        return heap[0];
+    }
+
+    /**
+     * Remove and return the id with the lowest priority
+     */
+    public int poll() {
+        int top = peek();
+        setSlot(top, -1);
+        size--;
+        if (size > 0) {
+            heap[0] = heap[size];
+            setSlot(heap[0], 0);
+            siftDown(0);
+        }
+        return top;
+    }
+
+    public int getPrimary(int id) {
+        return chunks == null ? primary[id] : chunks[id >>> CHUNK_SHIFT].getInt(offset(id) + PRIMARY);
+    }
+
+    private int getSecondary(int id) {
+        return chunks == null ? secondary[id] : chunks[id >>> CHUNK_SHIFT].getInt(offset(id) + SECONDARY);
+    }
+
+    private int slot(int id) {
+        return chunks == null ? slots[id] : chunks[id >>> CHUNK_SHIFT].getInt(offset(id));
+    }
+
+    private void setSlot(int id, int slot) {
+        if (chunks == null) {
+            slots[id] = slot;
+        } else {
+            chunks[id >>> CHUNK_SHIFT].putInt(offset(id), slot);
+        }
+    }
+
+    private void setPriority(int id, int primaryKey, int secondaryKey) {
+        if (chunks == null) {
+            primary[id] = primaryKey;
+            secondary[id] = secondaryKey;
+        } else {
+            ByteBuffer chunk = chunks[id >>> CHUNK_SHIFT];
+            chunk.putInt(offset(id) + PRIMARY, primaryKey);
+            chunk.putInt(offset(id) + SECONDARY, secondaryKey);
+        }
+    }
+
+    private static int offset(int id) {
+        return (id & CHUNK_MASK) * ID_BYTES;
+    }
+
+    private int idCapacity() {
+        return chunks == null ? slots.length : chunkCount << CHUNK_SHIFT;
+    }
+
+    /**
+     * @return approximate footprint in bytes, on and off the heap
+     */
+    public long memoryUsage() {
+        return 64L + 4L * heap.length + (long) ID_BYTES * idCapacity();
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            setSlot(heap[i], -1);
+        }
+        size = 0;
+    }
+
+    /**
+     * Drop the direct buffers of an off-heap heap so that the collector can release them; the
+     * heap must not be used afterwards
+     */
+    @Override
+    public void close() {
+        if (chunks == null) {
+            return;
+        }
+        for (int i = 0; i < chunkCount; i++) {
+            DirectMemory.free(chunks[i]);
+            chunks[i] = null;
+        }
+        chunkCount = 0;
+        size = 0;
+    }
+
+    private boolean less(int a, int b) {
+        int primaryA = getPrimary(a);
+        int primaryB = getPrimary(b);
+        if (primaryA != primaryB) {
+            return primaryA < primaryB;
+        }
+        return getSecondary(a) < getSecondary(b);
+    }
+
+    private void siftUp(int slot) {
+        int id = heap[slot];
+        while (slot > 0) {
+            int parentSlot = (slot - 1) >>> 1;
+            int parent = heap[parentSlot];
+            if (!less(id, parent)) {
+                break;
+            }
+            heap[slot] = parent;
+            setSlot(parent, slot);
+            slot = parentSlot;
+        }
+        heap[slot] = id;
+        setSlot(id, slot);
+    }
+
+    private void siftDown(int slot) {
+        int id = heap[slot];
+        int half = size >>> 1;
+        while (slot < half) {
+            int child = 2 * slot + 1;
+            int right = child + 1;
+            if (right < size && less(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!less(heap[child], id)) {
+                break;
+            }
+            heap[slot] = heap[child];
+            setSlot(heap[slot], slot);
+            slot = child;
+        }
+        heap[slot] = id;
+        setSlot(id, slot);
+    }
+
+    private void ensureIdCapacity(int id) {
+        if (id < idCapacity()) {
+            return;
+        }
+        if (chunks != null) {
+            // Whole chunks are added; ids already stored never move
+            while (id >= idCapacity()) {
+                if (chunkCount == chunks.length) {
+                    chunks = Arrays.copyOf(chunks, chunkCount * 2);
+                }
+                ByteBuffer chunk = DirectMemory.allocate(CHUNK_IDS * ID_BYTES);
+                for (int i = 0; i < CHUNK_IDS; i++) {
+                    chunk.putInt(i * ID_BYTES, -1);
+                }
+                chunks[chunkCount++] = chunk;
+            }
+            return;
+        }
+        int capacity = Math.max(slots.length * 2, id + 1);
+        int oldLength = slots.length;
+        slots = Arrays.copyOf(slots, capacity);
+        Arrays.fill(slots, oldLength, capacity, -1);
+        primary = Arrays.copyOf(primary, capacity);
+        secondary = Arrays.copyOf(secondary, capacity);
+    }
+}
@@ -0,0 +1,49 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive longs, used for BFS frontiers of packed board keys
+ */
+public class LongArrayList {
+    private long[] values;
+    private int size;
+
+    public LongArrayList() {
+        this(16);
+    }
+
+    public LongArrayList(int initialCapacity) {
+        values = new long[Math.max(4, initialCapacity)];
+    }
+
+    public void add(long value) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = value;
+    }
+
+    public long get(int index) {
+        return values[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return approximate heap footprint in bytes
+     */
+    public long memoryUsage() {
+        return 16L + 8L * values.length;
+    }
+}
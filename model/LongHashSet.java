@@ -0,0 +1,142 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of primitive longs with linear probing.
+ *
+ * Used for the solver's closed set: one long[] slot per entry and no boxing, so the set
+ * costs 8 bytes per slot instead of a HashMap node plus a boxed key per entry.
+ */
+public class LongHashSet {
+    private static final float LOAD_FACTOR = 0.7f;
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private long[] keys;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean hasZeroKey;  // 0 marks empty slots, so key 0 is tracked separately
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * @return true if the key was not present before
+     */
+    public boolean add(long key) {
+        if (key == 0L) {
+            if (hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = true;
+            size++;
+            return true;
+        }
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0L) {
+            if (keys[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        if (++size >= resizeAt) {
+            rehash(grow(keys.length));
+        }
+        return true;
+    }
+
+    public boolean contains(long key) {
+        if (key == 0L) {
+            return hasZeroKey;
+        }
+        int slot = hash(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != 0L) {
+            if (existing == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    /**
+     * Approximate heap footprint of the table in bytes
+     */
+    public long memoryUsage() {
+        return 16L + 8L * keys.length;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        allocate(newCapacity);
+        for (long key : oldKeys) {
+            if (key != 0L) {
+                int slot = hash(key) & mask;
+                while (keys[slot] != 0L) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) (capacity * LOAD_FACTOR));
+    }
+
+    static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        long capacity = Long.highestOneBit(needed - 1) << 1;
+        if (capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Too many entries: " + expectedSize);
+        }
+        return (int) capacity;
+    }
+
+    /**
+     * @return the doubled capacity; a table of {@value #MAX_CAPACITY} slots cannot grow, the
+     *         largest Java array of longs being just under 2^31 slots
+     */
+    static int grow(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("Hash table is full at " + capacity + " slots");
+        }
+        return capacity << 1;
+    }
+
+    /**
+     * Finalizer step of MurmurHash3; board keys have most of their entropy in the low bits
+     */
+    static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
@@ -0,0 +1,146 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from primitive longs to ints with linear probing.
+ *
+ * Keys and values live in two parallel arrays, so an entry costs 12 bytes per slot with no
+ * per-entry objects. Lookups of absent keys return the missing value given at construction.
+ */
+public class LongIntHashMap implements LongIntMap {
+    private static final float LOAD_FACTOR = 0.7f;
+
+    private final int missingValue;
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int resizeAt;
+    private boolean hasZeroKey;  // 0 marks empty slots, so key 0 is stored separately
+    private int zeroValue;
+
+    public LongIntHashMap(int missingValue) {
+        this(16, missingValue);
+    }
+
+    public LongIntHashMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(LongHashSet.capacityFor(expectedSize));
+    }
+
+    @Override
+    public int get(long key) {
+        if (key == 0L) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        int slot = LongHashSet.hash(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != 0L) {
+            if (existing == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return missingValue;
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        if (key == 0L) {
+            return hasZeroKey;
+        }
+        int slot = LongHashSet.hash(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != 0L) {
+            if (existing == key) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return the previous value, or the missing value if the key was absent
+     */
+    @Override
+    public int put(long key, int value) {
+        if (key == 0L) {
+            int previous = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        int slot = LongHashSet.hash(key) & mask;
+        long existing;
+        while ((existing = keys[slot]) != 0L) {
+            if (existing == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size >= resizeAt) {
+            rehash(LongHashSet.grow(keys.length));
+        }
+        return missingValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getMissingValue() {
+        return missingValue;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        hasZeroKey = false;
+        size = 0;
+    }
+
+    /**
+     * Approximate heap footprint of the table in bytes
+     */
+    @Override
+    public long memoryUsage() {
+        return 32L + 12L * keys.length;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0L) {
+                int slot = LongHashSet.hash(key) & mask;
+                while (keys[slot] != 0L) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (int) (capacity * LOAD_FACTOR));
+    }
+}
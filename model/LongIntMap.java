@@ -0,0 +1,28 @@
+package model;
+
+/**
+ * Map from primitive longs to ints, kept on or off the heap
+ *
+ * @see LongIntHashMap
+ * @see OffHeapLongIntHashMap
+ */
+public interface LongIntMap {
+    /**
+     * @return the value of the key, or the missing value if it is absent
+     */
+    int get(long key);
+
+    boolean containsKey(long key);
+
+    /**
+     * @return the previous value, or the missing value if the key was absent
+     */
+    int put(long key, int value);
+
+    int size();
+
+    /**
+     * Approximate footprint of the table in bytes
+     */
+    long memoryUsage();
+}
@@ -0,0 +1,185 @@
+package model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Minimal perfect hash function over a fixed set of longs, after BBHash (Limasset et al.).
+ *
+ * Keys are hashed into a bit array twice the size of the keys still unplaced. A key that lands
+ * on a bit no other key hits is placed there; the rest move on to the next, smaller level with
+ * a different hash. A key's index is the number of placed bits before its own, answered with
+ * one rank entry per 64-bit word, which makes the function about 3.5 bits per key.
+ *
+ * The function maps keys outside the set to arbitrary indices or -1, so callers must be able
+ * to tell a wrong answer apart. Lookups read the bit and rank words straight from a byte
+ * buffer, so a function can be used from a memory-mapped file without loading it.
+ */
+public class MinimalPerfectHash {
+    private static final double GAMMA = 2.0;
+    private static final int MAX_LEVELS = 64;
+
+    private final int[] levelWords;
+    private final long[] levelBits;      // bit count of each level
+    private final int[] levelStart;      // first word of each level
+    private final ByteBuffer buffer;
+    private final int wordsOffset;
+    private final int ranksOffset;
+    private final int wordCount;
+    private final long size;
+
+    private MinimalPerfectHash(int[] levelWords, ByteBuffer buffer, int offset) {
+        this.levelWords = levelWords;
+        this.levelBits = new long[levelWords.length];
+        this.levelStart = new int[levelWords.length];
+        int words = 0;
+        for (int level = 0; level < levelWords.length; level++) {
+            levelStart[level] = words;
+            levelBits[level] = 64L * levelWords[level];
+            words += levelWords[level];
+        }
+        this.buffer = buffer;
+        this.wordCount = words;
+        this.wordsOffset = offset;
+        this.ranksOffset = offset + 8 * words;
+        this.size = words == 0 ? 0 : rank(words - 1) + Long.bitCount(buffer.getLong(wordsOffset + 8 * (words - 1)));
+    }
+
+    /**
+     * Build the function for the first count keys, which must be distinct
+     */
+    public static MinimalPerfectHash build(long[] keys, int count) {
+        long[] remaining = Arrays.copyOf(keys, count);
+        int remainingCount = count;
+        List<long[]> levels = new ArrayList<>();
+
+        for (int level = 0; remainingCount > 0; level++) {
+            if (level == MAX_LEVELS) {
+                throw new IllegalStateException("Perfect hash did not converge; are the keys distinct?");
+            }
+            int words = (int) Math.max(1, (long) Math.ceil(remainingCount * GAMMA / 64));
+            long bits = 64L * words;
+            long[] seen = new long[words];
+            long[] collided = new long[words];
+            for (int i = 0; i < remainingCount; i++) {
+                long position = position(remaining[i], level, bits);
+                int word = (int) (position >>> 6);
+                long mask = 1L << position;
+                if ((seen[word] & mask) != 0) {
+                    collided[word] |= mask;
+                } else {
+                    seen[word] |= mask;
+                }
+            }
+            int kept = 0;
+            for (int i = 0; i < remainingCount; i++) {
+                long position = position(remaining[i], level, bits);
+                if ((collided[(int) (position >>> 6)] & (1L << position)) != 0) {
+                    remaining[kept++] = remaining[i];
+                }
+            }
+            for (int word = 0; word < words; word++) {
+                seen[word] &= ~collided[word];
+            }
+            levels.add(seen);
+            remainingCount = kept;
+        }
+
+        int[] levelWords = new int[levels.size()];
+        int totalWords = 0;
+        for (int level = 0; level < levelWords.length; level++) {
+            levelWords[level] = levels.get(level).length;
+            totalWords += levelWords[level];
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(12 * totalWords);
+        int word = 0;
+        int rank = 0;
+        for (long[] bits : levels) {
+            for (long value : bits) {
+                buffer.putLong(8 * word, value);
+                buffer.putInt(8 * totalWords + 4 * word, rank);
+                rank += Long.bitCount(value);
+                word++;
+            }
+        }
+        return new MinimalPerfectHash(levelWords, buffer, 0);
+    }
+
+    /**
+     * Read a function written by {@link #write} from a buffer, without copying it
+     *
+     * @param offset position of the function in the buffer
+     */
+    public static MinimalPerfectHash read(ByteBuffer buffer, int offset) {
+        int levels = buffer.getInt(offset);
+        int[] levelWords = new int[levels];
+        for (int level = 0; level < levels; level++) {
+            levelWords[level] = buffer.getInt(offset + 4 + 4 * level);
+        }
+        return new MinimalPerfectHash(levelWords, buffer, offset + 4 + 4 * levels);
+    }
+
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(levelWords.length);
+        for (int words : levelWords) {
+            out.writeInt(words);
+        }
+        for (int word = 0; word < wordCount; word++) {
+            out.writeLong(buffer.getLong(wordsOffset + 8 * word));
+        }
+        for (int word = 0; word < wordCount; word++) {
+            out.writeInt((int) rank(word));
+        }
+    }
+
+    /**
+     * @return the number of bytes {@link #write} produces
+     */
+    public int serializedSize() {
+        return 4 + 4 * levelWords.length + 12 * wordCount;
+    }
+
+    /**
+     * @return the number of keys the function was built for
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return the key's index in [0, size()) for keys of the set; any index or -1 otherwise
+     */
+    public long lookup(long key) {
+        for (int level = 0; level < levelWords.length; level++) {
+            long position = position(key, level, levelBits[level]);
+            int word = levelStart[level] + (int) (position >>> 6);
+            long bits = buffer.getLong(wordsOffset + 8 * word);
+            long mask = 1L << position;
+            if ((bits & mask) != 0) {
+                return rank(word) + Long.bitCount(bits & (mask - 1));
+            }
+        }
+        return -1;
+    }
+
+    private long rank(int word) {
+        return buffer.getInt(ranksOffset + 4 * word) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Bit position of a key at a level, in [0, bits)
+     */
+    private static long position(long key, int level, long bits) {
+        long h = key + (level + 1) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return Math.multiplyHigh(h & 0x7FFFFFFFFFFFFFFFL, bits << 1);
+    }
+}
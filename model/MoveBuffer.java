@@ -0,0 +1,83 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Reusable list of generated moves, filled by {@link MoveGenerator#generate(MoveBuffer)}.
+ *
+ * Each entry holds the piece index, the piece's top-left cell before the move, the direction
+ * and the packed key of the resulting board. The arrays only grow, so a buffer that is reused
+ * across expansions does not allocate once it has reached the largest branching factor.
+ */
+public class MoveBuffer {
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private int[] pieces;
+    private int[] rows;
+    private int[] cols;
+    private byte[] directions;
+    private long[] keys;
+    private int size;
+
+    public MoveBuffer() {
+        this(32);
+    }
+
+    public MoveBuffer(int initialCapacity) {
+        int capacity = Math.max(4, initialCapacity);
+        pieces = new int[capacity];
+        rows = new int[capacity];
+        cols = new int[capacity];
+        directions = new byte[capacity];
+        keys = new long[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    void add(int piece, int row, int col, int direction, long key) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            pieces = Arrays.copyOf(pieces, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+            cols = Arrays.copyOf(cols, capacity);
+            directions = Arrays.copyOf(directions, capacity);
+            keys = Arrays.copyOf(keys, capacity);
+        }
+        pieces[size] = piece;
+        rows[size] = row;
+        cols[size] = col;
+        directions[size] = (byte) direction;
+        keys[size] = key;
+        size++;
+    }
+
+    public int getPiece(int index) {
+        return pieces[index];
+    }
+
+    public int getRow(int index) {
+        return rows[index];
+    }
+
+    public int getCol(int index) {
+        return cols[index];
+    }
+
+    public int getDirectionIndex(int index) {
+        return directions[index];
+    }
+
+    public Direction getDirection(int index) {
+        return DIRECTIONS[directions[index]];
+    }
+
+    public long getKey(int index) {
+        return keys[index];
+    }
+}
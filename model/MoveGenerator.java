@@ -0,0 +1,494 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Move rules shared by the solver and the game controller.
+ *
+ * The generator holds one board together with a list of its pieces (type and top-left cell).
+ * For every piece geometry, anchor cell and direction the cells a move would enter are
+ * precomputed, as a bit mask on boards of up to 64 cells and as a cell list on larger boards,
+ * so checking a move is a single mask test. Moves are applied in place; the solver applies a
+ * move, evaluates the board and undoes it again without copying anything.
+ *
+ * Rules: pieces move one cell at a time into free cells. BLOCKED cells never move and nothing
+ * may enter them. Only soldiers may enter a military camp, and the camp is still there after
+ * the soldier leaves. Cao Cao wins at the bottom centre of the board.
+ *
+ * Instances are not thread-safe.
+ */
+public class MoveGenerator {
+    private static final Direction[] DIRECTIONS = Direction.values();
+    private static final int[] OPPOSITE = new int[DIRECTIONS.length];
+    private static final int[] MIRRORED = new int[DIRECTIONS.length];
+    static {
+        for (Direction direction : DIRECTIONS) {
+            for (Direction other : DIRECTIONS) {
+                if (other.getRowOffset() == -direction.getRowOffset()
+                        && other.getColOffset() == -direction.getColOffset()) {
+                    OPPOSITE[direction.ordinal()] = other.ordinal();
+                }
+                if (other.getRowOffset() == direction.getRowOffset()
+                        && other.getColOffset() == -direction.getColOffset()) {
+                    MIRRORED[direction.ordinal()] = other.ordinal();
+                }
+            }
+        }
+    }
+
+    // Indexed by piece type (1..5)
+    private static final int TYPE_COUNT = MapModel.ZHOU_YU + 1;
+
+    private final BoardCodec codec;
+    private final int rows;
+    private final int cols;
+    private final int cellCount;
+    private final boolean maskMode;
+    private final int goalCell;
+
+    // Static cells
+    private final boolean[] fixed;
+    private final boolean[] camp;
+    private final long fixedMask;
+    private final long campMask;
+
+    // [type][anchor * 4 + direction]: cells entered by the move, 0 / null if it leaves the board
+    private final long[][] entryMasks;
+    private final int[][][] entryCells;
+
+    // Current board
+    private final int[][] board;
+    private final int[] anchors;   // piece type at a piece's top-left cell, -1 at its other cells, 0 if free
+    private final int[] pieceAt;   // piece index covering each cell, -1 if free
+    private final int[] pieceTypes;
+    private final int[] pieceCells;
+    private int pieceCount;
+    private long occupied;
+    private final int[] offsets;   // bit offsets of the current board's codes, see BoardCodec.repack
+
+    // Left-right mirror of the current board, filled by generate when keys are canonical
+    private boolean canonical;
+    private final int[] mirrorAnchors;
+    private final int[] mirrorOffsets;
+
+    public MoveGenerator(int[][] reference) {
+        this(reference, null);
+    }
+
+    /**
+     * @param layout the level layout the board was started from, or null if unknown
+     */
+    public MoveGenerator(int[][] reference, int[][] layout) {
+        this.codec = new BoardCodec(reference, layout);
+        this.rows = reference.length;
+        this.cols = reference[0].length;
+        this.cellCount = rows * cols;
+        this.maskMode = cellCount <= 64;
+        this.goalCell = (rows - 2) * cols + (cols - 2) / 2;
+
+        this.fixed = new boolean[cellCount];
+        this.camp = new boolean[cellCount];
+        long fixedBits = 0L;
+        long campBits = 0L;
+        for (int cell = 0; cell < cellCount; cell++) {
+            fixed[cell] = codec.isFixedCell(cell);
+            camp[cell] = codec.isCampCell(cell);
+            if (maskMode && fixed[cell]) {
+                fixedBits |= 1L << cell;
+            }
+            if (maskMode && camp[cell]) {
+                campBits |= 1L << cell;
+            }
+        }
+        this.fixedMask = fixedBits;
+        this.campMask = campBits;
+
+        this.entryMasks = new long[TYPE_COUNT][];
+        this.entryCells = new int[TYPE_COUNT][][];
+        for (int type = MapModel.CAO_CAO; type <= MapModel.ZHOU_YU; type++) {
+            buildEntryTable(type);
+        }
+
+        this.board = new int[rows][cols];
+        this.anchors = new int[cellCount];
+        this.pieceAt = new int[cellCount];
+        this.pieceTypes = new int[cellCount];
+        this.pieceCells = new int[cellCount];
+        this.offsets = new int[codec.getDynamicCellCount() + 1];
+        this.mirrorAnchors = new int[cellCount];
+        this.mirrorOffsets = new int[codec.getDynamicCellCount() + 1];
+        load(reference);
+    }
+
+    /**
+     * Create a generator for a board of the given level, taking hidden military camps from
+     * the level layout when the board has the layout's size.
+     */
+    public static MoveGenerator forLevel(int[][] board, int level) {
+        int[][] layout = null;
+        if (level >= 0 && level < MapModel.LEVELS.length
+                && MapModel.LEVELS[level].length == board.length
+                && MapModel.LEVELS[level][0].length == board[0].length) {
+            layout = MapModel.LEVELS[level];
+        }
+        return new MoveGenerator(board, layout);
+    }
+
+    private void buildEntryTable(int type) {
+        int width = BoardCodec.getPieceWidth(type);
+        int height = BoardCodec.getPieceHeight(type);
+        entryMasks[type] = new long[cellCount * DIRECTIONS.length];
+        entryCells[type] = new int[cellCount * DIRECTIONS.length][];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < cols; col++) {
+                for (Direction direction : DIRECTIONS) {
+                    int newRow = row + direction.getRowOffset();
+                    int newCol = col + direction.getColOffset();
+                    if (row + height > rows || col + width > cols || newRow < 0 || newCol < 0
+                            || newRow + height > rows || newCol + width > cols) {
+                        continue;
+                    }
+                    int count = 0;
+                    int[] cells = new int[Math.max(width, height)];
+                    long mask = 0L;
+                    for (int r = newRow; r < newRow + height; r++) {
+                        for (int c = newCol; c < newCol + width; c++) {
+                            if (r >= row && r < row + height && c >= col && c < col + width) {
+                                continue;
+                            }
+                            cells[count++] = r * cols + c;
+                            if (maskMode) {
+                                mask |= 1L << (r * cols + c);
+                            }
+                        }
+                    }
+                    int slot = (row * cols + col) * DIRECTIONS.length + direction.ordinal();
+                    entryMasks[type][slot] = mask;
+                    entryCells[type][slot] = Arrays.copyOf(cells, count);
+                }
+            }
+        }
+    }
+
+    public BoardCodec getCodec() {
+        return codec;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * The current board. It is updated in place by {@link #apply}; copy it to keep it.
+     */
+    public int[][] getBoard() {
+        return board;
+    }
+
+    /**
+     * Load a board of this generator's layout
+     */
+    public void load(int[][] source) {
+        for (int r = 0; r < rows; r++) {
+            System.arraycopy(source[r], 0, board[r], 0, cols);
+        }
+        parsePieces();
+    }
+
+    /**
+     * Load a board from its packed key
+     */
+    public void load(long key) {
+        codec.unpack(key, board);
+        parsePieces();
+    }
+
+    /**
+     * @return the packed key of the current board
+     */
+    public long getKey() {
+        return codec.pack(anchors);
+    }
+
+    /**
+     * Make {@link #generate} and {@link #getCanonicalKey} return the smaller of a board's key
+     * and its mirror's key. Has no effect on layouts that are not mirror symmetric.
+     */
+    public void setCanonical(boolean enabled) {
+        this.canonical = enabled && codec.isMirrorSymmetric();
+    }
+
+    /**
+     * @return true if generated keys are canonical, see {@link BoardCodec#canonical}
+     */
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    /**
+     * @return the canonical key of the current board if canonical keys are enabled, else its key
+     */
+    public long getCanonicalKey() {
+        long key = codec.pack(anchors);
+        if (!canonical) {
+            return key;
+        }
+        fillMirrorAnchors();
+        return Math.min(key, codec.pack(mirrorAnchors));
+    }
+
+    private void fillMirrorAnchors() {
+        Arrays.fill(mirrorAnchors, 0);
+        for (int piece = 0; piece < pieceCount; piece++) {
+            int type = pieceTypes[piece];
+            setAnchors(mirrorAnchors, mirrorCell(pieceCells[piece], type), BoardCodec.getPieceWidth(type),
+                    BoardCodec.getPieceHeight(type), type, -1);
+        }
+    }
+
+    /**
+     * @return the top-left cell of a piece after flipping the board left to right
+     */
+    private int mirrorCell(int anchor, int type) {
+        int row = anchor / cols;
+        int col = anchor % cols;
+        return row * cols + cols - col - BoardCodec.getPieceWidth(type);
+    }
+
+    private void parsePieces() {
+        pieceCount = 0;
+        occupied = 0L;
+        Arrays.fill(pieceAt, -1);
+        Arrays.fill(anchors, 0);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                int type = board[r][c];
+                if (fixed[cell] || pieceAt[cell] >= 0 || type < MapModel.CAO_CAO || type > MapModel.ZHOU_YU) {
+                    continue;
+                }
+                int piece = pieceCount++;
+                pieceTypes[piece] = type;
+                pieceCells[piece] = cell;
+                anchors[cell] = type;
+                for (int dr = 0; dr < BoardCodec.getPieceHeight(type); dr++) {
+                    for (int dc = 0; dc < BoardCodec.getPieceWidth(type); dc++) {
+                        int covered = cell + dr * cols + dc;
+                        pieceAt[covered] = piece;
+                        if (covered != cell) {
+                            anchors[covered] = -1;
+                        }
+                        if (maskMode) {
+                            occupied |= 1L << covered;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public int getPieceCount() {
+        return pieceCount;
+    }
+
+    public int getPieceType(int piece) {
+        return pieceTypes[piece];
+    }
+
+    public int getPieceRow(int piece) {
+        return pieceCells[piece] / cols;
+    }
+
+    public int getPieceCol(int piece) {
+        return pieceCells[piece] % cols;
+    }
+
+    public int getPieceWidth(int piece) {
+        return BoardCodec.getPieceWidth(pieceTypes[piece]);
+    }
+
+    public int getPieceHeight(int piece) {
+        return BoardCodec.getPieceHeight(pieceTypes[piece]);
+    }
+
+    /**
+     * @return the index of the piece covering a cell, or -1 if there is none
+     */
+    public int findPiece(int row, int col) {
+        if (row < 0 || col < 0 || row >= rows || col >= cols) {
+            return -1;
+        }
+        return pieceAt[row * cols + col];
+    }
+
+    /**
+     * @return the index of Cao Cao, or -1 if the board has none
+     */
+    public int findCaoCao() {
+        for (int piece = 0; piece < pieceCount; piece++) {
+            if (pieceTypes[piece] == MapModel.CAO_CAO) {
+                return piece;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if Cao Cao covers the exit at the bottom centre
+     */
+    public boolean isGoal() {
+        return goalCell >= 0 && anchors[goalCell] == MapModel.CAO_CAO;
+    }
+
+    public boolean canMove(int piece, Direction direction) {
+        return canMove(piece, direction.ordinal());
+    }
+
+    private boolean canMove(int piece, int direction) {
+        int type = pieceTypes[piece];
+        int slot = pieceCells[piece] * DIRECTIONS.length + direction;
+        if (maskMode) {
+            long entry = entryMasks[type][slot];
+            if (entry == 0L) {
+                return false;
+            }
+            long blocked = occupied | fixedMask;
+            if (type != MapModel.SOLDIER) {
+                blocked |= campMask;
+            }
+            return (entry & blocked) == 0L;
+        }
+        int[] cells = entryCells[type][slot];
+        if (cells == null) {
+            return false;
+        }
+        for (int cell : cells) {
+            if (pieceAt[cell] >= 0 || fixed[cell] || (camp[cell] && type != MapModel.SOLDIER)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Move a piece one cell. The move must be legal.
+     */
+    public void apply(int piece, Direction direction) {
+        apply(piece, direction.ordinal());
+    }
+
+    /**
+     * Undo {@link #apply} of the same piece and direction
+     */
+    public void undo(int piece, Direction direction) {
+        apply(piece, OPPOSITE[direction.ordinal()]);
+    }
+
+    private void apply(int piece, int direction) {
+        int type = pieceTypes[piece];
+        int width = BoardCodec.getPieceWidth(type);
+        int height = BoardCodec.getPieceHeight(type);
+        int row = pieceCells[piece] / cols;
+        int col = pieceCells[piece] % cols;
+        int newRow = row + DIRECTIONS[direction].getRowOffset();
+        int newCol = col + DIRECTIONS[direction].getColOffset();
+
+        for (int r = row; r < row + height; r++) {
+            for (int c = col; c < col + width; c++) {
+                int cell = r * cols + c;
+                board[r][c] = camp[cell] ? MapModel.MILITARY_CAMP : 0;
+                anchors[cell] = 0;
+                pieceAt[cell] = -1;
+                if (maskMode) {
+                    occupied &= ~(1L << cell);
+                }
+            }
+        }
+        for (int r = newRow; r < newRow + height; r++) {
+            for (int c = newCol; c < newCol + width; c++) {
+                int cell = r * cols + c;
+                board[r][c] = type;
+                anchors[cell] = -1;
+                pieceAt[cell] = piece;
+                if (maskMode) {
+                    occupied |= 1L << cell;
+                }
+            }
+        }
+        int anchor = newRow * cols + newCol;
+        anchors[anchor] = type;
+        pieceCells[piece] = anchor;
+    }
+
+    /**
+     * Key of the board after a move, touching only the anchor cells of the moved piece
+     *
+     * @param cells   the board as anchor entries, see BoardCodec.pack(int[])
+     * @param codeOffsets the code offsets recorded when key was packed
+     */
+    private long packMoved(int[] cells, int[] codeOffsets, int anchor, int type, int direction, long key) {
+        int width = BoardCodec.getPieceWidth(type);
+        int height = BoardCodec.getPieceHeight(type);
+        int newAnchor = anchor + DIRECTIONS[direction].getRowOffset() * cols + DIRECTIONS[direction].getColOffset();
+
+        setAnchors(cells, anchor, width, height, 0, 0);
+        setAnchors(cells, newAnchor, width, height, type, -1);
+        long movedKey;
+        if (codec.isCompact()) {
+            int first = Math.min(anchor, newAnchor);
+            int last = Math.max(anchor, newAnchor) + (height - 1) * cols + width - 1;
+            movedKey = codec.repack(key, cells, codeOffsets, first, last);
+        } else {
+            movedKey = codec.pack(cells);
+        }
+        setAnchors(cells, newAnchor, width, height, 0, 0);
+        setAnchors(cells, anchor, width, height, type, -1);
+        return movedKey;
+    }
+
+    private void setAnchors(int[] cells, int anchor, int width, int height, int anchorValue, int coveredValue) {
+        for (int dr = 0; dr < height; dr++) {
+            for (int dc = 0; dc < width; dc++) {
+                cells[anchor + dr * cols + dc] = coveredValue;
+            }
+        }
+        cells[anchor] = anchorValue;
+    }
+
+    /**
+     * Fill the buffer with every legal move from the current board and the key of the board
+     * each move leads to, canonical if enabled. The current board is left unchanged.
+     *
+     * @return the number of moves generated
+     */
+    public int generate(MoveBuffer out) {
+        out.clear();
+        long key = codec.isCompact() ? codec.pack(anchors, offsets) : 0L;
+        long mirrorKey = 0L;
+        if (canonical) {
+            // The mirrored move of the mirrored piece gives the successor's mirror image
+            fillMirrorAnchors();
+            mirrorKey = codec.isCompact() ? codec.pack(mirrorAnchors, mirrorOffsets) : 0L;
+        }
+        for (int piece = 0; piece < pieceCount; piece++) {
+            int cell = pieceCells[piece];
+            int type = pieceTypes[piece];
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                if (!canMove(piece, direction)) {
+                    continue;
+                }
+                long next = packMoved(anchors, offsets, cell, type, direction, key);
+                if (canonical) {
+                    next = Math.min(next, packMoved(mirrorAnchors, mirrorOffsets, mirrorCell(cell, type), type,
+                            MIRRORED[direction], mirrorKey));
+                }
+                out.add(piece, cell / cols, cell % cols, direction, next);
+            }
+        }
+        return out.size();
+    }
+}
@@ -0,0 +1,11 @@
+package model;
+
+/**
+ * How the exact solvers count the length of a solution
+ */
+public enum MoveMetric {
+    /** Every one-cell slide of a piece is one move */
+    CELL,
+    /** Sliding one piece any number of cells, along any path, is one move */
+    PIECE
+}
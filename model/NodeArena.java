@@ -0,0 +1,133 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Search nodes stored as parallel primitive arrays instead of one object each.
+ *
+ * A node is an index into the arrays: packed board key, parent index (-1 for the root),
+ * path cost g, heuristic h and a closed flag, 20 bytes and a bit with no object header or
+ * reference. The arrays grow by half when full.
+ */
+public class NodeArena implements NodeStore {
+    private long[] keys;
+    private int[] parents;
+    private int[] costs;
+    private int[] estimates;
+    private long[] closed;
+    private int size;
+
+    public NodeArena() {
+        this(1024);
+    }
+
+    public NodeArena(int initialCapacity) {
+        int capacity = Math.max(16, initialCapacity);
+        keys = new long[capacity];
+        parents = new int[capacity];
+        costs = new int[capacity];
+        estimates = new int[capacity];
+        closed = new long[(capacity + 63) >>> 6];
+    }
+
+    /**
+     * @return the index of the new node
+     */
+    @Override
+    public int add(long key, int parent, int g, int h) {
+        if (size == keys.length) {
+            grow();
+        }
+        keys[size] = key;
+        parents[size] = parent;
+        costs[size] = g;
+        estimates[size] = h;
+        return size++;
+    }
+
+    private void grow() {
+        int capacity = keys.length + (keys.length >> 1);
+        if (capacity < 0 || capacity > Integer.MAX_VALUE - 8) {
+            capacity = Integer.MAX_VALUE - 8;
+        }
+        if (capacity == keys.length) {
+            throw new IllegalStateException("Node arena is full");
+        }
+        keys = Arrays.copyOf(keys, capacity);
+        parents = Arrays.copyOf(parents, capacity);
+        costs = Arrays.copyOf(costs, capacity);
+        estimates = Arrays.copyOf(estimates, capacity);
+        closed = Arrays.copyOf(closed, (capacity + 63) >>> 6);
+    }
+
+    @Override
+    public long getKey(int node) {
+        return keys[node];
+    }
+
+    @Override
+    public int getParent(int node) {
+        return parents[node];
+    }
+
+    @Override
+    public int getG(int node) {
+        return costs[node];
+    }
+
+    @Override
+    public int getH(int node) {
+        return estimates[node];
+    }
+
+    @Override
+    public int getF(int node) {
+        return costs[node] + estimates[node];
+    }
+
+    /**
+     * Record a shorter path to a node
+     */
+    @Override
+    public void relax(int node, int parent, int g) {
+        parents[node] = parent;
+        costs[node] = g;
+    }
+
+    @Override
+    public boolean isClosed(int node) {
+        return (closed[node >>> 6] & 1L << node) != 0;
+    }
+
+    /**
+     * @return false if the node was closed already
+     */
+    @Override
+    public boolean markClosed(int node) {
+        long bit = 1L << node;
+        if ((closed[node >>> 6] & bit) != 0) {
+            return false;
+        }
+        closed[node >>> 6] |= bit;
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+        Arrays.fill(closed, 0L);
+    }
+
+    /**
+     * @return approximate heap footprint in bytes
+     */
+    @Override
+    public long memoryUsage() {
+        return 96L + 20L * keys.length + 8L * closed.length;
+    }
+}
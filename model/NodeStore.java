@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * Search nodes addressed by index, kept on or off the heap
+ *
+ * @see NodeArena
+ * @see OffHeapNodeArena
+ */
+public interface NodeStore {
+    int NO_PARENT = -1;
+
+    /**
+     * @return the index of the new node
+     */
+    int add(long key, int parent, int g, int h);
+
+    long getKey(int node);
+
+    int getParent(int node);
+
+    int getG(int node);
+
+    int getH(int node);
+
+    default int getF(int node) {
+        return getG(node) + getH(node);
+    }
+
+    /**
+     * Record a shorter path to a node
+     */
+    void relax(int node, int parent, int g);
+
+    boolean isClosed(int node);
+
+    /**
+     * @return false if the node was closed already
+     */
+    boolean markClosed(int node);
+
+    int size();
+
+    void clear();
+
+    /**
+     * Approximate footprint in bytes
+     */
+    long memoryUsage();
+}
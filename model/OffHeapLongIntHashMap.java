@@ -0,0 +1,179 @@
+package model;
+
+import java.nio.ByteBuffer;
+
+/**
+ * {@link LongIntHashMap} with its table in direct memory, so that tables of hundreds of
+ * millions of entries neither count against the heap nor have to be traced by the garbage
+ * collector.
+ *
+ * Slots of 12 bytes (key, value) are spread over buffers of {@value #CHUNK_SLOTS} slots, so
+ * the table can grow beyond the 2 GB limit of a single buffer. Growing allocates a table of
+ * twice the size and drops the old one as soon as the entries are moved. {@link #close} drops
+ * the table; the map must not be used afterwards.
+ */
+public class OffHeapLongIntHashMap implements LongIntMap, AutoCloseable {
+    private static final float LOAD_FACTOR = 0.7f;
+    private static final int SLOT_BYTES = 12;
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_SLOTS = 1 << CHUNK_SHIFT;
+    private static final long MAX_CAPACITY = 1L << 31;
+
+    private final int missingValue;
+    private ByteBuffer[] chunks;
+    private long mask;
+    private long size;
+    private long resizeAt;
+    private boolean hasZeroKey;  // 0 marks empty slots, so key 0 is stored separately
+    private int zeroValue;
+
+    public OffHeapLongIntHashMap(int missingValue) {
+        this(1 << 16, missingValue);
+    }
+
+    public OffHeapLongIntHashMap(long expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        long needed = (long) Math.ceil(Math.max(expectedSize, 4) / LOAD_FACTOR);
+        allocate(Math.min(MAX_CAPACITY, Long.highestOneBit(needed - 1) << 1));
+    }
+
+    private void allocate(long capacity) {
+        int chunkCount = (int) Math.max(1, capacity >>> CHUNK_SHIFT);
+        int chunkSlots = (int) Math.min(capacity, CHUNK_SLOTS);
+        chunks = new ByteBuffer[chunkCount];
+        for (int i = 0; i < chunkCount; i++) {
+            chunks[i] = DirectMemory.allocate(chunkSlots * SLOT_BYTES);
+        }
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (long) (capacity * LOAD_FACTOR));
+    }
+
+    private long capacity() {
+        return mask + 1;
+    }
+
+    private long keyAt(long slot) {
+        return chunks[(int) (slot >>> CHUNK_SHIFT)].getLong((int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES);
+    }
+
+    private int valueAt(long slot) {
+        return chunks[(int) (slot >>> CHUNK_SHIFT)].getInt((int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES + 8);
+    }
+
+    private void setSlot(long slot, long key, int value) {
+        ByteBuffer chunk = chunks[(int) (slot >>> CHUNK_SHIFT)];
+        int offset = (int) (slot & (CHUNK_SLOTS - 1)) * SLOT_BYTES;
+        chunk.putLong(offset, key);
+        chunk.putInt(offset + 8, value);
+    }
+
+    private long slotFor(long key) {
+        return (LongHashSet.hash(key) & 0xFFFFFFFFL) & mask;
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it would go
+     */
+    private long find(long key) {
+        long slot = slotFor(key);
+        long existing;
+        while ((existing = keyAt(slot)) != 0L && existing != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @Override
+    public int get(long key) {
+        if (key == 0L) {
+            return hasZeroKey ? zeroValue : missingValue;
+        }
+        long slot = find(key);
+        return keyAt(slot) != 0L ? valueAt(slot) : missingValue;
+    }
+
+    @Override
+    public boolean containsKey(long key) {
+        if (key == 0L) {
+            return hasZeroKey;
+        }
+        return keyAt(find(key)) != 0L;
+    }
+
+    @Override
+    public int put(long key, int value) {
+        if (key == 0L) {
+            int previous = hasZeroKey ? zeroValue : missingValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        long slot = find(key);
+        if (keyAt(slot) != 0L) {
+            int previous = valueAt(slot);
+            setSlot(slot, key, value);
+            return previous;
+        }
+        setSlot(slot, key, value);
+        if (++size >= resizeAt) {
+            if (capacity() >= MAX_CAPACITY) {
+                throw new IllegalStateException("Off-heap map is full");
+            }
+            rehash(capacity() << 1);
+        }
+        return missingValue;
+    }
+
+    private void rehash(long newCapacity) {
+        ByteBuffer[] oldChunks = chunks;
+        long oldCapacity = capacity();
+        allocate(newCapacity);
+        int oldChunkSlots = (int) Math.min(oldCapacity, CHUNK_SLOTS);
+        for (ByteBuffer chunk : oldChunks) {
+            for (int i = 0; i < oldChunkSlots; i++) {
+                long key = chunk.getLong(i * SLOT_BYTES);
+                if (key != 0L) {
+                    long slot = slotFor(key);
+                    while (keyAt(slot) != 0L) {
+                        slot = (slot + 1) & mask;
+                    }
+                    setSlot(slot, key, chunk.getInt(i * SLOT_BYTES + 8));
+                }
+            }
+            DirectMemory.free(chunk);
+        }
+    }
+
+    /**
+     * @return the number of entries; capped at Integer.MAX_VALUE, see {@link #longSize}
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    public long longSize() {
+        return size;
+    }
+
+    @Override
+    public long memoryUsage() {
+        return capacity() * SLOT_BYTES;
+    }
+
+    /**
+     * Drop the table so that the collector can release it
+     */
+    @Override
+    public void close() {
+        if (chunks != null) {
+            for (ByteBuffer chunk : chunks) {
+                DirectMemory.free(chunk);
+            }
+            chunks = null;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package model;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * {@link NodeArena} in direct memory, so that a search over hundreds of millions of nodes
+ * leaves the heap small and gives the garbage collector nothing to trace.
+ *
+ * Nodes of 24 bytes (key, parent, g, h, closed flag) are appended to buffers of
+ * {@value #CHUNK_NODES} nodes. Growing adds a buffer and never copies the nodes already
+ * stored. {@link #close} drops all buffers; the arena must not be used afterwards.
+ */
+public class OffHeapNodeArena implements NodeStore, AutoCloseable {
+    private static final int NODE_BYTES = 24;
+    private static final int PARENT = 8;
+    private static final int COST = 12;
+    private static final int ESTIMATE = 16;
+    private static final int FLAGS = 20;
+    private static final int CHUNK_SHIFT = 20;
+    private static final int CHUNK_NODES = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_NODES - 1;
+
+    private ByteBuffer[] chunks = new ByteBuffer[16];
+    private int chunkCount;
+    private int size;
+
+    private ByteBuffer chunk(int node) {
+        return chunks[node >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(int node) {
+        return (node & CHUNK_MASK) * NODE_BYTES;
+    }
+
+    @Override
+    public int add(long key, int parent, int g, int h) {
+        if (size == Integer.MAX_VALUE) {
+            throw new IllegalStateException("Node arena is full");
+        }
+        if (size >>> CHUNK_SHIFT == chunkCount) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            }
+            chunks[chunkCount++] = DirectMemory.allocate(CHUNK_NODES * NODE_BYTES);
+        }
+        ByteBuffer chunk = chunk(size);
+        int offset = offset(size);
+        chunk.putLong(offset, key);
+        chunk.putInt(offset + PARENT, parent);
+        chunk.putInt(offset + COST, g);
+        chunk.putInt(offset + ESTIMATE, h);
+        chunk.putInt(offset + FLAGS, 0);
+        return size++;
+    }
+
+    @Override
+    public long getKey(int node) {
+        return chunk(node).getLong(offset(node));
+    }
+
+    @Override
+    public int getParent(int node) {
+        return chunk(node).getInt(offset(node) + PARENT);
+    }
+
+    @Override
+    public int getG(int node) {
+        return chunk(node).getInt(offset(node) + COST);
+    }
+
+    @Override
+    public int getH(int node) {
+        return chunk(node).getInt(offset(node) + ESTIMATE);
+    }
+
+    @Override
+    public void relax(int node, int parent, int g) {
+        ByteBuffer chunk = chunk(node);
+        int offset = offset(node);
+        chunk.putInt(offset + PARENT, parent);
+        chunk.putInt(offset + COST, g);
+    }
+
+    @Override
+    public boolean isClosed(int node) {
+        return chunk(node).getInt(offset(node) + FLAGS) != 0;
+    }
+
+    @Override
+    public boolean markClosed(int node) {
+        ByteBuffer chunk = chunk(node);
+        int offset = offset(node);
+        if (chunk.getInt(offset + FLAGS) != 0) {
+            return false;
+        }
+        chunk.putInt(offset + FLAGS, 1);
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Forget all nodes and keep the buffers for reuse
+     */
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return direct memory held in bytes
+     */
+    @Override
+    public long memoryUsage() {
+        return (long) chunkCount * CHUNK_NODES * NODE_BYTES;
+    }
+
+    /**
+     * Drop all buffers so that the collector can release them
+     */
+    @Override
+    public void close() {
+        for (int i = 0; i < chunkCount; i++) {
+            DirectMemory.free(chunks[i]);
+            chunks[i] = null;
+        }
+        chunkCount = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,262 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Layer-synchronous breadth-first search over every board reachable from a set of start
+ * boards, for level design and precomputation jobs rather than interactive solving.
+ *
+ * Each layer is cut into chunks that a {@link ForkJoinPool} expands in parallel. Every worker
+ * thread has its own {@link MoveGenerator}, new boards are deduplicated through a shared
+ * {@link ConcurrentLongHashSet}, and each chunk collects the boards it discovered in its own
+ * list, so the only shared writes are the set's striped locks. The lists of a layer are
+ * concatenated into the next frontier once all chunks are done.
+ *
+ * Only layouts whose boards pack into one long are supported, since the wide encoding
+ * interns keys per codec and would differ between threads.
+ *
+ * On mirror-symmetric layouts a board and its mirror image are one state by default, see
+ * {@link BoardCodec#canonical}; keys and layer sizes are then those of the canonical boards.
+ */
+public class ParallelBfs {
+    private static final int CHUNK_SIZE = 1024;
+    // Set slot at its worst load and while a stripe rehashes, plus two frontier slots
+    private static final int BYTES_PER_STATE = 48;
+
+    /**
+     * Receives every layer once it is complete
+     */
+    public interface LayerVisitor {
+        /**
+         * @param depth distance of the boards from the nearest start board
+         * @param keys  packed boards of the layer, valid in [0, count) during the call only
+         */
+        void visit(int depth, long[] keys, int count);
+    }
+
+    private final int[][] board;
+    private final int parallelism;
+    private final ThreadLocal<Worker> workers;
+
+    private final List<Long> layerSizes = new ArrayList<>();
+    private long stateCount;
+    private long elapsedMillis;
+    private boolean complete;
+    private long maxStates;
+    private boolean symmetryReduction = true;
+
+    private static final class Worker {
+        final MoveGenerator generator;
+        final MoveBuffer successors = new MoveBuffer();
+
+        Worker(int[][] board, int level) {
+            generator = MoveGenerator.forLevel(board, level);
+        }
+    }
+
+    /**
+     * @param board       any board of the layout to explore, used for its size, fixed cells
+     *                    and camps
+     * @param level       the level the board belongs to, for hidden camps, or -1
+     * @param parallelism number of worker threads
+     */
+    public ParallelBfs(int[][] board, int level, int parallelism) {
+        if (!new BoardCodec(board).isCompact()) {
+            throw new IllegalArgumentException("Parallel BFS needs a layout that packs into one long");
+        }
+        this.board = board;
+        this.parallelism = Math.max(1, parallelism);
+        this.workers = ThreadLocal.withInitial(() -> new Worker(board, level));
+        this.maxStates = Runtime.getRuntime().maxMemory() / 2 / BYTES_PER_STATE;
+    }
+
+    public ParallelBfs(int[][] board, int level) {
+        this(board, level, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Stop exploring once this many states have been found, the default keeps the search within
+     * half of the heap
+     */
+    public void setMaxStates(long maxStates) {
+        this.maxStates = maxStates;
+    }
+
+    /**
+     * Treat a board and its mirror image as one state on symmetric layouts (the default)
+     */
+    public void setSymmetryReduction(boolean enabled) {
+        this.symmetryReduction = enabled;
+    }
+
+    /**
+     * @return the key of a board in this explorer's encoding, canonical if symmetry reduction
+     *         is on
+     */
+    public long pack(int[][] source) {
+        BoardCodec codec = workers.get().generator.getCodec();
+        long key = codec.pack(source);
+        return symmetryReduction ? codec.canonical(key) : key;
+    }
+
+    /**
+     * @return true if the keys of the last exploration were canonical
+     */
+    public boolean isSymmetryReduced() {
+        return symmetryReduction && workers.get().generator.getCodec().isMirrorSymmetric();
+    }
+
+    /**
+     * Explore everything reachable from the start board given to the constructor
+     */
+    public boolean explore(LayerVisitor visitor) {
+        return explore(new long[]{pack(board)}, visitor);
+    }
+
+    /**
+     * Explore everything reachable from the given boards, which all form layer 0
+     *
+     * @param visitor receives each layer, may be null
+     * @return true if the whole reachable state space was enumerated, false if the state
+     *         budget ran out first
+     */
+    public boolean explore(long[] startKeys, LayerVisitor visitor) {
+        layerSizes.clear();
+        stateCount = 0;
+        complete = false;
+        long startTime = System.currentTimeMillis();
+
+        ConcurrentLongHashSet visited = new ConcurrentLongHashSet(1 << 20, parallelism);
+        LongArrayList first = new LongArrayList(startKeys.length);
+        for (long key : startKeys) {
+            if (visited.add(key)) {
+                first.add(key);
+            }
+        }
+        long[] frontier = new long[first.size()];
+        for (int i = 0; i < frontier.length; i++) {
+            frontier[i] = first.get(i);
+        }
+        int frontierSize = frontier.length;
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            int depth = 0;
+            while (frontierSize > 0) {
+                layerSizes.add((long) frontierSize);
+                stateCount += frontierSize;
+                if (visitor != null) {
+                    visitor.visit(depth, frontier, frontierSize);
+                }
+                if (stateCount >= maxStates) {
+                    elapsedMillis = System.currentTimeMillis() - startTime;
+                    return false;
+                }
+
+                int chunks = (frontierSize + CHUNK_SIZE - 1) / CHUNK_SIZE;
+                LongArrayList[] discovered = new LongArrayList[chunks];
+                pool.invoke(new ExpandTask(frontier, frontierSize, visited, discovered, 0, chunks));
+
+                int nextSize = 0;
+                for (LongArrayList chunk : discovered) {
+                    nextSize += chunk.size();
+                }
+                long[] next = new long[nextSize];
+                int offset = 0;
+                for (LongArrayList chunk : discovered) {
+                    for (int i = 0; i < chunk.size(); i++) {
+                        next[offset++] = chunk.get(i);
+                    }
+                }
+                frontier = next;
+                frontierSize = nextSize;
+                depth++;
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        complete = true;
+        elapsedMillis = System.currentTimeMillis() - startTime;
+        return true;
+    }
+
+    /**
+     * Expands the chunks [fromChunk, toChunk) of a layer, splitting in halves down to one chunk
+     */
+    private final class ExpandTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] frontier;
+        private final int frontierSize;
+        private final ConcurrentLongHashSet visited;
+        private final LongArrayList[] discovered;
+        private final int fromChunk;
+        private final int toChunk;
+
+        ExpandTask(long[] frontier, int frontierSize, ConcurrentLongHashSet visited,
+                   LongArrayList[] discovered, int fromChunk, int toChunk) {
+            this.frontier = frontier;
+            this.frontierSize = frontierSize;
+            this.visited = visited;
+            this.discovered = discovered;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int middle = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ExpandTask(frontier, frontierSize, visited, discovered, fromChunk, middle),
+                        new ExpandTask(frontier, frontierSize, visited, discovered, middle, toChunk));
+                return;
+            }
+            Worker worker = workers.get();
+            worker.generator.setCanonical(symmetryReduction);
+            LongArrayList found = new LongArrayList(CHUNK_SIZE * 2);
+            int end = Math.min(frontierSize, (fromChunk + 1) * CHUNK_SIZE);
+            for (int i = fromChunk * CHUNK_SIZE; i < end; i++) {
+                worker.generator.load(frontier[i]);
+                worker.generator.generate(worker.successors);
+                for (int m = 0; m < worker.successors.size(); m++) {
+                    long key = worker.successors.getKey(m);
+                    if (visited.add(key)) {
+                        found.add(key);
+                    }
+                }
+            }
+            discovered[fromChunk] = found;
+        }
+    }
+
+    /**
+     * @return the number of boards at each depth of the last exploration
+     */
+    public List<Long> getLayerSizes() {
+        return Collections.unmodifiableList(layerSizes);
+    }
+
+    public long getStateCount() {
+        return stateCount;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return true if the last exploration reached every reachable board
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+}
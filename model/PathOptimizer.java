@@ -0,0 +1,307 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shortens a solution after the search, for the detours that weighted, greedy and beam
+ * searches leave in their paths. It never searches the whole board again:
+ *
+ * - Cycles: the path is replayed, and wherever a board comes back, the moves between its two
+ *   visits are cut.
+ * - Shortcuts: from every board of the path, a breadth-first search of at most window moves
+ *   and max states boards looks for a later board of the path that it reaches in fewer moves
+ *   than the path takes, and splices that way in.
+ * - Merges: a run of moves of one piece is moved next to an earlier or later run of the same
+ *   piece when the moves in between do not touch it, so that the two count as one move under
+ *   {@link MoveMetric#PIECE}. The number of cell moves stays the same.
+ *
+ * The result is a legal path from the same board to the goal and never longer than the input
+ * in either metric. Boards are compared by a hash of their cells and, on a match, cell by cell.
+ */
+public class PathOptimizer {
+    public static final int DEFAULT_WINDOW = 10;
+    public static final int DEFAULT_MAX_STATES = 1000;
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    private final int[][] board;
+    private final MoveGenerator generator;
+    private int window = DEFAULT_WINDOW;
+    private int maxStates = DEFAULT_MAX_STATES;
+
+    // The path being optimized: boards[i] is the board before moves[i], pieces[i] the piece moved
+    private List<AISolver.Move> moves;
+    private int[][][] boards;
+    private long[] hashes;
+    private int[] pieces;
+    private LongIntHashMap pathIndex;  // last index of each board's hash
+
+    public PathOptimizer(int[][] board, int level) {
+        this.board = copy(board);
+        this.generator = MoveGenerator.forLevel(board, level);
+    }
+
+    /**
+     * Look for shortcuts of at most this many moves; 0 turns the shortcut searches off
+     */
+    public void setWindow(int window) {
+        this.window = Math.max(0, window);
+    }
+
+    /**
+     * Stop each shortcut search after this many boards
+     */
+    public void setMaxStates(int maxStates) {
+        this.maxStates = Math.max(1, maxStates);
+    }
+
+    /**
+     * @param solution a legal path from the optimizer's board
+     * @return the shortened path
+     * @throws IllegalArgumentException if a move of the solution is not legal
+     */
+    public List<AISolver.Move> optimize(List<AISolver.Move> solution) {
+        moves = new ArrayList<>(solution);
+        replay();
+        cutCycles();
+        if (window > 1) {
+            for (int i = 0; i < moves.size() - 1; i++) {
+                if (shortcut(i)) {
+                    cutCycles();
+                }
+            }
+        }
+        mergePieceMoves();
+        List<AISolver.Move> result = moves;
+        moves = null;
+        boards = null;
+        return result;
+    }
+
+    /**
+     * @return the number of moves of a path under the piece metric: runs of moves of one piece
+     */
+    public int countPieceMoves(List<AISolver.Move> solution) {
+        moves = new ArrayList<>(solution);
+        replay();
+        int count = countRuns(pieces, 0, pieces.length);
+        moves = null;
+        boards = null;
+        return count;
+    }
+
+    /**
+     * Play the moves from the start board, filling boards, hashes and pieces
+     */
+    private void replay() {
+        int n = moves.size();
+        boards = new int[n + 1][][];
+        hashes = new long[n + 1];
+        pieces = new int[n];
+        generator.load(board);
+        for (int i = 0; i < n; i++) {
+            boards[i] = copy(generator.getBoard());
+            hashes[i] = BoardCodec.hashCells(boards[i]);
+            AISolver.Move move = moves.get(i);
+            int piece = generator.findPiece(move.row, move.col);
+            if (piece < 0 || generator.getPieceRow(piece) != move.row || generator.getPieceCol(piece) != move.col
+                    || !generator.canMove(piece, move.direction)) {
+                throw new IllegalArgumentException("Illegal move " + i + ": " + move);
+            }
+            pieces[i] = piece;
+            generator.apply(piece, move.direction);
+        }
+        boards[n] = copy(generator.getBoard());
+        hashes[n] = BoardCodec.hashCells(boards[n]);
+        pathIndex = new LongIntHashMap(n + 1, -1);
+        for (int i = 0; i <= n; i++) {
+            pathIndex.put(hashes[i], i);
+        }
+    }
+
+    private void cutCycles() {
+        List<AISolver.Move> shorter = new ArrayList<>();
+        int i = 0;
+        while (i < moves.size()) {
+            int later = pathIndex.get(hashes[i]);
+            if (later > i && Arrays.deepEquals(boards[i], boards[later])) {
+                i = later;
+                continue;
+            }
+            shorter.add(moves.get(i));
+            i++;
+        }
+        if (shorter.size() < moves.size()) {
+            moves = shorter;
+            replay();
+        }
+    }
+
+    /**
+     * Search up to window moves from boards[start] for the latest board of the path that it
+     * reaches in fewer moves than the path, and take that way
+     *
+     * @return true if the path changed
+     */
+    private boolean shortcut(int start) {
+        // Breadth-first, each node with its board, parent, move and depth
+        List<int[][]> nodeBoards = new ArrayList<>();
+        int[] parents = new int[maxStates];
+        int[] nodeMoves = new int[maxStates];
+        int[] depths = new int[maxStates];
+        LongHashSet seen = new LongHashSet(maxStates * 2);
+        nodeBoards.add(boards[start]);
+        seen.add(hashes[start]);
+        int bestNode = -1;
+        int bestTarget = -1;
+        int bestSaving = 0;
+        for (int node = 0; node < nodeBoards.size() && depths[node] < window; node++) {
+            generator.load(nodeBoards.get(node));
+            for (int piece = 0; piece < generator.getPieceCount(); piece++) {
+                for (Direction direction : DIRECTIONS) {
+                    if (!generator.canMove(piece, direction)) {
+                        continue;
+                    }
+                    int row = generator.getPieceRow(piece);
+                    int col = generator.getPieceCol(piece);
+                    generator.apply(piece, direction);
+                    long hash = BoardCodec.hashCells(generator.getBoard());
+                    int depth = depths[node] + 1;
+                    int index = nodeBoards.size();
+                    if (index < maxStates && seen.add(hash)) {
+                        parents[index] = node;
+                        nodeMoves[index] = row << 16 | col << 8 | direction.ordinal();
+                        depths[index] = depth;
+                        nodeBoards.add(copy(generator.getBoard()));
+                        int target = pathIndex.get(hash);
+                        if (target - start - depth > bestSaving
+                                && Arrays.deepEquals(generator.getBoard(), boards[target])) {
+                            bestSaving = target - start - depth;
+                            bestTarget = target;
+                            bestNode = index;
+                        }
+                    }
+                    generator.undo(piece, direction);
+                }
+            }
+        }
+        if (bestNode < 0) {
+            return false;
+        }
+        List<AISolver.Move> way = new ArrayList<>();
+        for (int node = bestNode; node != 0; node = parents[node]) {
+            int move = nodeMoves[node];
+            way.add(new AISolver.Move(move >>> 16, move >>> 8 & 0xFF, DIRECTIONS[move & 0xFF]));
+        }
+        Collections.reverse(way);
+        List<AISolver.Move> shorter = new ArrayList<>(moves.subList(0, start));
+        shorter.addAll(way);
+        shorter.addAll(moves.subList(bestTarget, moves.size()));
+        // Fewer cell moves may still be more piece moves; keep the path then
+        List<AISolver.Move> original = moves;
+        int runs = countRuns(pieces, 0, pieces.length);
+        moves = shorter;
+        replay();
+        if (countRuns(pieces, 0, pieces.length) > runs) {
+            moves = original;
+            replay();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Bring runs of one piece together where the moves between them allow it
+     */
+    private void mergePieceMoves() {
+        int runStart = 0;
+        while (runStart < moves.size()) {
+            int runEnd = runStart + 1;
+            while (runEnd < moves.size() && pieces[runEnd] == pieces[runStart]) {
+                runEnd++;
+            }
+            int previous = runStart - 1;
+            while (previous >= 0 && pieces[previous] != pieces[runStart]) {
+                previous--;
+            }
+            // Move this run back behind the earlier one, or the earlier one forward to this;
+            // either way nothing before the earlier run changes
+            int previousStart = previous + 1 - (previous >= 0 ? runLength(previous) : 0);
+            if (previous >= 0 && (reorder(previous + 1, runStart, runEnd)
+                    || reorder(previousStart, previous + 1, runStart))) {
+                runStart = previousStart;
+            } else {
+                runStart = runEnd;
+            }
+        }
+    }
+
+    private int runLength(int end) {
+        int start = end;
+        while (start > 0 && pieces[start - 1] == pieces[end]) {
+            start--;
+        }
+        return end - start + 1;
+    }
+
+    /**
+     * Swap the blocks of moves [from, middle) and [middle, to) if the swapped order is legal
+     * and ends on the same board
+     */
+    private boolean reorder(int from, int middle, int to) {
+        List<AISolver.Move> swapped = new ArrayList<>(moves.subList(middle, to));
+        swapped.addAll(moves.subList(from, middle));
+        generator.load(boards[from]);
+        for (AISolver.Move move : swapped) {
+            int piece = generator.findPiece(move.row, move.col);
+            if (piece < 0 || generator.getPieceRow(piece) != move.row || generator.getPieceCol(piece) != move.col
+                    || !generator.canMove(piece, move.direction)) {
+                return false;
+            }
+            generator.apply(piece, move.direction);
+        }
+        if (!Arrays.deepEquals(generator.getBoard(), boards[to])) {
+            return false;
+        }
+        // The same pieces move, in the new order; only the boards in between change
+        int[] reordered = pieces.clone();
+        System.arraycopy(pieces, middle, reordered, from, to - middle);
+        System.arraycopy(pieces, from, reordered, from + to - middle, middle - from);
+        int lo = Math.max(0, from - 1);
+        int hi = Math.min(pieces.length, to + 1);
+        if (countRuns(reordered, lo, hi) >= countRuns(pieces, lo, hi)) {
+            return false;
+        }
+        pieces = reordered;
+        generator.load(boards[from]);
+        for (int i = from; i < to; i++) {
+            moves.set(i, swapped.get(i - from));
+            boards[i] = copy(generator.getBoard());
+            hashes[i] = BoardCodec.hashCells(boards[i]);
+            AISolver.Move move = moves.get(i);
+            generator.apply(generator.findPiece(move.row, move.col), move.direction);
+        }
+        return true;
+    }
+
+    private static int countRuns(int[] pieces, int from, int to) {
+        int runs = 0;
+        for (int i = from; i < to; i++) {
+            if (i == from || pieces[i] != pieces[i - 1]) {
+                runs++;
+            }
+        }
+        return runs;
+    }
+
+    private static int[][] copy(int[][] board) {
+        int[][] copy = new int[board.length][];
+        for (int r = 0; r < board.length; r++) {
+            copy[r] = board[r].clone();
+        }
+        return copy;
+    }
+}
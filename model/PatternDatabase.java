@@ -0,0 +1,245 @@
+package model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Exact distances in a relaxed puzzle that keeps only some piece types, one table of a
+ * {@link PatternDatabaseHeuristic}.
+ *
+ * A board is projected by removing every piece whose type is not in the pattern. Moves of the
+ * counted types cost one and moves of the other kept types are free, so databases whose
+ * counted types do not overlap can be added up: every real move is paid for by at most one of
+ * them. Pieces of one type are interchangeable in a packed key, so a pattern always holds
+ * every piece of a type.
+ *
+ * The table covers the projections reachable from the level's start board and is filled by a
+ * 0-1 BFS from all goal boards among them. Any other projection estimates 0.
+ *
+ * Instances project into scratch buffers and are not thread-safe; {@link #copy} shares the
+ * table with a new one.
+ */
+public class PatternDatabase {
+    private static final int MAX_DISTANCE = 0xFE;
+
+    private final int[][] board;
+    private final int level;
+    private final int countedTypes;  // one bit per piece type
+    private final int contextTypes;
+    private final MoveGenerator generator;  // on the relaxed layout
+    private final BoardCodec codec;
+    private final int[][] projection;
+    private long[] keys;    // sorted
+    private byte[] values;  // distance per key
+
+    private PatternDatabase(int[][] board, int level, int countedTypes, int contextTypes) {
+        this.board = board;
+        this.level = level;
+        this.countedTypes = countedTypes;
+        this.contextTypes = contextTypes;
+        MoveGenerator full = MoveGenerator.forLevel(board, level);
+        this.projection = new int[board.length][board[0].length];
+        project(full.getCodec(), board);
+        this.generator = MoveGenerator.forLevel(projection, level);
+        this.codec = generator.getCodec();
+    }
+
+    static int typeMask(int... types) {
+        int mask = 0;
+        for (int type : types) {
+            mask |= 1 << type;
+        }
+        return mask;
+    }
+
+    /**
+     * Compute the table for a level's start board
+     *
+     * @return null if the relaxed puzzle has more than maxStates boards
+     */
+    static PatternDatabase build(int[][] board, int level, int countedTypes, int contextTypes, int maxStates) {
+        PatternDatabase database = new PatternDatabase(board, level, countedTypes, contextTypes);
+        MoveGenerator generator = database.generator;
+        if (!database.codec.isCompact()) {
+            return null;
+        }
+        MoveBuffer moves = new MoveBuffer();
+
+        // All relaxed boards reachable from the start; moves can be undone, so the goals
+        // among them reach all of them backwards as well
+        LongArrayList states = new LongArrayList();
+        LongHashSet seen = new LongHashSet();
+        states.add(generator.getKey());
+        seen.add(generator.getKey());
+        for (int i = 0; i < states.size(); i++) {
+            generator.load(states.get(i));
+            generator.generate(moves);
+            for (int m = 0; m < moves.size(); m++) {
+                if (seen.add(moves.getKey(m))) {
+                    if (seen.size() > maxStates) {
+                        return null;
+                    }
+                    states.add(moves.getKey(m));
+                }
+            }
+        }
+
+        LongIntHashMap distances = new LongIntHashMap(states.size(), Integer.MAX_VALUE);
+        LongArrayList current = new LongArrayList();
+        LongArrayList next = new LongArrayList();
+        for (int i = 0; i < states.size(); i++) {
+            generator.load(states.get(i));
+            if (generator.isGoal()) {
+                distances.put(states.get(i), 0);
+                current.add(states.get(i));
+            }
+        }
+        for (int depth = 0; !current.isEmpty(); depth++) {
+            // Free moves append to the layer being expanded, paid ones to the next
+            for (int i = 0; i < current.size(); i++) {
+                long key = current.get(i);
+                if (distances.get(key) != depth) {
+                    continue;
+                }
+                generator.load(key);
+                generator.generate(moves);
+                for (int m = 0; m < moves.size(); m++) {
+                    boolean paid = (countedTypes & 1 << generator.getPieceType(moves.getPiece(m))) != 0;
+                    int distance = paid ? depth + 1 : depth;
+                    if (distance < distances.get(moves.getKey(m))) {
+                        distances.put(moves.getKey(m), distance);
+                        (paid ? next : current).add(moves.getKey(m));
+                    }
+                }
+            }
+            LongArrayList swap = current;
+            current = next;
+            next = swap;
+            next.clear();
+        }
+
+        long[] keys = new long[states.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = states.get(i);
+        }
+        Arrays.sort(keys);
+        byte[] values = new byte[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            // Rounding a long distance down keeps the bound admissible
+            values[i] = (byte) Math.min(distances.get(keys[i]), MAX_DISTANCE);
+        }
+        database.keys = keys;
+        database.values = values;
+        return database;
+    }
+
+    /**
+     * @return a database with the same table and its own scratch buffers
+     */
+    PatternDatabase copy() {
+        PatternDatabase copy = new PatternDatabase(board, level, countedTypes, contextTypes);
+        copy.keys = keys;
+        copy.values = values;
+        return copy;
+    }
+
+    /**
+     * Copy the board into the projection, emptying cells of pieces outside the pattern
+     */
+    private void project(BoardCodec source, int[][] board) {
+        int cols = board[0].length;
+        for (int r = 0; r < board.length; r++) {
+            for (int c = 0; c < cols; c++) {
+                int type = board[r][c];
+                int cell = r * cols + c;
+                boolean piece = type >= MapModel.CAO_CAO && type <= MapModel.ZHOU_YU;
+                if (piece && !source.isFixedCell(cell) && ((countedTypes | contextTypes) & 1 << type) == 0) {
+                    type = source.isCampCell(cell) ? MapModel.MILITARY_CAMP : 0;
+                }
+                projection[r][c] = type;
+            }
+        }
+    }
+
+    /**
+     * @return the relaxed distance of the generator's board, a lower bound on the moves of
+     *         the counted pieces
+     */
+    int estimate(MoveGenerator board) {
+        project(codec, board.getBoard());
+        int index = Arrays.binarySearch(keys, codec.pack(projection));
+        return index >= 0 ? values[index] & 0xFF : 0;
+    }
+
+    int getCountedTypes() {
+        return countedTypes;
+    }
+
+    int getContextTypes() {
+        return contextTypes;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    /**
+     * @return the largest distance in the table
+     */
+    int getMaxDistance() {
+        int max = 0;
+        for (byte value : values) {
+            max = Math.max(max, value & 0xFF);
+        }
+        return max;
+    }
+
+    /**
+     * Write the type masks, then the sorted keys as variable-length deltas and the distances
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeInt(countedTypes);
+        out.writeInt(contextTypes);
+        out.writeInt(keys.length);
+        long previous = 0;
+        for (long key : keys) {
+            long delta = key - previous;
+            while ((delta & ~0x7FL) != 0) {
+                out.writeByte((int) (delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            out.writeByte((int) delta);
+            previous = key;
+        }
+        out.write(values);
+    }
+
+    static PatternDatabase read(DataInputStream in, int[][] board, int level) throws IOException {
+        PatternDatabase database = new PatternDatabase(board, level, in.readInt(), in.readInt());
+        int count = in.readInt();
+        if (count < 0 || !database.codec.isCompact()) {
+            throw new IOException("Corrupt pattern database");
+        }
+        long[] keys = new long[count];
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = in.readUnsignedByte();
+                delta |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0 && shift < 64);
+            previous += delta;
+            keys[i] = previous;
+        }
+        byte[] values = new byte[count];
+        in.readFully(values);
+        database.keys = keys;
+        database.values = values;
+        return database;
+    }
+}
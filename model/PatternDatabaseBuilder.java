@@ -0,0 +1,39 @@
+package model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Offline tool that writes the pattern databases of each level for
+ * {@link PatternDatabaseHeuristic}, next to the hint databases. The game ships a copy of them
+ * in resource/hintdb; after changing a level, run this and copy the files there, since
+ * databases whose layout hash does not match are ignored. The output is the same on every run.
+ *
+ * Usage: java model.PatternDatabaseBuilder [level...]   (all levels when none are given)
+ */
+public class PatternDatabaseBuilder {
+
+    public static void main(String[] args) throws IOException {
+        int[] levels;
+        if (args.length == 0) {
+            levels = new int[MapModel.LEVELS.length];
+            for (int i = 0; i < levels.length; i++) {
+                levels[i] = i;
+            }
+        } else {
+            levels = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        }
+        for (int level : levels) {
+            long startTime = System.currentTimeMillis();
+            PatternDatabaseHeuristic heuristic = PatternDatabaseHeuristic.build(level, PatternDatabaseHeuristic.DEFAULT_MAX_STATES);
+            File file = PatternDatabaseHeuristic.fileFor(level);
+            heuristic.write(file);
+            System.out.println("Level " + level + ": " + file.length() + " bytes, "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+            for (String line : heuristic.describe()) {
+                System.out.println("  " + line);
+            }
+        }
+    }
+}
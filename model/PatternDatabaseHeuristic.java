@@ -0,0 +1,299 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Additive pattern databases of one level, see {@link PatternDatabase}.
+ *
+ * The first database counts the moves of Cao Cao and of the piece types found in its exit
+ * corridor (the columns below it on the start board), as many of them as fit the size limit.
+ * Every other piece type gets a database of its own that keeps Cao Cao as a free piece, so
+ * it counts the moves needed to clear the way. The estimate is the sum of all of them, or the
+ * {@link CaoCaoDistanceHeuristic} if that is higher.
+ *
+ * Tables are loaded once per level and shared; every instance has its own scratch buffers and
+ * must stay on one thread. They are read from hintdb/ in the working directory when
+ * {@link PatternDatabaseBuilder} wrote them there, else from the copies shipped in
+ * resource/hintdb on the class path. Both carry a hash of the level layout, so databases of an
+ * edited level are ignored rather than misused.
+ *
+ * File layout (big-endian): magic number, format version, level, board size, a hash of the
+ * level layout, the number of databases, then each database.
+ */
+public class PatternDatabaseHeuristic implements Heuristic {
+    static final int MAGIC = 0x4B504442;  // "KPDB"
+    static final int VERSION = 1;
+    /**
+     * States enumerated per pattern database by default, see {@link #build}
+     */
+    public static final int DEFAULT_MAX_STATES = 4_000_000;
+
+    private static final Map<Integer, PatternDatabaseHeuristic> LOADED = new HashMap<>();
+
+    private final int level;
+    private final List<PatternDatabase> databases;
+    private final CaoCaoDistanceHeuristic caoCaoDistance;
+
+    private PatternDatabaseHeuristic(int level, List<PatternDatabase> databases) {
+        this.level = level;
+        this.databases = databases;
+        this.caoCaoDistance = new CaoCaoDistanceHeuristic(MoveGenerator.forLevel(MapModel.LEVELS[level], level).getCodec());
+    }
+
+    static File fileFor(int level) {
+        return new File("hintdb", "level" + level + ".pdb");
+    }
+
+    static String resourceFor(int level) {
+        return "/resource/hintdb/level" + level + ".pdb";
+    }
+
+    /**
+     * @return the databases of a level, or null if they were not built or do not match the
+     *         level's layout
+     */
+    public static PatternDatabaseHeuristic forLevel(int level) {
+        PatternDatabaseHeuristic loaded = loaded(level);
+        return loaded != null ? loaded.copy() : null;
+    }
+
+    private static synchronized PatternDatabaseHeuristic loaded(int level) {
+        if (level < 0 || level >= MapModel.LEVELS.length) {
+            return null;
+        }
+        if (LOADED.containsKey(level)) {
+            return LOADED.get(level);
+        }
+        PatternDatabaseHeuristic heuristic = null;
+        File file = fileFor(level);
+        if (file.isFile()) {
+            try {
+                heuristic = read(file, level);
+            } catch (IOException e) {
+                System.err.println("Ignoring pattern databases " + file + ": " + e.getMessage());
+            }
+        }
+        if (heuristic == null) {
+            try (InputStream in = PatternDatabaseHeuristic.class.getResourceAsStream(resourceFor(level))) {
+                if (in != null) {
+                    heuristic = read(in, level);
+                }
+            } catch (IOException e) {
+                System.err.println("Ignoring pattern databases " + resourceFor(level) + ": " + e.getMessage());
+            }
+        }
+        LOADED.put(level, heuristic);
+        return heuristic;
+    }
+
+    /**
+     * @return an admissible heuristic for boards of the level: its pattern databases if there
+     *         are any for the board's layout, else the Cao Cao distance
+     */
+    public static Heuristic bestFor(int[][] board, int level) {
+        PatternDatabaseHeuristic heuristic = forLevel(level);
+        if (heuristic != null && heuristic.accepts(board)) {
+            return heuristic;
+        }
+        return new CaoCaoDistanceHeuristic(MoveGenerator.forLevel(board, level).getCodec());
+    }
+
+    /**
+     * Compute the databases of a level, each limited to maxStates relaxed boards
+     */
+    public static PatternDatabaseHeuristic build(int level, int maxStates) {
+        int[][] board = MapModel.LEVELS[level];
+        int caoCao = PatternDatabase.typeMask(MapModel.CAO_CAO);
+
+        // Piece types by the number of corridor cells they cover
+        int[] corridorCells = new int[MapModel.ZHOU_YU + 1];
+        int rows = board.length;
+        int cols = board[0].length;
+        int goalCol = (cols - 2) / 2;
+        int top = rows;
+        for (int r = rows - 1; r >= 0; r--) {
+            if (board[r][goalCol] == MapModel.CAO_CAO || board[r][goalCol + 1] == MapModel.CAO_CAO) {
+                top = r + 1;
+                break;
+            }
+        }
+        for (int r = Math.min(top, rows); r < rows; r++) {
+            for (int c = goalCol; c < goalCol + 2; c++) {
+                if (board[r][c] > MapModel.CAO_CAO && board[r][c] <= MapModel.ZHOU_YU) {
+                    corridorCells[board[r][c]]++;
+                }
+            }
+        }
+        List<Integer> types = new ArrayList<>();
+        for (int type = MapModel.GUAN_YU; type <= MapModel.ZHOU_YU; type++) {
+            if (contains(board, type)) {
+                types.add(type);
+            }
+        }
+        types.sort((a, b) -> corridorCells[b] - corridorCells[a]);
+
+        int counted = caoCao;
+        PatternDatabase corridor = PatternDatabase.build(board, level, counted, 0, maxStates);
+        List<Integer> rest = new ArrayList<>();
+        for (int type : types) {
+            PatternDatabase larger = corridorCells[type] > 0
+                    ? PatternDatabase.build(board, level, counted | 1 << type, 0, maxStates) : null;
+            if (larger != null) {
+                corridor = larger;
+                counted |= 1 << type;
+            } else {
+                rest.add(type);
+            }
+        }
+
+        List<PatternDatabase> databases = new ArrayList<>();
+        if (corridor != null) {
+            databases.add(corridor);
+        }
+        for (int type : rest) {
+            PatternDatabase database = PatternDatabase.build(board, level, 1 << type, caoCao, maxStates);
+            if (database != null) {
+                databases.add(database);
+            }
+        }
+        return new PatternDatabaseHeuristic(level, databases);
+    }
+
+    /**
+     * @return an instance sharing the tables, for another thread
+     */
+    public PatternDatabaseHeuristic copy() {
+        List<PatternDatabase> copies = new ArrayList<>();
+        for (PatternDatabase database : databases) {
+            copies.add(database.copy());
+        }
+        return new PatternDatabaseHeuristic(level, copies);
+    }
+
+    private static boolean contains(int[][] board, int type) {
+        for (int[] row : board) {
+            for (int cell : row) {
+                if (cell == type) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the board has the layout the databases were built for
+     */
+    public boolean accepts(int[][] board) {
+        int[][] layout = MapModel.LEVELS[level];
+        return board.length == layout.length && board[0].length == layout[0].length
+                && MoveGenerator.forLevel(board, level).getCodec().getLayoutSignature()
+                == MoveGenerator.forLevel(layout, level).getCodec().getLayoutSignature();
+    }
+
+    @Override
+    public int estimate(MoveGenerator generator) {
+        int sum = 0;
+        for (PatternDatabase database : databases) {
+            sum += database.estimate(generator);
+        }
+        return Math.max(sum, caoCaoDistance.estimate(generator));
+    }
+
+    @Override
+    public boolean isAdmissible() {
+        return true;
+    }
+
+    @Override
+    public String getName() {
+        return "Pattern databases";
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * @return one line per database: counted and free piece types, size and largest distance
+     */
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (PatternDatabase database : databases) {
+            lines.add(String.format("counted %s, free %s: %d boards, max %d",
+                    typeNames(database.getCountedTypes()), typeNames(database.getContextTypes()),
+                    database.size(), database.getMaxDistance()));
+        }
+        return lines;
+    }
+
+    private static String typeNames(int mask) {
+        String[] names = {"", "CaoCao", "GuanYu", "General", "Soldier", "ZhouYu"};
+        List<String> parts = new ArrayList<>();
+        for (int type = MapModel.CAO_CAO; type <= MapModel.ZHOU_YU; type++) {
+            if ((mask & 1 << type) != 0) {
+                parts.add(names[type]);
+            }
+        }
+        return parts.isEmpty() ? "-" : String.join("+", parts);
+    }
+
+    public void write(File file) throws IOException {
+        int[][] layout = MapModel.LEVELS[level];
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(level);
+            out.writeInt(layout.length);
+            out.writeInt(layout[0].length);
+            out.writeInt(HintDatabase.layoutHash(layout));
+            out.writeInt(databases.size());
+            for (PatternDatabase database : databases) {
+                database.write(out);
+            }
+        }
+    }
+
+    public static PatternDatabaseHeuristic read(File file, int level) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return read(in, level);
+        }
+    }
+
+    /**
+     * Read databases written by {@link #write}; the stream is not closed
+     */
+    public static PatternDatabaseHeuristic read(InputStream stream, int level) throws IOException {
+        int[][] layout = MapModel.LEVELS[level];
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a pattern database file");
+        }
+        if (in.readInt() != level || in.readInt() != layout.length || in.readInt() != layout[0].length
+                || in.readInt() != HintDatabase.layoutHash(layout)) {
+            throw new IOException("Pattern databases were built for a different layout");
+        }
+        int count = in.readInt();
+        List<PatternDatabase> databases = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            databases.add(PatternDatabase.read(in, layout, level));
+        }
+        return new PatternDatabaseHeuristic(level, databases);
+    }
+}
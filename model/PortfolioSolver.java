@@ -0,0 +1,415 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Races several search strategies on one board, each on a thread of its own, and takes the
+ * first solution of acceptable length. The other strategies are cancelled as soon as there is
+ * a winner.
+ *
+ * Which strategy wins depends on the layout: the greedy ones tend to win on open boards, the
+ * exhaustive ones on tight boards where the heuristic says little. The runner keeps per-level
+ * statistics of every strategy (runs, wins, solutions and how long they took) for tuning the
+ * portfolio of each level.
+ *
+ * Usage: java model.PortfolioSolver [seconds] [level...]
+ */
+public class PortfolioSolver {
+
+    /**
+     * One way of solving a board
+     */
+    public interface Strategy {
+        String getName();
+
+        /**
+         * @param board a copy of the board that the strategy may keep
+         * @return a solution, or null if there is none or the control stopped the search
+         */
+        List<AISolver.Move> solve(int[][] board, int level, SearchControl control);
+    }
+
+    /**
+     * A* with the level's default heuristic, solutions are shortest
+     */
+    public static Strategy aStar() {
+        return strategy("A*", (board, level, control) -> {
+            MapModel model = new MapModel(level);
+            model.setMatrix(board);
+            AISolver solver = new AISolver(model);
+            return solver.findSolution(control) ? new ArrayList<>(solver.getSolutionMoves(Integer.MAX_VALUE)) : null;
+        });
+    }
+
+    /**
+     * One run of weighted A*, f = g + weight / 10 * h
+     */
+    public static Strategy weightedAStar(int weightTenths) {
+        return strategy("Weighted A* " + weightTenths / 10.0, (board, level, control) -> {
+            AnytimeSolver solver = new AnytimeSolver(board, level);
+            solver.setWeights(weightTenths);
+            return solver.solve(control, null) ? solver.getSolution() : null;
+        });
+    }
+
+    /**
+     * Greedy best-first search, guided by the heuristic alone
+     */
+    public static Strategy greedy() {
+        return strategy("Greedy", (board, level, control) -> {
+            AnytimeSolver solver = new AnytimeSolver(board, level);
+            solver.setWeights(10_000);
+            return solver.solve(control, null) ? solver.getSolution() : null;
+        });
+    }
+
+    /**
+     * Bidirectional BFS, shortest in cell moves and blind to the heuristic
+     */
+    public static Strategy bidirectionalBfs() {
+        return strategy("Bidirectional BFS", (board, level, control) -> {
+            BidirectionalSolver solver = new BidirectionalSolver(board, level, MoveMetric.CELL);
+            return solver.solve(control) ? solver.getSolution() : null;
+        });
+    }
+
+    public static Strategy idaStar() {
+        return strategy("IDA*", (board, level, control) -> {
+            IdaStarSolver solver = new IdaStarSolver(board, level);
+            return solver.solve(control) ? solver.getSolution() : null;
+        });
+    }
+
+    /**
+     * Beam search of the given width, quick but rarely shortest
+     */
+    public static Strategy beamSearch(int width) {
+        return strategy("Beam " + width, (board, level, control) -> {
+            BeamSearchSolver solver = new BeamSearchSolver(board, level);
+            solver.setBeamWidth(width);
+            return solver.solve(control) ? solver.getSolution() : null;
+        });
+    }
+
+    private interface Search {
+        List<AISolver.Move> solve(int[][] board, int level, SearchControl control);
+    }
+
+    private static Strategy strategy(String name, Search search) {
+        return new Strategy() {
+            @Override
+            public String getName() {
+                return name;
+            }
+
+            @Override
+            public List<AISolver.Move> solve(int[][] board, int level, SearchControl control) {
+                return search.solve(board, level, control);
+            }
+        };
+    }
+
+    /**
+     * @return A*, weighted A* with weight 3, greedy best-first, bidirectional BFS and a beam
+     *         search of the default width
+     */
+    public static List<Strategy> defaultStrategies() {
+        return Arrays.asList(aStar(), weightedAStar(30), greedy(), bidirectionalBfs(),
+                beamSearch(BeamSearchSolver.DEFAULT_BEAM_WIDTH));
+    }
+
+    /**
+     * Results of one strategy on one level
+     */
+    public static class Stats {
+        private final String name;
+        private int runs;
+        private int wins;
+        private int solved;
+        private long totalMillis;
+        private long maxMillis;
+
+        Stats(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return the races the strategy took part in
+         */
+        public synchronized int getRuns() {
+            return runs;
+        }
+
+        public synchronized int getWins() {
+            return wins;
+        }
+
+        /**
+         * @return the races in which it returned a solution before it was cancelled
+         */
+        public synchronized int getSolved() {
+            return solved;
+        }
+
+        /**
+         * @return mean time to a solution, 0 if it never returned one
+         */
+        public synchronized long getMeanMillis() {
+            return solved > 0 ? totalMillis / solved : 0;
+        }
+
+        public synchronized long getMaxMillis() {
+            return maxMillis;
+        }
+
+        synchronized void record(boolean won, long millis, boolean solution) {
+            runs++;
+            if (won) {
+                wins++;
+            }
+            if (solution) {
+                solved++;
+                totalMillis += millis;
+                maxMillis = Math.max(maxMillis, millis);
+            }
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("%-20s %4d runs %4d wins %4d solved  mean %6d ms  max %6d ms",
+                    name, runs, wins, solved, getMeanMillis(), maxMillis);
+        }
+    }
+
+    private static final class Outcome {
+        final int strategy;
+        final List<AISolver.Move> solution;
+        final long millis;
+
+        Outcome(int strategy, List<AISolver.Move> solution, long millis) {
+            this.strategy = strategy;
+            this.solution = solution;
+            this.millis = millis;
+        }
+    }
+
+    private final List<Strategy> strategies;
+    private final ExecutorService executor;
+    private final Map<Integer, Map<String, Stats>> stats = new LinkedHashMap<>();
+    private SearchBudget budget = SearchBudget.ofMillis(30_000);
+    private int acceptableLength = Integer.MAX_VALUE;
+    private volatile SearchControl[] controls;
+
+    private List<AISolver.Move> solution = Collections.emptyList();
+    private String winner;
+
+    public PortfolioSolver() {
+        this(defaultStrategies());
+    }
+
+    public PortfolioSolver(List<Strategy> strategies) {
+        this.strategies = new ArrayList<>(strategies);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, strategies.size()), runnable -> {
+            Thread thread = new Thread(runnable, "portfolio-solver");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Limit the following races. Every strategy gets the time and states of the budget, and
+     * an equal share of its memory, since they all run at once.
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget != null ? budget : SearchBudget.unlimited();
+    }
+
+    /**
+     * Accept only solutions of at most this many moves as a win; a race in which nobody
+     * reaches it returns the shortest solution found
+     */
+    public void setAcceptableLength(int moves) {
+        this.acceptableLength = moves;
+    }
+
+    /**
+     * Stop the running race; safe to call from any thread
+     */
+    public void cancel() {
+        SearchControl[] running = controls;
+        if (running != null) {
+            for (SearchControl control : running) {
+                control.cancel();
+            }
+        }
+    }
+
+    /**
+     * Race all strategies on a board
+     *
+     * @param level the level the board belongs to, for its heuristic and hidden camps
+     * @return true if any strategy found a solution
+     */
+    public boolean solve(int[][] board, int level) {
+        solution = Collections.emptyList();
+        winner = null;
+        for (int i = 0; i < strategies.size(); i++) {
+            statsFor(level, i);  // listed in portfolio order
+        }
+        SearchControl[] running = new SearchControl[strategies.size()];
+        List<Future<Outcome>> futures = new ArrayList<>();
+        ExecutorCompletionService<Outcome> race = new ExecutorCompletionService<>(executor);
+        SearchBudget share = new SearchBudget(budget.getMaxMillis(), budget.getMaxStates(),
+                budget.getMaxBytes() / strategies.size());
+        long start = System.nanoTime();
+        for (int i = 0; i < strategies.size(); i++) {
+            int index = i;
+            SearchControl control = new SearchControl(share, null);
+            running[i] = control;
+            int[][] copy = new MapModel(board).copyMatrix();
+            futures.add(race.submit(() -> {
+                List<AISolver.Move> found = strategies.get(index).solve(copy, level, control);
+                return new Outcome(index, found, (System.nanoTime() - start) / 1_000_000);
+            }));
+        }
+        controls = running;
+
+        List<Outcome> outcomes = new ArrayList<>();
+        Outcome best = null;
+        try {
+            for (int received = 0; received < strategies.size(); received++) {
+                Outcome outcome;
+                try {
+                    outcome = race.take().get();
+                } catch (ExecutionException e) {
+                    System.err.println("Portfolio strategy failed: " + e.getCause());
+                    continue;
+                }
+                outcomes.add(outcome);
+                if (outcome.solution != null && (best == null || outcome.solution.size() < best.solution.size())) {
+                    best = outcome;
+                    if (best.solution.size() <= acceptableLength) {
+                        break;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            cancel();
+            awaitAll(futures);
+            controls = null;
+        }
+
+        // Strategies still running when the race ended count as runs without a solution
+        boolean[] finished = new boolean[strategies.size()];
+        for (Outcome outcome : outcomes) {
+            finished[outcome.strategy] = true;
+            statsFor(level, outcome.strategy).record(outcome == best, outcome.millis, outcome.solution != null);
+        }
+        for (int i = 0; i < strategies.size(); i++) {
+            if (!finished[i]) {
+                statsFor(level, i).record(false, 0, false);
+            }
+        }
+        if (best == null) {
+            return false;
+        }
+        solution = best.solution;
+        winner = strategies.get(best.strategy).getName();
+        return true;
+    }
+
+    /**
+     * Wait for the cancelled strategies to stop, so that their tables are released before
+     * the next race
+     */
+    private static void awaitAll(List<Future<Outcome>> futures) {
+        boolean interrupted = false;
+        for (Future<Outcome> future : futures) {
+            while (true) {
+                try {
+                    future.get();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException | CancellationException e) {
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private synchronized Stats statsFor(int level, int strategy) {
+        String name = strategies.get(strategy).getName();
+        return stats.computeIfAbsent(level, key -> new LinkedHashMap<>())
+                .computeIfAbsent(name, Stats::new);
+    }
+
+    /**
+     * @return the solution of the last race, empty if there was none
+     */
+    public List<AISolver.Move> getSolution() {
+        return Collections.unmodifiableList(solution);
+    }
+
+    /**
+     * @return the strategy that won the last race, or null
+     */
+    public String getWinner() {
+        return winner;
+    }
+
+    /**
+     * @return the statistics of every strategy on a level, in portfolio order
+     */
+    public synchronized List<Stats> getStats(int level) {
+        Map<String, Stats> byName = stats.get(level);
+        return byName != null ? new ArrayList<>(byName.values()) : Collections.emptyList();
+    }
+
+    /**
+     * Stop the worker threads; the runner cannot race again afterwards
+     */
+    public void shutdown() {
+        cancel();
+        executor.shutdownNow();
+    }
+
+    public static void main(String[] args) {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 30;
+        PortfolioSolver portfolio = new PortfolioSolver();
+        portfolio.setBudget(SearchBudget.ofMillis(seconds * 1000));
+        int from = args.length > 1 ? 1 : 0;
+        int[] levels = args.length > 1
+                ? Arrays.stream(args, from, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{0, 1, 2, 3};
+        for (int level : levels) {
+            boolean solved = portfolio.solve(MapModel.LEVELS[level], level);
+            System.out.println("Level " + level + ": " + (solved
+                    ? portfolio.getSolution().size() + " moves by " + portfolio.getWinner() : "unsolved"));
+            for (Stats stats : portfolio.getStats(level)) {
+                System.out.println("  " + stats);
+            }
+        }
+        portfolio.shutdown();
+    }
+}
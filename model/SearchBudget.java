@@ -0,0 +1,49 @@
+package model;
+
+/**
+ * Limits for one solver run. A limit of 0 or less means unlimited.
+ */
+public class SearchBudget {
+    private final long maxMillis;
+    private final long maxStates;
+    private final long maxBytes;
+
+    /**
+     * @param maxMillis wall-clock time for the search
+     * @param maxStates states the search may expand
+     * @param maxBytes  estimated memory the search's tables may take
+     */
+    public SearchBudget(long maxMillis, long maxStates, long maxBytes) {
+        this.maxMillis = maxMillis;
+        this.maxStates = maxStates;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return a budget limited only to half of the heap
+     */
+    public static SearchBudget unlimited() {
+        return new SearchBudget(0, 0, Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    public static SearchBudget ofMillis(long maxMillis) {
+        return new SearchBudget(maxMillis, 0, Runtime.getRuntime().maxMemory() / 2);
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getMaxStates() {
+        return maxStates;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SearchBudget[ms=%d, states=%d, bytes=%d]", maxMillis, maxStates, maxBytes);
+    }
+}
@@ -0,0 +1,126 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * File that holds the nodes of an unfinished A* search, so a long search can stop and later
+ * go on where it was instead of starting over.
+ *
+ * The nodes are all the search needs: every node that is not closed is in the open set, and
+ * the index of visited boards is rebuilt from the keys. A checkpoint only resumes a search
+ * from the same start board, layout and heuristic.
+ *
+ * File layout (big-endian): magic number, format version, layout signature, start key,
+ * heuristic name, states expanded, node count, then per node its key, parent, g and h as
+ * unsigned shorts and the closed flag, 17 bytes each.
+ */
+public class SearchCheckpoint {
+    static final int MAGIC = 0x4B434B50;  // "KCKP"
+    static final int VERSION = 1;
+
+    private final File file;
+    private final long intervalMillis;
+    private long lastWriteMillis = System.currentTimeMillis();
+
+    /**
+     * @param intervalMillis time between two checkpoints of a running search
+     */
+    public SearchCheckpoint(File file, long intervalMillis) {
+        this.file = file;
+        this.intervalMillis = intervalMillis;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    /**
+     * @return true if the last write is older than the interval
+     */
+    boolean isDue() {
+        return System.currentTimeMillis() - lastWriteMillis >= intervalMillis;
+    }
+
+    void write(long layout, long startKey, String heuristic, long statesExplored, NodeStore nodes) throws IOException {
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(layout);
+            out.writeLong(startKey);
+            out.writeUTF(heuristic);
+            out.writeLong(statesExplored);
+            out.writeInt(nodes.size());
+            for (int node = 0; node < nodes.size(); node++) {
+                out.writeLong(nodes.getKey(node));
+                out.writeInt(nodes.getParent(node));
+                out.writeShort(Math.min(nodes.getG(node), 0xFFFF));
+                out.writeShort(Math.min(nodes.getH(node), 0xFFFF));
+                out.writeBoolean(nodes.isClosed(node));
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        lastWriteMillis = System.currentTimeMillis();
+    }
+
+    /**
+     * Load the nodes of a checkpoint of the same search into an empty store
+     *
+     * @return the states expanded before the checkpoint, or -1 if there is none for this search
+     */
+    long read(long layout, long startKey, String heuristic, NodeStore nodes) throws IOException {
+        if (!file.isFile()) {
+            return -1;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a search checkpoint");
+            }
+            if (in.readLong() != layout || in.readLong() != startKey || !in.readUTF().equals(heuristic)) {
+                return -1;
+            }
+            long statesExplored = in.readLong();
+            int count = in.readInt();
+            if (count < 1) {
+                throw new IOException("Corrupt search checkpoint");
+            }
+            for (int node = 0; node < count; node++) {
+                long key = in.readLong();
+                int parent = in.readInt();
+                if (parent < NodeStore.NO_PARENT || parent >= count) {
+                    throw new IOException("Corrupt search checkpoint");
+                }
+                nodes.add(key, parent, in.readUnsignedShort(), in.readUnsignedShort());
+                if (in.readBoolean()) {
+                    nodes.markClosed(node);
+                }
+            }
+            lastWriteMillis = System.currentTimeMillis();
+            return statesExplored;
+        }
+    }
+
+    /**
+     * Remove the file once its search has finished
+     */
+    void delete() {
+        file.delete();
+    }
+}
@@ -0,0 +1,215 @@
+package model;
+
+import java.util.function.Consumer;
+
+/**
+ * Budget, cancellation and progress reporting shared by the solvers.
+ *
+ * A search calls {@link #checkpoint} once per expanded state. The cancel flag is read on every
+ * call, the clock only every {@value #CLOCK_INTERVAL} calls, and progress is published at most
+ * every {@value #PROGRESS_INTERVAL_MS} ms, so the checks cost next to nothing while an
+ * abandoned search still stops within a millisecond or so.
+ *
+ * {@link SearchStats} go to a {@link SearchStatsListener} at their own interval. Running with
+ * -Dsolver.stats=MS logs them for every search to standard error every MS ms, without any
+ * change to the code.
+ */
+public class SearchControl {
+    private static final int CLOCK_INTERVAL = 64;
+    private static final long PROGRESS_INTERVAL_MS = 100;
+
+    /**
+     * System property with the interval in ms at which every search logs its statistics
+     */
+    public static final String STATS_PROPERTY = "solver.stats";
+    private static final long STATS_INTERVAL_MS = Long.getLong(STATS_PROPERTY, 0);
+
+    /**
+     * Why a search stopped before it finished
+     */
+    public enum StopReason {
+        NONE, CANCELLED, TIME, STATES, MEMORY
+    }
+
+    private final SearchBudget budget;
+    private final Consumer<SearchProgress> listener;
+    private final long startNanos;
+    private volatile boolean cancelled;
+    private StopReason stopReason = StopReason.NONE;
+    private int calls;
+    private long lastReportMillis;
+    private long lastReportStates;
+    private long peakMemoryBytes;
+
+    // Statistics, from the latest checkpoint and the counts of the search
+    private SearchStatsListener statsListener;
+    private long statsIntervalMillis;
+    private long lastStatsMillis;
+    private long states;
+    private long memoryBytes;
+    private long openSize;
+    private long generated;
+    private long duplicates;
+    private long firstSolutionMillis = -1;
+    private int solutionLength = -1;
+    private boolean finished;
+
+    public SearchControl(SearchBudget budget, Consumer<SearchProgress> listener) {
+        this.budget = budget != null ? budget : SearchBudget.unlimited();
+        this.listener = listener;
+        this.startNanos = System.nanoTime();
+        if (STATS_INTERVAL_MS > 0) {
+            setStatsListener(SearchStatsListener.LOG, STATS_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * Report statistics to the listener every interval while the search runs, and when it
+     * finishes; null stops the reports
+     */
+    public void setStatsListener(SearchStatsListener listener, long intervalMillis) {
+        this.statsListener = listener;
+        this.statsIntervalMillis = Math.max(1, intervalMillis);
+    }
+
+    /**
+     * Ask the search to stop; safe to call from any thread
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public SearchBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @return why the search stopped early, NONE if it did not
+     */
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public long getElapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    /**
+     * @return the largest table size the search reported at a checkpoint
+     */
+    public long getPeakMemoryBytes() {
+        return peakMemoryBytes;
+    }
+
+    /**
+     * Count the successors of one expansion
+     *
+     * @param duplicates those the search had seen before
+     */
+    public void countSuccessors(int generated, int duplicates) {
+        this.generated += generated;
+        this.duplicates += duplicates;
+    }
+
+    /**
+     * Note a solution; the first one gives the time to first solution
+     */
+    public void solutionFound(int length) {
+        if (firstSolutionMillis < 0) {
+            firstSolutionMillis = getElapsedMillis();
+        }
+        if (solutionLength < 0 || length < solutionLength) {
+            solutionLength = length;
+        }
+    }
+
+    /**
+     * @return the statistics of the search so far
+     */
+    public SearchStats getStats() {
+        return new SearchStats(getElapsedMillis(), states, generated, duplicates, openSize, memoryBytes,
+                peakMemoryBytes, firstSolutionMillis, solutionLength, finished, stopReason);
+    }
+
+    /**
+     * Send the final statistics to the stats listener; later calls do nothing
+     */
+    public void finish() {
+        if (!finished) {
+            finished = true;
+            if (statsListener != null) {
+                statsListener.statsReported(getStats());
+            }
+        }
+    }
+
+    /**
+     * Check the budget and publish progress if it is due
+     *
+     * @param states        states expanded so far
+     * @param memoryBytes   estimated size of the search's tables
+     * @param bestHeuristic best h seen so far, or the current depth
+     * @param openSize      states waiting to be expanded
+     * @return true if the search must stop now
+     */
+    public boolean checkpoint(long states, long memoryBytes, int bestHeuristic, long openSize) {
+        this.states = states;
+        this.memoryBytes = memoryBytes;
+        this.openSize = openSize;
+        if (memoryBytes > peakMemoryBytes) {
+            peakMemoryBytes = memoryBytes;
+        }
+        if (cancelled) {
+            return stop(StopReason.CANCELLED, states, memoryBytes, bestHeuristic, openSize);
+        }
+        if (budget.getMaxStates() > 0 && states >= budget.getMaxStates()) {
+            return stop(StopReason.STATES, states, memoryBytes, bestHeuristic, openSize);
+        }
+        if (budget.getMaxBytes() > 0 && memoryBytes >= budget.getMaxBytes()) {
+            return stop(StopReason.MEMORY, states, memoryBytes, bestHeuristic, openSize);
+        }
+        if (++calls % CLOCK_INTERVAL != 0) {
+            return false;
+        }
+        long elapsed = getElapsedMillis();
+        if (budget.getMaxMillis() > 0 && elapsed >= budget.getMaxMillis()) {
+            return stop(StopReason.TIME, states, memoryBytes, bestHeuristic, openSize);
+        }
+        if (listener != null && elapsed - lastReportMillis >= PROGRESS_INTERVAL_MS) {
+            publish(elapsed, states, memoryBytes, bestHeuristic, openSize);
+        }
+        if (statsListener != null && elapsed - lastStatsMillis >= statsIntervalMillis) {
+            lastStatsMillis = elapsed;
+            statsListener.statsReported(getStats());
+        }
+        return false;
+    }
+
+    /**
+     * Publish progress now, for the end of a search
+     */
+    public void report(long states, long memoryBytes, int bestHeuristic, long openSize) {
+        this.states = states;
+        if (listener != null) {
+            publish(getElapsedMillis(), states, memoryBytes, bestHeuristic, openSize);
+        }
+    }
+
+    private boolean stop(StopReason reason, long states, long memoryBytes, int bestHeuristic, long openSize) {
+        stopReason = reason;
+        report(states, memoryBytes, bestHeuristic, openSize);
+        return true;
+    }
+
+    private void publish(long elapsed, long states, long memoryBytes, int bestHeuristic, long openSize) {
+        long interval = elapsed - lastReportMillis;
+        long rate = interval > 0 ? (states - lastReportStates) * 1000 / interval : 0;
+        lastReportMillis = elapsed;
+        lastReportStates = states;
+        listener.accept(new SearchProgress(states, bestHeuristic, openSize, rate, elapsed, memoryBytes));
+    }
+}
@@ -0,0 +1,60 @@
+package model;
+
+/**
+ * Snapshot of a running search, published by {@link SearchControl}
+ */
+public class SearchProgress {
+    private final long statesExplored;
+    private final int bestHeuristic;
+    private final long openSize;
+    private final long nodesPerSecond;
+    private final long elapsedMillis;
+    private final long memoryBytes;
+
+    public SearchProgress(long statesExplored, int bestHeuristic, long openSize, long nodesPerSecond,
+                          long elapsedMillis, long memoryBytes) {
+        this.statesExplored = statesExplored;
+        this.bestHeuristic = bestHeuristic;
+        this.openSize = openSize;
+        this.nodesPerSecond = nodesPerSecond;
+        this.elapsedMillis = elapsedMillis;
+        this.memoryBytes = memoryBytes;
+    }
+
+    public long getStatesExplored() {
+        return statesExplored;
+    }
+
+    /**
+     * @return the lowest heuristic value seen so far, or the depth reached for breadth-first
+     *         searches
+     */
+    public int getBestHeuristic() {
+        return bestHeuristic;
+    }
+
+    /**
+     * @return the number of states waiting to be expanded (open list or frontier)
+     */
+    public long getOpenSize() {
+        return openSize;
+    }
+
+    public long getNodesPerSecond() {
+        return nodesPerSecond;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d states, best h %d, open %d, %d nodes/s, %d ms, %d KB",
+                statesExplored, bestHeuristic, openSize, nodesPerSecond, elapsedMillis, memoryBytes / 1024);
+    }
+}
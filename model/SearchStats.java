@@ -0,0 +1,176 @@
+package model;
+
+/**
+ * Counters of a search, published by {@link SearchControl} to a {@link SearchStatsListener}
+ * while it runs and once more when it ends.
+ *
+ * Generated successors are all boards reached by a move from an expanded board; duplicates are
+ * those the search had already seen, through a transposition or the move back. Searches that
+ * do not count successors report 0 for both.
+ */
+public class SearchStats {
+    private final long elapsedMillis;
+    private final long expanded;
+    private final long generated;
+    private final long duplicates;
+    private final long openSize;
+    private final long memoryBytes;
+    private final long peakMemoryBytes;
+    private final long firstSolutionMillis;
+    private final int solutionLength;
+    private final boolean finished;
+    private final SearchControl.StopReason stopReason;
+
+    public SearchStats(long elapsedMillis, long expanded, long generated, long duplicates, long openSize,
+                       long memoryBytes, long peakMemoryBytes, long firstSolutionMillis, int solutionLength,
+                       boolean finished) {
+        this(elapsedMillis, expanded, generated, duplicates, openSize, memoryBytes, peakMemoryBytes,
+                firstSolutionMillis, solutionLength, finished, SearchControl.StopReason.NONE);
+    }
+
+    public SearchStats(long elapsedMillis, long expanded, long generated, long duplicates, long openSize,
+                       long memoryBytes, long peakMemoryBytes, long firstSolutionMillis, int solutionLength,
+                       boolean finished, SearchControl.StopReason stopReason) {
+        this.elapsedMillis = elapsedMillis;
+        this.expanded = expanded;
+        this.generated = generated;
+        this.duplicates = duplicates;
+        this.openSize = openSize;
+        this.memoryBytes = memoryBytes;
+        this.peakMemoryBytes = peakMemoryBytes;
+        this.firstSolutionMillis = firstSolutionMillis;
+        this.solutionLength = solutionLength;
+        this.finished = finished;
+        this.stopReason = stopReason;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getExpanded() {
+        return expanded;
+    }
+
+    /**
+     * @return mean expansions per second since the search started
+     */
+    public long getExpansionsPerSecond() {
+        return elapsedMillis > 0 ? expanded * 1000 / elapsedMillis : 0;
+    }
+
+    public long getGenerated() {
+        return generated;
+    }
+
+    public long getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * @return the states waiting to be expanded (open list, frontier or search depth)
+     */
+    public long getOpenSize() {
+        return openSize;
+    }
+
+    /**
+     * @return the states expanded and not expanded again, which is every expansion for the
+     *         searches that never reopen a board
+     */
+    public long getClosedSize() {
+        return expanded;
+    }
+
+    /**
+     * @return the estimated size of the search's tables at the last checkpoint
+     */
+    public long getMemoryBytes() {
+        return memoryBytes;
+    }
+
+    public long getPeakMemoryBytes() {
+        return peakMemoryBytes;
+    }
+
+    /**
+     * @return ms from the start to the first solution, -1 if there is none yet
+     */
+    public long getFirstSolutionMillis() {
+        return firstSolutionMillis;
+    }
+
+    /**
+     * @return the length of the shortest solution so far, -1 if there is none yet
+     */
+    public int getSolutionLength() {
+        return solutionLength;
+    }
+
+    /**
+     * @return true for the report at the end of the search
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     * @return why the search stopped early, NONE if it did not (yet)
+     */
+    public SearchControl.StopReason getStopReason() {
+        return stopReason;
+    }
+
+    /**
+     * @return successors generated per expansion, duplicates included
+     */
+    public double getMeanBranching() {
+        return expanded > 0 ? (double) generated / expanded : 0;
+    }
+
+    /**
+     * The effective branching factor b of the search: a uniform tree as deep as the solution,
+     * with b children per node, would hold as many nodes as the search generated without
+     * duplicates. Close to 1 means the heuristic leads straight to the goal.
+     *
+     * @return b, or 0 without a solution or successor counts
+     */
+    public double getEffectiveBranchingFactor() {
+        long nodes = generated - duplicates + 1;
+        if (solutionLength <= 0 || generated == 0) {
+            return 0;
+        }
+        double low = 1;
+        double high = Math.max(2, nodes);
+        for (int i = 0; i < 64; i++) {
+            double middle = (low + high) / 2;
+            if (treeSize(middle, solutionLength) < nodes) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static double treeSize(double branching, int depth) {
+        double size = 1;
+        double level = 1;
+        for (int d = 1; d <= depth; d++) {
+            level *= branching;
+            size += level;
+        }
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s%d ms, %d expanded (%d/s), %d generated, %d duplicates, branching %.2f, EBF %.3f, "
+                        + "open %d, closed %d, %d KB (peak %d KB), first solution %s%s",
+                finished ? "done: " : "", elapsedMillis, expanded, getExpansionsPerSecond(), generated, duplicates,
+                getMeanBranching(), getEffectiveBranchingFactor(), openSize, getClosedSize(), memoryBytes / 1024,
+                peakMemoryBytes / 1024,
+                firstSolutionMillis >= 0 ? solutionLength + " moves at " + firstSolutionMillis + " ms" : "none",
+                stopReason != SearchControl.StopReason.NONE ? ", stopped: " + stopReason : "");
+    }
+}
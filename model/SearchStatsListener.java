@@ -0,0 +1,14 @@
+package model;
+
+/**
+ * Receives the {@link SearchStats} of a search at the interval set on its {@link SearchControl},
+ * on the searching thread
+ */
+public interface SearchStatsListener {
+    /**
+     * Writes every report to standard error, for -Dsolver.stats
+     */
+    SearchStatsListener LOG = stats -> System.err.println("[search] " + stats);
+
+    void statsReported(SearchStats stats);
+}
@@ -0,0 +1,329 @@
+package model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solutions found by the solvers, kept across hints and game sessions.
+ *
+ * A solution is stored as the canonical keys of the boards along it, so any board on a cached
+ * path, not only its start, is answered with the rest of that path; a player following hints
+ * gets every further hint from the cache. Keys are replayed into moves on the real board with
+ * {@link AISolver#replay}, which also undoes mirror images. Keys of different layouts cannot be
+ * compared, so every path is tagged with its codec's layout signature; boards whose code does
+ * not fit a long are never cached since their keys are only valid within one run.
+ *
+ * Paths are evicted least recently used first once their estimated size exceeds the byte
+ * limit. Solvers only use a cache they are given; the game's shared one is loaded from
+ * {@code saves/solutions.cache} on first use and written back when the program exits, so no
+ * solve waits for the disk.
+ */
+public class SolutionCache {
+    static final int MAGIC = 0x4B534F4C;  // "KSOL"
+    static final int VERSION = 1;
+
+    private static final File DEFAULT_FILE = new File("saves", "solutions.cache");
+    private static final long DEFAULT_MAX_BYTES = 4L << 20;
+
+    // Path object and key array header, plus per step the key and its index entry
+    private static final int BYTES_PER_PATH = 64;
+    private static final int BYTES_PER_STEP = 72;
+
+    private static SolutionCache shared;
+
+    private final File file;
+    private final long maxBytes;
+    private final LinkedHashMap<BoardRef, Path> paths = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<BoardRef, Path> onPath = new HashMap<>();
+    private long bytes;
+    private boolean modified;  // paths changed since the last load or save
+
+    /**
+     * A board of one layout
+     */
+    private static final class BoardRef {
+        final long layout;
+        final long key;
+
+        BoardRef(long layout, long key) {
+            this.layout = layout;
+            this.key = key;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof BoardRef)) return false;
+            BoardRef other = (BoardRef) obj;
+            return layout == other.layout && key == other.key;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(layout * 31 + key);
+        }
+    }
+
+    private static final class Path {
+        final long layout;
+        final long[] keys;  // from the start board to a goal board
+        final boolean optimal;  // shortest in cell moves
+
+        Path(long layout, long[] keys, boolean optimal) {
+            this.layout = layout;
+            this.keys = keys;
+            this.optimal = optimal;
+        }
+
+        int remaining(long key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] == key) {
+                    return keys.length - 1 - i;
+                }
+            }
+            return -1;
+        }
+
+        long memoryUsage() {
+            return BYTES_PER_PATH + (long) keys.length * BYTES_PER_STEP;
+        }
+    }
+
+    /**
+     * @param file     where {@link #save} writes, or null to keep the cache in memory
+     * @param maxBytes estimated size the cached paths may take
+     */
+    public SolutionCache(File file, long maxBytes) {
+        this.file = file;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the cache shared by the game, loaded from the saves directory on first use and
+     *         saved there at exit if it changed
+     */
+    public static synchronized SolutionCache getDefault() {
+        if (shared == null) {
+            SolutionCache cache = new SolutionCache(DEFAULT_FILE, DEFAULT_MAX_BYTES);
+            if (DEFAULT_FILE.isFile()) {
+                try {
+                    cache.load();
+                } catch (IOException e) {
+                    System.err.println("Ignoring solution cache " + DEFAULT_FILE + ": " + e.getMessage());
+                }
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(cache::saveIfModified, "solution-cache-save"));
+            shared = cache;
+        }
+        return shared;
+    }
+
+    /**
+     * @param optimalOnly only answer from paths known to be shortest
+     * @return the canonical keys from the board to a goal, starting with the board's own key,
+     *         or null if no cached path passes through the board
+     */
+    public synchronized long[] lookup(long layout, long key, boolean optimalOnly) {
+        Path path = onPath.get(new BoardRef(layout, key));
+        if (path == null || (optimalOnly && !path.optimal)) {
+            return null;
+        }
+        paths.get(new BoardRef(layout, path.keys[0]));  // mark as recently used
+        int remaining = path.remaining(key);
+        long[] suffix = new long[remaining + 1];
+        System.arraycopy(path.keys, path.keys.length - suffix.length, suffix, 0, suffix.length);
+        return suffix;
+    }
+
+    /**
+     * Remember a solution, given as the canonical keys from its start board to a goal board.
+     * Boards that already lie on a path at least as good keep their path.
+     */
+    public synchronized void put(long layout, long[] keys, boolean optimal) {
+        if (keys.length == 0) {
+            return;
+        }
+        Path path = new Path(layout, keys.clone(), optimal);
+        BoardRef start = new BoardRef(layout, keys[0]);
+        Path replaced = paths.get(start);
+        if (replaced != null) {
+            if (!isBetter(path, keys.length - 1, replaced, replaced.keys.length - 1)) {
+                return;
+            }
+            paths.remove(start);
+            unlink(replaced);
+            modified = true;
+        }
+        boolean used = false;
+        for (int i = 0; i < keys.length; i++) {
+            BoardRef board = new BoardRef(layout, keys[i]);
+            Path current = onPath.get(board);
+            if (current == null || isBetter(path, keys.length - 1 - i, current, current.remaining(keys[i]))) {
+                onPath.put(board, path);
+                used = true;
+            }
+        }
+        if (!used) {
+            return;
+        }
+        paths.put(start, path);
+        bytes += path.memoryUsage();
+        modified = true;
+        evict();
+    }
+
+    private static boolean isBetter(Path path, int remaining, Path current, int currentRemaining) {
+        if (path.optimal != current.optimal) {
+            return path.optimal;
+        }
+        return remaining < currentRemaining;
+    }
+
+    private void evict() {
+        Iterator<Path> eldest = paths.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Path path = eldest.next();
+            eldest.remove();
+            unlink(path);
+        }
+    }
+
+    private void unlink(Path path) {
+        bytes -= path.memoryUsage();
+        for (long key : path.keys) {
+            onPath.remove(new BoardRef(path.layout, key), path);
+        }
+    }
+
+    public synchronized int size() {
+        return paths.size();
+    }
+
+    /**
+     * @return the estimated size of the cached paths
+     */
+    public synchronized long memoryUsage() {
+        return bytes;
+    }
+
+    public synchronized void clear() {
+        paths.clear();
+        onPath.clear();
+        bytes = 0;
+        modified = true;
+    }
+
+    /**
+     * @return true if paths changed since the cache was last loaded or saved
+     */
+    public synchronized boolean isModified() {
+        return modified;
+    }
+
+    /**
+     * Write the cache, least recently used path first, replacing the file only once it is
+     * complete
+     */
+    public synchronized void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        File directory = file.getAbsoluteFile().getParentFile();
+        if (directory != null && !directory.exists()) {
+            directory.mkdirs();
+        }
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(paths.size());
+            for (Path path : paths.values()) {
+                out.writeLong(path.layout);
+                out.writeBoolean(path.optimal);
+                out.writeInt(path.keys.length);
+                for (long key : path.keys) {
+                    out.writeLong(key);
+                }
+            }
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        modified = false;
+    }
+
+    /**
+     * {@link #save} if paths changed, reporting a failure instead of throwing
+     */
+    public synchronized void saveIfModified() {
+        if (!modified) {
+            return;
+        }
+        try {
+            save();
+        } catch (IOException e) {
+            System.err.println("Could not save the solution cache: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add the paths of the cache file to this cache
+     */
+    public synchronized void load() throws IOException {
+        List<Path> loaded = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a solution cache");
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                long layout = in.readLong();
+                boolean optimal = in.readBoolean();
+                int length = in.readInt();
+                if (length < 0 || length > 1 << 20) {
+                    throw new IOException("Corrupt solution cache");
+                }
+                long[] keys = new long[length];
+                for (int step = 0; step < length; step++) {
+                    keys[step] = in.readLong();
+                }
+                loaded.add(new Path(layout, keys, optimal));
+            }
+        }
+        boolean wasModified = modified;
+        for (Path path : loaded) {
+            put(path.layout, path.keys, path.optimal);
+        }
+        modified = wasModified;
+    }
+
+    /**
+     * @return the canonical keys of the boards along a solution, starting with the generator's
+     *         board; the generator is left on the last board
+     */
+    static long[] keysOf(MoveGenerator generator, List<AISolver.Move> moves) {
+        long[] keys = new long[moves.size() + 1];
+        keys[0] = generator.getCanonicalKey();
+        for (int i = 0; i < moves.size(); i++) {
+            AISolver.Move move = moves.get(i);
+            int piece = generator.findPiece(move.row, move.col);
+            if (piece < 0 || !generator.canMove(piece, move.direction)) {
+                throw new IllegalArgumentException("Move " + i + " of the solution is not legal: " + move);
+            }
+            generator.apply(piece, move.direction);
+            keys[i + 1] = generator.getCanonicalKey();
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,214 @@
+package model;
+
+/**
+ * The weighted score the A* search has always used: Cao Cao's Manhattan distance and linear
+ * conflicts, corner and alignment patterns, free space and clear paths, with hand-tuned
+ * weights. It steers quickly towards the exit but is not admissible, so A* guided by it may
+ * return longer solutions than necessary.
+ */
+public class WeightedScoreHeuristic implements Heuristic {
+    private final int goalRow;
+    private final int goalCol;
+
+    /**
+     * @param goalRow the row the score aims Cao Cao at
+     * @param goalCol the column the score aims Cao Cao at
+     */
+    public WeightedScoreHeuristic(int goalRow, int goalCol) {
+        this.goalRow = goalRow;
+        this.goalCol = goalCol;
+    }
+
+    @Override
+    public int estimate(MoveGenerator generator) {
+        return calculateHeuristic(generator.getBoard());
+    }
+
+    @Override
+    public boolean isAdmissible() {
+        return false;
+    }
+
+    @Override
+    public String getName() {
+        return "Weighted score";
+    }
+
+    /**
+     * Calculate heuristic value for a board state
+     */
+    private int calculateHeuristic(int[][] board) {
+        // Find Cao Cao position
+        int[] caoCaoPos = findCaoCaoPosition(board);
+        if (caoCaoPos == null) return Integer.MAX_VALUE;
+
+        int caoCaoRow = caoCaoPos[0];
+        int caoCaoCol = caoCaoPos[1];
+
+        // 1. Manhattan Distance with Linear Conflicts
+        int manhattanDistance = calculateManhattanDistance(caoCaoRow, caoCaoCol);
+        int linearConflicts = calculateLinearConflicts(board, caoCaoRow, caoCaoCol);
+
+        // 2. Pattern Recognition
+        int patternScore = calculatePatternScore(board, caoCaoRow, caoCaoCol);
+
+        // 3. Space Analysis
+        int spaceScore = calculateSpaceScore(board, caoCaoRow, caoCaoCol);
+
+        // 4. Path Analysis
+        int pathScore = calculatePathScore(board, caoCaoRow, caoCaoCol);
+
+        // Combine all factors with adjusted weights
+        return manhattanDistance * 20 +     // 增加距离权重
+                linearConflicts * 15 +      // 增加冲突权重
+                patternScore * 5 +          // 降低模式权重
+                spaceScore * 8 +            // 降低空间权重
+                pathScore * 10;             // 降低路径权重
+    }
+
+    /**
+     * Calculate space score
+     */
+    private int calculateSpaceScore(int[][] board, int caoCaoRow, int caoCaoCol) {
+        int score = 0;
+
+        // Check space below Cao Cao
+        for (int r = caoCaoRow + 2; r <= goalRow; r++) {
+            if (r < board.length) {
+                int emptyCells = 0;
+                for (int c = 0; c < board[0].length; c++) {
+                    if (board[r][c] == 0) {
+                        emptyCells++;
+                    }
+                }
+                score += emptyCells * 2;  // 降低空单元格奖励
+            }
+        }
+
+        // Check space around Cao Cao
+        for (int dr = -1; dr <= 2; dr++) {
+            for (int dc = -1; dc <= 2; dc++) {
+                int r = caoCaoRow + dr;
+                int c = caoCaoCol + dc;
+                if (r >= 0 && r < board.length && c >= 0 && c < board[0].length) {
+                    if (board[r][c] == 0) {
+                        score += 1;  // 降低周围空单元格奖励
+                    }
+                }
+            }
+        }
+
+        return -score;  // Negative because lower is better
+    }
+
+    /**
+     * Find Cao Cao's position in the board
+     */
+    private int[] findCaoCaoPosition(int[][] board) {
+        for (int r = 0; r < board.length - 1; r++) {
+            for (int c = 0; c < board[0].length - 1; c++) {
+                if (board[r][c] == MapModel.CAO_CAO &&
+                    board[r][c+1] == MapModel.CAO_CAO &&
+                    board[r+1][c] == MapModel.CAO_CAO &&
+                    board[r+1][c+1] == MapModel.CAO_CAO) {
+                    return new int[]{r, c};
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calculate Manhattan distance to goal
+     */
+    private int calculateManhattanDistance(int row, int col) {
+        return Math.abs(row - goalRow) + Math.abs(col - goalCol);
+    }
+
+    /**
+     * Calculate linear conflicts
+     */
+    private int calculateLinearConflicts(int[][] board, int caoCaoRow, int caoCaoCol) {
+        int conflicts = 0;
+
+        // Check horizontal conflicts
+        for (int c = 0; c < board[0].length; c++) {
+            if (c != caoCaoCol && board[caoCaoRow][c] != 0) {
+                conflicts++;
+            }
+        }
+
+        // Check vertical conflicts
+        for (int r = 0; r < board.length; r++) {
+            if (r != caoCaoRow && board[r][caoCaoCol] != 0) {
+                conflicts++;
+            }
+        }
+
+        return conflicts;
+    }
+
+    /**
+     * Calculate pattern score
+     */
+    private int calculatePatternScore(int[][] board, int caoCaoRow, int caoCaoCol) {
+        int score = 0;
+
+        // Check if Cao Cao is in a corner
+        if ((caoCaoRow == 0 || caoCaoRow == board.length - 2) &&
+                (caoCaoCol == 0 || caoCaoCol == board[0].length - 2)) {
+            score += 5;
+        }
+
+        // Check if Cao Cao is aligned with goal
+        if (caoCaoRow == goalRow) {
+            score += 3;
+        }
+        if (caoCaoCol == goalCol) {
+            score += 3;
+        }
+
+        return score;
+    }
+
+    /**
+     * Calculate path score
+     */
+    private int calculatePathScore(int[][] board, int caoCaoRow, int caoCaoCol) {
+        int score = 0;
+
+        // Check if there's a clear path to the goal
+        boolean hasClearPath = true;
+
+        // Check horizontal path
+        int startCol = Math.min(caoCaoCol, goalCol);
+        int endCol = Math.max(caoCaoCol, goalCol);
+        for (int c = startCol; c <= endCol; c++) {
+            if (board[goalRow][c] != 0) {
+                hasClearPath = false;
+                break;
+            }
+        }
+
+        if (hasClearPath) {
+            score += 10;
+        }
+
+        // Check vertical path
+        hasClearPath = true;
+        int startRow = Math.min(caoCaoRow, goalRow);
+        int endRow = Math.max(caoCaoRow, goalRow);
+        for (int r = startRow; r <= endRow; r++) {
+            if (board[r][goalCol] != 0) {
+                hasClearPath = false;
+                break;
+            }
+        }
+
+        if (hasClearPath) {
+            score += 10;
+        }
+
+        return score;
+    }
+}
@@ -0,0 +1,28 @@
+package model.solver;
+
+/**
+ * Search algorithms of the {@link BoardSolver}
+ */
+public enum Algorithm {
+    /**
+     * A* with the level's pattern databases or the Cao Cao distance, shortest in cell moves
+     */
+    A_STAR,
+    /**
+     * Iterative-deepening A* with a fixed-size transposition table, shortest in cell moves
+     */
+    IDA_STAR,
+    /**
+     * Bidirectional breadth-first search, shortest in cell moves
+     */
+    BIDIRECTIONAL_BFS,
+    /**
+     * Weighted A* with falling weights, the best solution found within the budget
+     */
+    ANYTIME,
+    /**
+     * Beam search, a good but rarely shortest solution in bounded time and memory, for boards
+     * too large for the others
+     */
+    BEAM
+}
@@ -0,0 +1,150 @@
+package model.solver;
+
+import model.AISolver;
+import model.AnytimeSolver;
+import model.BeamSearchSolver;
+import model.BidirectionalSolver;
+import model.IdaStarSolver;
+import model.MapModel;
+import model.MoveMetric;
+import model.SearchBudget;
+import model.SearchControl;
+import model.SolutionCache;
+
+import java.util.ArrayList;
+
+/**
+ * Entry point for solving boards without a game: it takes a plain board snapshot and returns
+ * the moves with the cost of finding them, and needs neither Swing nor AWT, so it runs in
+ * batch jobs, CI and server processes.
+ *
+ * Every call searches with a fresh {@link AISolver}, so one instance can be used from several
+ * threads at once as long as its settings do not change meanwhile. Solutions are not cached
+ * unless a cache is set; batch runs then never touch the game's save directory.
+ *
+ * With a fallback beam width set, a search that runs out of time, states or memory is followed
+ * by a beam search under a fresh budget, so that huge custom boards still get an answer; the
+ * result then names {@link Algorithm#BEAM} and is not optimal.
+ */
+public class BoardSolver {
+    private Algorithm algorithm = Algorithm.A_STAR;
+    private SearchBudget budget = SearchBudget.ofMillis(30_000);
+    private SolutionCache solutionCache;
+    private int fallbackBeamWidth;
+
+    public BoardSolver() {
+    }
+
+    public BoardSolver(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public void setAlgorithm(Algorithm algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Limit every following search; null for no limit
+     */
+    public void setBudget(SearchBudget budget) {
+        this.budget = budget != null ? budget : SearchBudget.unlimited();
+    }
+
+    public SearchBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Answer from and add to the given cache, or search every board when null (the default)
+     */
+    public void setSolutionCache(SolutionCache cache) {
+        this.solutionCache = cache;
+    }
+
+    /**
+     * Fall back to a beam search of the given width when the search exceeds its budget, or
+     * return the unsolved result when 0 (the default)
+     */
+    public void setFallbackBeamWidth(int width) {
+        this.fallbackBeamWidth = Math.max(0, width);
+    }
+
+    public int getFallbackBeamWidth() {
+        return fallbackBeamWidth;
+    }
+
+    /**
+     * Solve a board of a level; the level gives its hidden military camps and pattern
+     * databases
+     */
+    public SolveResult solve(int[][] board, int level) {
+        return solve(board, level, new SearchControl(budget, null));
+    }
+
+    /**
+     * Solve under a control owned by the caller, which may cancel it from another thread
+     */
+    public SolveResult solve(int[][] board, int level, SearchControl control) {
+        SolveResult result = solve(board, level, control, algorithm);
+        if (result.isSolved() || fallbackBeamWidth == 0 || algorithm == Algorithm.BEAM) {
+            return result;
+        }
+        switch (result.getStopReason()) {
+            case TIME:
+            case STATES:
+            case MEMORY:
+                // The result names BEAM as its algorithm, so callers can tell
+                return solve(board, level, new SearchControl(budget, null), Algorithm.BEAM);
+            default:
+                return result;
+        }
+    }
+
+    private SolveResult solve(int[][] board, int level, SearchControl control, Algorithm algorithm) {
+        MapModel model = new MapModel(level);
+        model.setMatrix(board);
+        AISolver solver = new AISolver(model);
+        solver.setSolutionCache(solutionCache);
+        switch (algorithm) {
+            case IDA_STAR:
+                solver.setIdaStarMode(IdaStarSolver.DEFAULT_TABLE_BYTES);
+                break;
+            case BIDIRECTIONAL_BFS:
+                solver.setExactMode(MoveMetric.CELL);
+                break;
+            case ANYTIME:
+                solver.setAnytimeMode(true);
+                break;
+            case BEAM:
+                solver.setBeamMode(fallbackBeamWidth > 0 ? fallbackBeamWidth : BeamSearchSolver.DEFAULT_BEAM_WIDTH);
+                break;
+            default:
+                break;
+        }
+
+        boolean solved = solver.findSolution(control);
+        long states = solver.getStatesExplored();
+        boolean optimal = solved;
+        BidirectionalSolver exact = solver.getLastExactSearch();
+        IdaStarSolver idaStar = solver.getLastIdaStarSearch();
+        AnytimeSolver anytime = solver.getLastAnytimeSearch();
+        BeamSearchSolver beam = solver.getLastBeamSearch();
+        if (exact != null) {
+            states = exact.getStatesVisited();
+        } else if (idaStar != null) {
+            states = idaStar.getStatesVisited();
+        } else if (anytime != null) {
+            states = anytime.getStatesVisited();
+            optimal = solved && anytime.isOptimal();
+        } else if (beam != null) {
+            states = beam.getStatesVisited();
+            optimal = false;
+        }
+        return new SolveResult(algorithm, new ArrayList<>(solver.getSolutionMoves(Integer.MAX_VALUE)), solved,
+                optimal, states, control.getElapsedMillis(), control.getPeakMemoryBytes(), control.getStopReason());
+    }
+}
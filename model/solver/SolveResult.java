@@ -0,0 +1,80 @@
+package model.solver;
+
+import model.AISolver;
+import model.SearchControl;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of one {@link BoardSolver} run: the moves and what finding them cost
+ */
+public class SolveResult {
+    private final Algorithm algorithm;
+    private final List<AISolver.Move> moves;
+    private final boolean solved;
+    private final boolean optimal;
+    private final long statesExplored;
+    private final long elapsedMillis;
+    private final long peakMemoryBytes;
+    private final SearchControl.StopReason stopReason;
+
+    SolveResult(Algorithm algorithm, List<AISolver.Move> moves, boolean solved, boolean optimal,
+                long statesExplored, long elapsedMillis, long peakMemoryBytes, SearchControl.StopReason stopReason) {
+        this.algorithm = algorithm;
+        this.moves = Collections.unmodifiableList(moves);
+        this.solved = solved;
+        this.optimal = optimal;
+        this.statesExplored = statesExplored;
+        this.elapsedMillis = elapsedMillis;
+        this.peakMemoryBytes = peakMemoryBytes;
+        this.stopReason = stopReason;
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return the moves from the board to a goal, empty if it was not solved
+     */
+    public List<AISolver.Move> getMoves() {
+        return moves;
+    }
+
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * @return true if the moves are known to be a shortest solution in cell moves
+     */
+    public boolean isOptimal() {
+        return optimal;
+    }
+
+    /**
+     * @return states expanded by the search, 0 if the solution came from the cache
+     */
+    public long getStatesExplored() {
+        return statesExplored;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return the largest size of the search's tables, as estimated by the search itself
+     */
+    public long getPeakMemoryBytes() {
+        return peakMemoryBytes;
+    }
+
+    /**
+     * @return why the search stopped early, NONE if it finished
+     */
+    public SearchControl.StopReason getStopReason() {
+        return stopReason;
+    }
+}
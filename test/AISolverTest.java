@@ -2,13 +2,17 @@ package test;
 
 import controller.GameController;
 import model.AISolver;
+import model.Heuristic;
 import model.MapModel;
+import model.MoveGenerator;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
 import view.game.GamePanel;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class AISolverTest {
     private MapModel model;
@@ -17,7 +21,7 @@ public class AISolverTest {
     @Before
     public void setUp() {
         model = new MapModel();
-        solver = new AISolver(model, null);  // We don't need the controller for this test
+        solver = new AISolver(model);
     }
     
     public static void main(String[] args) {
@@ -31,7 +35,7 @@ public class AISolverTest {
         GameController controller = new GameController(gamePanel, model);
         
         // 创建AI求解器
-        AISolver solver = new AISolver(model, controller);
+        AISolver solver = new AISolver(model);
         
         // 运行简单测试
         testSimpleCaoCaoOnly(model, solver);
@@ -151,4 +155,35 @@ public class AISolverTest {
         assertTrue("Should find a solution", solutionFound);
         assertTrue("Solution should have moves", solver.getSolutionLength() > 0);
     }
-} 
\ No newline at end of file
+
+    @Test
+    public void testSearchAfterFailedSearch() {
+        AISolver hard = new AISolver(new MapModel(1));
+        hard.setHeuristic(new Heuristic() {
+            @Override
+            public int estimate(MoveGenerator generator) {
+                throw new IllegalStateException("broken heuristic");
+            }
+
+            @Override
+            public boolean isAdmissible() {
+                return true;
+            }
+
+            @Override
+            public String getName() {
+                return "Broken";
+            }
+        });
+        try {
+            hard.findSolution();
+            fail("The heuristic's exception should reach the caller");
+        } catch (IllegalStateException expected) {
+            // the solver must still take the next search
+        }
+
+        hard.setHeuristic(null);
+        assertTrue(hard.findSolution());
+        assertEquals(10, hard.getSolutionLength());
+    }
+}
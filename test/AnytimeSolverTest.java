@@ -0,0 +1,44 @@
+package test;
+
+import model.AISolver;
+import model.AnytimeSolver;
+import model.MapModel;
+import model.SearchBudget;
+import model.SearchControl;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AnytimeSolverTest {
+
+    @Test
+    public void testSolutionsImproveToShortest() {
+        int[][] board = new MapModel(0).copyMatrix();
+        AnytimeSolver solver = new AnytimeSolver(board, 0);
+        List<Integer> published = new ArrayList<>();
+
+        assertTrue(solver.solve(new SearchControl(SearchBudget.unlimited(), null),
+                moves -> published.add(moves.size())));
+        assertTrue(solver.isOptimal());
+        assertEquals(100, solver.getSolution().size());
+        assertEquals(solver.getImprovements(), published);
+        for (int i = 1; i < published.size(); i++) {
+            assertTrue("Each published solution should be shorter", published.get(i) < published.get(i - 1));
+        }
+    }
+
+    @Test
+    public void testDeadlineKeepsBestSolution() {
+        MapModel model = new MapModel(0);
+        AISolver solver = new AISolver(model);
+        solver.setSolutionCache(null);
+        solver.setAnytimeMode(true);
+        solver.setBudget(SearchBudget.ofMillis(5000));
+
+        assertTrue(solver.findSolution());
+        assertTrue(solver.getSolutionLength() >= 100);
+    }
+}
@@ -0,0 +1,132 @@
+package test;
+
+import model.AISolver;
+import model.BeamSearchSolver;
+import model.CaoCaoDistanceHeuristic;
+import model.Heuristic;
+import model.MapModel;
+import model.MoveGenerator;
+import model.PatternDatabaseHeuristic;
+import model.SearchBudget;
+import model.solver.Algorithm;
+import model.solver.BoardSolver;
+import model.solver.SolveResult;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BeamSearchSolverTest {
+
+    private static final int[][] CUSTOM_8X8 = {
+            {2, 2, 4, 1, 1, 3, 4, 4},
+            {4, 4, 0, 1, 1, 3, 2, 2},
+            {4, 0, 2, 2, 4, 0, 4, 4},
+            {4, 3, 3, 0, 3, 4, 4, 0},
+            {4, 3, 3, 4, 3, 3, 3, 4},
+            {2, 2, 2, 2, 4, 3, 3, 0},
+            {0, 0, 4, 4, 3, 4, 0, 0},
+            {0, 0, 2, 2, 3, 2, 2, 4},
+    };
+
+    private static final int[][] CUSTOM_10X10 = {
+            {2, 2, 4, 3, 1, 1, 4, 4, 4, 4},
+            {0, 2, 2, 3, 1, 1, 4, 0, 2, 2},
+            {4, 0, 4, 4, 4, 3, 3, 0, 3, 4},
+            {4, 0, 4, 4, 3, 3, 3, 3, 3, 4},
+            {2, 2, 2, 2, 3, 2, 2, 3, 0, 0},
+            {0, 4, 4, 3, 4, 0, 0, 0, 0, 3},
+            {3, 4, 4, 3, 2, 2, 4, 2, 2, 3},
+            {3, 4, 4, 0, 0, 0, 3, 0, 0, 3},
+            {3, 0, 3, 3, 3, 4, 3, 0, 3, 3},
+            {3, 4, 3, 3, 3, 2, 2, 4, 3, 4},
+    };
+
+    /**
+     * The Cao Cao distance, the only heuristic custom boards have
+     */
+    private static Heuristic caoCaoDistance(int[][] board, int level) {
+        return new CaoCaoDistanceHeuristic(MoveGenerator.forLevel(board, level).getCodec());
+    }
+
+    /**
+     * Play the moves from the board and check that they are legal and end at the goal
+     */
+    private static void assertSolves(int[][] board, int level, List<AISolver.Move> moves) {
+        MoveGenerator generator = MoveGenerator.forLevel(board, level);
+        for (AISolver.Move move : moves) {
+            int piece = generator.findPiece(move.row, move.col);
+            assertTrue("no piece at " + move, piece >= 0);
+            assertTrue("illegal move " + move, generator.canMove(piece, move.direction));
+            generator.apply(piece, move.direction);
+        }
+        assertTrue(generator.isGoal());
+    }
+
+    @Test
+    public void testSolvesLevelsWithCaoCaoDistance() {
+        for (int level : new int[]{0, 1, 3}) {
+            int[][] board = MapModel.LEVELS[level];
+            BeamSearchSolver solver = new BeamSearchSolver(board, level, caoCaoDistance(board, level));
+
+            assertTrue(solver.solve());
+            assertEquals(BeamSearchSolver.Outcome.SOLVED, solver.getOutcome());
+            assertSolves(board, level, solver.getSolution());
+        }
+        BeamSearchSolver hard = new BeamSearchSolver(MapModel.LEVELS[1], 1, caoCaoDistance(MapModel.LEVELS[1], 1));
+        hard.solve();
+        assertEquals(10, hard.getSolution().size());
+    }
+
+    @Test
+    public void testSolvesExpertWithPatternDatabases() {
+        BeamSearchSolver solver = new BeamSearchSolver(MapModel.LEVELS[2], 2, PatternDatabaseHeuristic.build(2, 500_000));
+
+        assertTrue(solver.solve());
+        assertTrue(solver.getSolution().size() >= 44);
+        assertSolves(MapModel.LEVELS[2], 2, solver.getSolution());
+    }
+
+    @Test
+    public void testSolvesLargeCustomBoards() {
+        for (int[][] board : new int[][][]{CUSTOM_8X8, CUSTOM_10X10}) {
+            BeamSearchSolver solver = new BeamSearchSolver(board, -1, caoCaoDistance(board, -1));
+
+            assertTrue(solver.solve());
+            assertSolves(board, -1, solver.getSolution());
+            assertTrue(solver.getStatesVisited()
+                    <= (long) BeamSearchSolver.DEFAULT_BEAM_WIDTH * solver.getSolution().size());
+        }
+    }
+
+    @Test
+    public void testNarrowBeamStopsAtDepthLimit() {
+        BeamSearchSolver solver = new BeamSearchSolver(MapModel.LEVELS[2], 2);
+        solver.setBeamWidth(1);
+        solver.setMaxDepth(5);
+
+        assertFalse(solver.solve());
+        assertEquals(BeamSearchSolver.Outcome.DEPTH_LIMIT, solver.getOutcome());
+        assertTrue(solver.getSolution().isEmpty());
+        assertTrue(solver.getStatesVisited() <= 5);
+    }
+
+    /**
+     * A* runs out of states on the 10x10 board, which has no pattern databases
+     */
+    @Test
+    public void testBoardSolverFallsBackToBeamSearch() {
+        BoardSolver solver = new BoardSolver(Algorithm.A_STAR);
+        solver.setBudget(new SearchBudget(60_000, 100_000, Runtime.getRuntime().maxMemory() / 2));
+        solver.setFallbackBeamWidth(BeamSearchSolver.DEFAULT_BEAM_WIDTH);
+        SolveResult result = solver.solve(CUSTOM_10X10, 0);
+
+        assertTrue(result.isSolved());
+        assertFalse(result.isOptimal());
+        assertEquals(Algorithm.BEAM, result.getAlgorithm());
+        assertSolves(CUSTOM_10X10, 0, result.getMoves());
+    }
+}
@@ -0,0 +1,48 @@
+package test;
+
+import model.AISolver;
+import model.BidirectionalSolver;
+import model.MapModel;
+import model.MoveGenerator;
+import model.MoveMetric;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BidirectionalSolverTest {
+
+    private static void assertSolves(int[][] board, int level, BidirectionalSolver solver) {
+        MoveGenerator rules = MoveGenerator.forLevel(board, level);
+        for (AISolver.Move move : solver.getSolution()) {
+            int piece = rules.findPiece(move.row, move.col);
+            assertTrue("Move should start at a piece: " + move, piece >= 0);
+            assertTrue("Move should be legal: " + move, rules.canMove(piece, move.direction));
+            rules.apply(piece, move.direction);
+        }
+        assertTrue("Solution should end on a goal board", rules.isGoal());
+    }
+
+    @Test
+    public void testEasyLevelCellMetric() {
+        int[][] board = new MapModel(0).copyMatrix();
+        BidirectionalSolver solver = new BidirectionalSolver(board, 0, MoveMetric.CELL);
+
+        assertTrue(solver.solve());
+        assertEquals(100, solver.getMoveCount());
+        assertEquals(100, solver.getSolution().size());
+        assertEquals(1, (int) solver.getForwardLayerSizes().get(0));
+        assertSolves(board, 0, solver);
+    }
+
+    @Test
+    public void testEasyLevelPieceMetric() {
+        int[][] board = new MapModel(0).copyMatrix();
+        BidirectionalSolver solver = new BidirectionalSolver(board, 0, MoveMetric.PIECE);
+
+        assertTrue(solver.solve());
+        assertEquals(70, solver.getMoveCount());
+        assertTrue(solver.getSolution().size() >= solver.getMoveCount());
+        assertSolves(board, 0, solver);
+    }
+}
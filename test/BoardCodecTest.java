@@ -0,0 +1,78 @@
+package test;
+
+import model.BoardCodec;
+import model.MapModel;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoardCodecTest {
+
+    @Test
+    public void testShippedLevelsAreCompact() {
+        for (int[][] level : MapModel.LEVELS) {
+            BoardCodec codec = new BoardCodec(level);
+            assertTrue("Shipped levels should fit in one long", codec.isCompact());
+            assertArrayEquals(level, codec.unpack(codec.pack(level)));
+        }
+    }
+
+    @Test
+    public void testMovedBoardRoundTrip() {
+        int[][] board = MapModel.LEVELS[0];
+        BoardCodec codec = new BoardCodec(board);
+        int[][] moved = codec.unpack(codec.pack(board));
+        moved[4][1] = MapModel.SOLDIER;
+        moved[3][1] = 0;
+        assertNotEquals(codec.pack(board), codec.pack(moved));
+        assertArrayEquals(moved, codec.unpack(codec.pack(moved)));
+    }
+
+    @Test
+    public void testMirrorCanonicalization() {
+        BoardCodec easy = new BoardCodec(MapModel.LEVELS[0]);
+        assertTrue(easy.isMirrorSymmetric());
+        long key = easy.pack(MapModel.LEVELS[0]);
+        int[][] moved = easy.unpack(key);
+        moved[4][1] = MapModel.SOLDIER;
+        moved[3][1] = 0;
+        long movedKey = easy.pack(moved);
+        assertNotEquals(movedKey, easy.mirror(movedKey));
+        assertEquals(movedKey, easy.mirror(easy.mirror(movedKey)));
+        assertEquals(easy.canonical(movedKey), easy.canonical(easy.mirror(movedKey)));
+
+        // BLOCKED cells and the camp break the symmetry of Expert and Master
+        assertFalse(new BoardCodec(MapModel.LEVELS[2]).isMirrorSymmetric());
+        assertFalse(new BoardCodec(MapModel.LEVELS[3]).isMirrorSymmetric());
+    }
+
+    @Test
+    public void testWideBoardFallback() {
+        int[][] board = new int[10][10];
+        for (int r = 0; r < 10; r++) {
+            for (int c = 0; c < 10; c++) {
+                board[r][c] = (r + c) % 3 == 0 ? 0 : MapModel.SOLDIER;
+            }
+        }
+        board[0][0] = board[0][1] = board[1][0] = board[1][1] = MapModel.CAO_CAO;
+        board[9][9] = MapModel.BLOCKED;
+
+        BoardCodec codec = new BoardCodec(board);
+        assertFalse("10x10 boards need the wide encoding", codec.isCompact());
+        long key = codec.pack(board);
+        assertEquals(key, codec.pack(board));
+        assertArrayEquals(board, codec.unpack(key));
+
+        int[][] other = codec.unpack(key);
+        other[0][2] = other[0][2] == 0 ? MapModel.SOLDIER : 0;
+        long otherKey = codec.pack(other);
+        assertNotEquals(key, otherKey);
+        assertArrayEquals(board, codec.unpack(key));
+        assertArrayEquals(other, codec.unpack(otherKey));
+        assertEquals(key, codec.pack(board));
+    }
+}
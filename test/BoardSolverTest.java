@@ -0,0 +1,30 @@
+package test;
+
+import model.MapModel;
+import model.SearchBudget;
+import model.solver.Algorithm;
+import model.solver.BoardSolver;
+import model.solver.SolveResult;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BoardSolverTest {
+
+    @Test
+    public void testAlgorithmsAgreeOnShortestLength() {
+        BoardSolver solver = new BoardSolver();
+        solver.setBudget(SearchBudget.ofMillis(60_000));
+        for (Algorithm algorithm : new Algorithm[]{Algorithm.A_STAR, Algorithm.BIDIRECTIONAL_BFS, Algorithm.IDA_STAR}) {
+            solver.setAlgorithm(algorithm);
+            SolveResult result = solver.solve(MapModel.LEVELS[1], 1);
+
+            assertTrue(algorithm + " should solve", result.isSolved());
+            assertTrue(result.isOptimal());
+            assertEquals(10, result.getMoves().size());
+            assertEquals(algorithm, result.getAlgorithm());
+            assertTrue(result.getStatesExplored() > 0);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package test;
+
+import model.ExternalBfs;
+import model.MapModel;
+import model.ParallelBfs;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExternalBfsTest {
+
+    @Test
+    public void testLayersMatchInMemoryBfs() throws Exception {
+        int[][] board = MapModel.LEVELS[0];
+        ParallelBfs reference = new ParallelBfs(board, 0, 2);
+        assertTrue(reference.explore(null));
+
+        // Small runs force many of them per layer
+        ExternalBfs bfs = new ExternalBfs(board, 0, null);
+        bfs.setRunSize(1000);
+        List<Long> visited = new ArrayList<>();
+        assertTrue(bfs.explore((depth, keys, count) -> {
+            for (int i = 1; i < count; i++) {
+                assertTrue("Layer keys should ascend", keys[i - 1] < keys[i]);
+            }
+            while (visited.size() <= depth) {
+                visited.add(0L);
+            }
+            visited.set(depth, visited.get(depth) + count);
+        }));
+
+        List<Long> sizes = new ArrayList<>();
+        for (ExternalBfs.Layer layer : bfs.getLayers()) {
+            sizes.add(layer.getStates());
+            assertTrue(layer.getBytesWritten() >= 8 * layer.getStates());
+        }
+        assertEquals(reference.getLayerSizes(), sizes);
+        assertEquals(reference.getLayerSizes(), visited);
+        assertEquals(reference.getStateCount(), bfs.getStateCount());
+        assertFalse("Temporary files should be deleted", bfs.getWorkDirectory().exists());
+    }
+}
@@ -0,0 +1,48 @@
+package test;
+
+import controller.GameController;
+import model.AISolver;
+import model.IncrementalPlanner;
+import model.MapModel;
+import org.junit.Test;
+import view.game.GameFrame;
+
+import java.awt.GraphicsEnvironment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+public class GameControllerTest {
+
+    @Test
+    public void testTimeAttackHintsSearchBriefly() {
+        IncrementalPlanner planner = new IncrementalPlanner();
+        AISolver relaxed = GameController.createHintSolver(new MapModel(2), planner, false);
+        AISolver hurried = GameController.createHintSolver(new MapModel(2), planner, true);
+
+        assertFalse(relaxed.isAnytimeMode());
+        assertTrue(hurried.isAnytimeMode());
+        assertEquals(GameController.TIME_ATTACK_HINT_MILLIS, hurried.getBudget().getMaxMillis());
+    }
+
+    /**
+     * The board sits in a scroll pane, so the controller cannot find the frame by walking up
+     * its parents; the frame has to tell it
+     */
+    @Test
+    public void testFramePassesTimeAttackMode() {
+        assumeFalse(GraphicsEnvironment.isHeadless());
+        GameFrame frame = new GameFrame(900, 750, new MapModel(0));
+        try {
+            assertFalse(frame.getController().isTimeAttackMode());
+            frame.setTimeAttackMode(true, 5);
+            assertTrue(frame.getController().isTimeAttackMode());
+            frame.setTimeAttackMode(false, 5);
+            assertFalse(frame.getController().isTimeAttackMode());
+        } finally {
+            frame.dispose();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package test;
+
+import model.CaoCaoDistanceHeuristic;
+import model.Heuristic;
+import model.LongArrayList;
+import model.MapModel;
+import model.MoveGenerator;
+import model.ParallelBfs;
+import model.PatternDatabaseHeuristic;
+import org.junit.Test;
+
+import java.io.InputStream;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class HeuristicTest {
+
+    /**
+     * Compare a heuristic with the exact distance of every board reachable on Easy
+     */
+    private static void assertAdmissible(Heuristic heuristic) {
+        int[][] layout = MapModel.LEVELS[0];
+        MoveGenerator generator = MoveGenerator.forLevel(layout, 0);
+        ParallelBfs bfs = new ParallelBfs(layout, 0, 1);
+
+        LongArrayList goals = new LongArrayList();
+        bfs.explore((depth, keys, count) -> {
+            for (int i = 0; i < count; i++) {
+                generator.load(keys[i]);
+                if (generator.isGoal()) {
+                    goals.add(keys[i]);
+                }
+            }
+        });
+        long[] goalKeys = new long[goals.size()];
+        for (int i = 0; i < goalKeys.length; i++) {
+            goalKeys[i] = goals.get(i);
+        }
+        bfs.explore(goalKeys, (depth, keys, count) -> {
+            for (int i = 0; i < count; i++) {
+                generator.load(keys[i]);
+                int estimate = heuristic.estimate(generator);
+                assertTrue(heuristic.getName() + " estimates " + estimate + " for a board " + depth + " moves away",
+                        estimate <= depth);
+            }
+        });
+    }
+
+    @Test
+    public void testCaoCaoDistanceIsAdmissible() {
+        MoveGenerator generator = MoveGenerator.forLevel(MapModel.LEVELS[0], 0);
+        assertAdmissible(new CaoCaoDistanceHeuristic(generator.getCodec()));
+    }
+
+    @Test
+    public void testPatternDatabasesAreAdmissible() {
+        PatternDatabaseHeuristic heuristic = PatternDatabaseHeuristic.build(0, 1_000_000);
+        assertTrue(heuristic.describe().size() >= 2);
+        assertAdmissible(heuristic);
+    }
+
+    /**
+     * The shipped databases must match the current levels, or every solver quietly falls back
+     * to the Cao Cao distance
+     */
+    @Test
+    public void testShippedPatternDatabasesMatchLevels() throws Exception {
+        for (int level = 0; level < MapModel.LEVELS.length; level++) {
+            String name = "/resource/hintdb/level" + level + ".pdb";
+            try (InputStream in = HeuristicTest.class.getResourceAsStream(name)) {
+                assertNotNull(name + " should be on the class path", in);
+                PatternDatabaseHeuristic heuristic = PatternDatabaseHeuristic.read(in, level);
+                assertTrue(heuristic.accepts(MapModel.LEVELS[level]));
+            }
+            assertTrue(PatternDatabaseHeuristic.bestFor(MapModel.LEVELS[level], level) instanceof PatternDatabaseHeuristic);
+        }
+    }
+}
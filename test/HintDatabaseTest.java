@@ -0,0 +1,122 @@
+package test;
+
+import model.AISolver;
+import model.BidirectionalSolver;
+import model.HintDatabase;
+import model.HintDatabaseBuilder;
+import model.MapModel;
+import model.MinimalPerfectHash;
+import model.MoveBuffer;
+import model.MoveGenerator;
+import model.MoveMetric;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Random;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class HintDatabaseTest {
+    private static File file;
+    private static HintDatabase database;
+
+    @BeforeClass
+    public static void buildEasyLevel() throws IOException {
+        file = File.createTempFile("level0", ".kdb");
+        assertTrue(HintDatabaseBuilder.build(0, file));
+        database = HintDatabase.open(file, 0);
+    }
+
+    @AfterClass
+    public static void deleteFile() {
+        file.delete();
+    }
+
+    @Test
+    public void testPerfectHashRoundTrip() throws IOException {
+        Random random = new Random(7);
+        long[] keys = new long[10_000];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        MinimalPerfectHash hash = MinimalPerfectHash.build(keys, keys.length);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFE);
+            hash.write(out);
+        }
+        assertEquals(4 + hash.serializedSize(), bytes.size());
+        MinimalPerfectHash read = MinimalPerfectHash.read(ByteBuffer.wrap(bytes.toByteArray()), 4);
+
+        assertEquals(keys.length, read.size());
+        boolean[] used = new boolean[keys.length];
+        for (long key : keys) {
+            long index = read.lookup(key);
+            assertEquals(hash.lookup(key), index);
+            assertTrue(index >= 0 && index < keys.length);
+            assertFalse("Two keys share index " + index, used[(int) index]);
+            used[(int) index] = true;
+        }
+    }
+
+    @Test
+    public void testDistancesMatchBidirectionalSearch() {
+        assertTrue(database.getStateCount() > 0);
+        assertEquals(100, database.getDistance(MapModel.LEVELS[0]));
+
+        Random random = new Random(42);
+        MoveGenerator walker = MoveGenerator.forLevel(MapModel.LEVELS[0], 0);
+        MoveBuffer successors = new MoveBuffer();
+        for (int sample = 0; sample < 5; sample++) {
+            for (int step = 0; step < 15; step++) {
+                walker.generate(successors);
+                int move = random.nextInt(successors.size());
+                walker.apply(successors.getPiece(move), successors.getDirection(move));
+            }
+            int[][] board = walker.getBoard();
+            BidirectionalSolver solver = new BidirectionalSolver(board, 0, MoveMetric.CELL);
+            assertTrue(solver.solve());
+            int distance = database.getDistance(board);
+            assertEquals(solver.getMoveCount(), distance);
+
+            List<AISolver.Move> best = database.getBestMoves(board, 3);
+            assertNotNull(best);
+            MoveGenerator rules = MoveGenerator.forLevel(board, 0);
+            for (AISolver.Move hint : best) {
+                int piece = rules.findPiece(hint.row, hint.col);
+                assertTrue("Hint should be legal: " + hint, piece >= 0 && rules.canMove(piece, hint.direction));
+                rules.apply(piece, hint.direction);
+            }
+            assertEquals(distance - best.size(), database.getDistance(rules.getBoard()));
+        }
+    }
+
+    @Test
+    public void testBoardOutsideDatabaseIsRejected() {
+        int[][] board = new MapModel(0).copyMatrix();
+        board[3][1] = 0;  // one soldier fewer than any reachable board
+        assertEquals(-1, database.getDistance(board));
+        assertNull(database.getBestMoves(board, 1));
+    }
+
+    @Test
+    public void testFileOfAnotherLevelIsRejected() {
+        try {
+            HintDatabase.open(file, 1);
+            fail("A database should only open for the layout it was built for");
+        } catch (IOException expected) {
+            // header names level 0
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package test;
+
+import model.AISolver;
+import model.IdaStarSolver;
+import model.MapModel;
+import model.MoveGenerator;
+import model.solver.Algorithm;
+import model.solver.BoardSolver;
+import model.solver.SolveResult;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IdaStarSolverTest {
+
+    @Test
+    public void testEasyLevelIsShortestWithSmallTable() {
+        int[][] board = new MapModel(0).copyMatrix();
+        IdaStarSolver solver = new IdaStarSolver(board, 0, 256 * 1024);
+
+        assertTrue(solver.solve());
+        assertEquals(100, solver.getSolution().size());
+        assertTrue(solver.memoryUsage() < 512 * 1024);
+
+        MoveGenerator rules = MoveGenerator.forLevel(board, 0);
+        for (AISolver.Move move : solver.getSolution()) {
+            int piece = rules.findPiece(move.row, move.col);
+            assertTrue("Move should be legal: " + move, piece >= 0 && rules.canMove(piece, move.direction));
+            rules.apply(piece, move.direction);
+        }
+        assertTrue("Solution should end on a goal board", rules.isGoal());
+    }
+
+    /**
+     * 10x10 boards do not pack into one long, so the search runs without a table
+     */
+    @Test
+    public void testWideBoardSearchesWithoutTable() {
+        int[][] board = new int[10][10];
+        for (int[] row : board) {
+            Arrays.fill(row, MapModel.SOLDIER);
+        }
+        for (int r = 6; r < 8; r++) {
+            board[r][4] = board[r][5] = MapModel.CAO_CAO;
+        }
+        board[8][4] = board[8][5] = board[9][5] = board[9][3] = 0;
+
+        IdaStarSolver solver = new IdaStarSolver(board, -1);
+        assertTrue(solver.solve());
+        assertEquals(3, solver.getSolution().size());
+
+        SolveResult result = new BoardSolver(Algorithm.IDA_STAR).solve(board, 0);
+        assertTrue(result.isSolved());
+        assertEquals(3, result.getMoves().size());
+    }
+}
@@ -0,0 +1,131 @@
+package test;
+
+import model.AISolver;
+import model.IncrementalPlanner;
+import model.MapModel;
+import model.MoveBuffer;
+import model.MoveGenerator;
+import model.SearchBudget;
+import model.SearchControl;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalPlannerTest {
+
+    private static SearchControl unlimited() {
+        return new SearchControl(SearchBudget.unlimited(), null);
+    }
+
+    private static int[][] play(int[][] board, int level, AISolver.Move move) {
+        MoveGenerator generator = MoveGenerator.forLevel(board, level);
+        MoveBuffer moves = new MoveBuffer();
+        generator.generate(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.getRow(i) == move.row && moves.getCol(i) == move.col && moves.getDirection(i) == move.direction) {
+                generator.apply(moves.getPiece(i), move.direction);
+                return new MapModel(generator.getBoard()).copyMatrix();
+            }
+        }
+        throw new AssertionError("Illegal move " + move);
+    }
+
+    private static long canonicalKey(int[][] board, int level) {
+        MoveGenerator generator = MoveGenerator.forLevel(board, level);
+        generator.setCanonical(true);
+        return generator.getCanonicalKey();
+    }
+
+    private static int shortest(int[][] board, int level) {
+        MapModel model = new MapModel(level);
+        model.setMatrix(board);
+        AISolver solver = new AISolver(model);
+        solver.setSolutionCache(null);
+        assertTrue(solver.findSolution());
+        return solver.getSolutionLength();
+    }
+
+    @Test
+    public void testFollowingTheHintReusesThePath() {
+        IncrementalPlanner planner = new IncrementalPlanner();
+        int[][] board = new MapModel(0).copyMatrix();
+        assertTrue(planner.plan(board, 0, unlimited()));
+        assertEquals(100, planner.getSolution().size());
+
+        board = play(board, 0, planner.getSolution().get(0));
+        assertTrue(planner.plan(board, 0, unlimited()));
+        assertEquals(99, planner.getSolution().size());
+        assertEquals(1, planner.getStatesVisited());
+        assertEquals(99, planner.getReusedMoves());
+    }
+
+    @Test
+    public void testDeviationStaysShortest() {
+        IncrementalPlanner planner = new IncrementalPlanner();
+        int[][] board = new MapModel(1).copyMatrix();
+        assertTrue(planner.plan(board, 1, unlimited()));
+        AISolver.Move hint = planner.getSolution().get(0);
+
+        // Every move but the hinted one
+        MoveGenerator generator = MoveGenerator.forLevel(board, 1);
+        MoveBuffer moves = new MoveBuffer();
+        generator.generate(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            AISolver.Move move = new AISolver.Move(moves.getRow(i), moves.getCol(i), moves.getDirection(i));
+            if (move.row == hint.row && move.col == hint.col && move.direction == hint.direction) {
+                continue;
+            }
+            int[][] next = play(board, 1, move);
+            assertTrue(planner.plan(next, 1, unlimited()));
+            assertEquals(shortest(next, 1), planner.getSolution().size());
+        }
+    }
+
+    @Test
+    public void testSolverSearchesWithPlanner() {
+        MapModel model = new MapModel(1);
+        AISolver solver = new AISolver(model);
+        solver.setSolutionCache(null);
+        IncrementalPlanner planner = new IncrementalPlanner();
+        solver.setIncrementalPlanner(planner);
+
+        assertTrue(solver.findSolution());
+        assertEquals(10, solver.getSolutionLength());
+        assertTrue(planner.getLearnedStates() > 0);
+    }
+
+    /**
+     * Without room to look for a shorter way, a board one move off the path is answered with
+     * the move back and the rest of the path
+     */
+    @Test
+    public void testDetourCapTakesThePathBack() {
+        IncrementalPlanner planner = new IncrementalPlanner();
+        int[][] board = new MapModel(1).copyMatrix();
+        assertTrue(planner.plan(board, 1, unlimited()));
+        assertTrue(planner.isOptimal());
+        AISolver.Move hint = planner.getSolution().get(0);
+
+        // A move to a board other than the hinted one or its mirror image
+        long hinted = canonicalKey(play(board, 1, hint), 1);
+        MoveGenerator generator = MoveGenerator.forLevel(board, 1);
+        MoveBuffer moves = new MoveBuffer();
+        generator.generate(moves);
+        int[][] next = null;
+        for (int i = 0; i < moves.size() && next == null; i++) {
+            int[][] candidate = play(board, 1, new AISolver.Move(moves.getRow(i), moves.getCol(i), moves.getDirection(i)));
+            if (canonicalKey(candidate, 1) != hinted) {
+                next = candidate;
+            }
+        }
+
+        planner.setMaxDetourStates(0);
+        assertTrue(planner.plan(next, 1, unlimited()));
+        assertFalse(planner.isOptimal());
+        assertEquals(11, planner.getSolution().size());
+        assertEquals(10, planner.getReusedMoves());
+        assertEquals(1, planner.getStatesVisited());
+    }
+}
@@ -0,0 +1,111 @@
+package test;
+
+import model.IndexedMinHeap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedMinHeapTest {
+
+    /**
+     * Run random inserts, decreases and polls against a PriorityQueue ordered on the primary
+     * and then the lower secondary priority. Equal priorities may come out in either order,
+     * so polls are compared on priorities and the id must be one queued with them.
+     */
+    private static void compareWithPriorityQueue(IndexedMinHeap heap, int idRange, long seed) {
+        Random random = new Random(seed);
+        PriorityQueue<int[]> expected = new PriorityQueue<>(
+                Comparator.<int[]>comparingInt(entry -> entry[1]).thenComparingInt(entry -> entry[2]));
+        Map<Integer, int[]> queued = new HashMap<>();
+        List<Integer> ids = new ArrayList<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            int operation = random.nextInt(10);
+            if (operation < 4 || queued.isEmpty()) {
+                int id = random.nextInt(idRange);
+                if (queued.containsKey(id)) {
+                    continue;
+                }
+                int[] entry = {id, random.nextInt(50), random.nextInt(50)};
+                heap.insert(id, entry[1], entry[2]);
+                expected.add(entry);
+                queued.put(id, entry);
+                ids.add(id);
+            } else if (operation < 7) {
+                int id = ids.get(random.nextInt(ids.size()));
+                int[] entry = queued.get(id);
+                if (entry == null) {
+                    continue;
+                }
+                expected.remove(entry);
+                if (random.nextBoolean()) {
+                    entry[1] -= 1 + random.nextInt(5);
+                } else {
+                    entry[2] -= 1 + random.nextInt(5);  // same primary, lower tie-break
+                }
+                heap.decreaseKey(id, entry[1], entry[2]);
+                expected.add(entry);
+            } else {
+                int[] top = expected.peek();
+                int id = heap.poll();
+                int[] entry = queued.remove(id);
+                assertTrue("Polled an id that was not queued: " + id, entry != null);
+                assertEquals(top[1], entry[1]);
+                assertEquals(top[2], entry[2]);
+                assertTrue(expected.remove(entry));
+                assertFalse(heap.contains(id));
+            }
+            assertEquals(expected.size(), heap.size());
+        }
+        while (!expected.isEmpty()) {
+            int[] top = expected.poll();
+            int id = heap.poll();
+            int[] entry = queued.remove(id);
+            assertEquals(top[1], entry[1]);
+            assertEquals(top[2], entry[2]);
+            if (entry != top) {
+                assertTrue(expected.remove(entry));
+                expected.add(top);
+            }
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testMatchesPriorityQueueOnHeap() {
+        compareWithPriorityQueue(new IndexedMinHeap(16), 5_000, 1);
+    }
+
+    @Test
+    public void testMatchesPriorityQueueOffHeap() {
+        // Ids over three chunks of off-heap records
+        try (IndexedMinHeap heap = new IndexedMinHeap(16, true)) {
+            compareWithPriorityQueue(heap, 3 << 20, 2);
+        }
+    }
+
+    @Test
+    public void testTieBreakOnLowerSecondary() {
+        IndexedMinHeap heap = new IndexedMinHeap();
+        heap.insert(1, 10, 5);
+        heap.insert(2, 10, 3);
+        heap.insert(3, 11, 0);
+        heap.insert(4, 10, 4);
+        heap.decreaseKey(3, 10, 1);
+
+        assertEquals(3, heap.poll());
+        assertEquals(2, heap.poll());
+        assertEquals(4, heap.poll());
+        assertEquals(1, heap.poll());
+        assertTrue(heap.isEmpty());
+    }
+}
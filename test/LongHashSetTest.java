@@ -0,0 +1,70 @@
+package test;
+
+import model.LongHashSet;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LongHashSetTest {
+
+    @Test
+    public void testZeroKey() {
+        LongHashSet set = new LongHashSet();
+        assertFalse(set.contains(0L));
+        assertTrue(set.add(0L));
+        assertFalse(set.add(0L));
+        assertTrue(set.contains(0L));
+        assertEquals(1, set.size());
+
+        set.clear();
+        assertFalse(set.contains(0L));
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(0L));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    public void testClearAndReinsert() {
+        LongHashSet set = new LongHashSet();
+        for (long key = -50; key <= 50; key++) {
+            assertTrue(set.add(key * 31));
+        }
+        set.clear();
+        for (long key = -50; key <= 50; key++) {
+            assertFalse(set.contains(key * 31));
+        }
+        for (long key = -50; key <= 50; key++) {
+            assertTrue(set.add(key * 31));
+            assertFalse(set.add(key * 31));
+        }
+        assertEquals(101, set.size());
+    }
+
+    @Test
+    public void testGrowsFromSmallTable() {
+        LongHashSet set = new LongHashSet(1);
+        long before = set.memoryUsage();
+        for (long i = 0; i < 100_000; i++) {
+            assertTrue(set.add(i << 20));  // keys that differ only in their high bits
+        }
+        assertEquals(100_000, set.size());
+        assertTrue(set.memoryUsage() > before);
+        for (long i = 0; i < 100_000; i++) {
+            assertTrue(set.contains(i << 20));
+            assertFalse(set.contains((i << 20) + 1));
+        }
+    }
+
+    @Test
+    public void testTooLargeExpectedSize() {
+        try {
+            new LongHashSet(1_000_000_000);
+            fail("More entries than the largest table should be refused");
+        } catch (IllegalArgumentException expected) {
+            // no table of 2^31 slots
+        }
+    }
+}
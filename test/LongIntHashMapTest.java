@@ -0,0 +1,61 @@
+package test;
+
+import model.LongIntHashMap;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongIntHashMapTest {
+
+    @Test
+    public void testZeroKey() {
+        LongIntHashMap map = new LongIntHashMap(-1);
+        assertEquals(-1, map.get(0L));
+        assertFalse(map.containsKey(0L));
+        assertEquals(-1, map.put(0L, 5));
+        assertEquals(5, map.put(0L, 6));
+        assertEquals(6, map.get(0L));
+        assertEquals(1, map.size());
+
+        map.clear();
+        assertEquals(-1, map.get(0L));
+        assertEquals(-1, map.put(0L, 7));
+        assertEquals(7, map.get(0L));
+    }
+
+    @Test
+    public void testClearAndReinsert() {
+        LongIntHashMap map = new LongIntHashMap(Integer.MAX_VALUE);
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(Integer.MAX_VALUE, map.put(-i, i));
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        for (int i = 1; i <= 100; i++) {
+            assertFalse(map.containsKey(-i));
+            assertEquals(Integer.MAX_VALUE, map.put(-i, 2 * i));
+        }
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(2 * i, map.get(-i));
+        }
+        assertEquals(100, map.size());
+    }
+
+    @Test
+    public void testGrowsAndKeepsValues() {
+        LongIntHashMap map = new LongIntHashMap(1, -1);
+        for (int i = 0; i < 100_000; i++) {
+            map.put((long) i << 32, i);
+        }
+        for (int i = 0; i < 100_000; i += 2) {
+            assertEquals(i, map.put((long) i << 32, -i));
+        }
+        assertEquals(100_000, map.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i % 2 == 0 ? -i : i, map.get((long) i << 32));
+            assertEquals(-1, map.get(((long) i << 32) + 1));
+        }
+    }
+}
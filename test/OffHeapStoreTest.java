@@ -0,0 +1,88 @@
+package test;
+
+import model.AISolver;
+import model.IndexedMinHeap;
+import model.MapModel;
+import model.NodeStore;
+import model.OffHeapLongIntHashMap;
+import model.OffHeapNodeArena;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapStoreTest {
+
+    @Test
+    public void testMapKeepsEntriesWhileGrowing() {
+        try (OffHeapLongIntHashMap map = new OffHeapLongIntHashMap(16, -1)) {
+            for (int i = 0; i < 200_000; i++) {
+                map.put(i * 0x9E3779B97F4A7C15L, i);
+            }
+            assertEquals(200_000, map.size());
+            assertEquals(0, map.get(0L));
+            assertEquals(199_999, map.get(199_999 * 0x9E3779B97F4A7C15L));
+            assertEquals(-1, map.get(12345L));
+            assertFalse(map.containsKey(12345L));
+            assertEquals(7, map.put(7 * 0x9E3779B97F4A7C15L, 70));
+            assertEquals(70, map.get(7 * 0x9E3779B97F4A7C15L));
+        }
+    }
+
+    @Test
+    public void testArenaSpansChunks() {
+        try (OffHeapNodeArena nodes = new OffHeapNodeArena()) {
+            int count = (1 << 20) + 10;
+            for (int i = 0; i < count; i++) {
+                assertEquals(i, nodes.add(i + 1L, i - 1, i, 2 * i));
+            }
+            int last = count - 1;
+            assertEquals(count, nodes.getKey(last));
+            assertEquals(last - 1, nodes.getParent(last));
+            assertEquals(3 * last, nodes.getF(last));
+            assertEquals(NodeStore.NO_PARENT, nodes.getParent(0));
+
+            assertTrue(nodes.markClosed(last));
+            assertFalse(nodes.markClosed(last));
+            assertTrue(nodes.isClosed(last));
+            assertFalse(nodes.isClosed(last - 1));
+        }
+    }
+
+    @Test
+    public void testHeapSpansChunksInOrder() {
+        try (IndexedMinHeap offHeap = new IndexedMinHeap(16, true)) {
+            IndexedMinHeap onHeap = new IndexedMinHeap(16);
+            int count = (1 << 20) + 10;
+            for (int id = 0; id < count; id += 7) {
+                offHeap.insert(id, id % 1000, -id);
+                onHeap.insert(id, id % 1000, -id);
+            }
+            int last = (count - 1) / 7 * 7;
+            offHeap.decreaseKey(last, -1, 0);
+            onHeap.decreaseKey(last, -1, 0);
+            assertTrue(offHeap.contains(last));
+            assertFalse(offHeap.contains(last + 1));
+            assertTrue(offHeap.memoryUsage() >= 12L * count);
+
+            assertEquals(last, offHeap.peek());
+            while (!onHeap.isEmpty()) {
+                assertEquals(onHeap.poll(), offHeap.poll());
+            }
+            assertTrue(offHeap.isEmpty());
+            assertFalse(offHeap.contains(last));
+        }
+    }
+
+    @Test
+    public void testOffHeapSearchFindsShortestSolution() {
+        MapModel model = new MapModel(0);
+        AISolver solver = new AISolver(model);
+        solver.setSolutionCache(null);
+        solver.setOffHeap(true);
+
+        assertTrue(solver.findSolution());
+        assertEquals(100, solver.getSolutionLength());
+    }
+}
@@ -0,0 +1,42 @@
+package test;
+
+import model.BidirectionalSolver;
+import model.MapModel;
+import model.MoveMetric;
+import model.ParallelBfs;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelBfsTest {
+
+    /**
+     * The forward half of the bidirectional search is a breadth-first search of the same
+     * canonical boards; its last layer may stop early where the two halves meet
+     */
+    @Test
+    public void testLayersMatchBidirectionalSearch() {
+        int[][] board = MapModel.LEVELS[0];
+        BidirectionalSolver exact = new BidirectionalSolver(board, 0, MoveMetric.CELL);
+        assertTrue(exact.solve());
+        List<Integer> forward = exact.getForwardLayerSizes();
+
+        ParallelBfs bfs = new ParallelBfs(board, 0, 4);
+        assertTrue(bfs.explore(null));
+        List<Long> layers = bfs.getLayerSizes();
+
+        assertTrue(forward.size() > 2);
+        assertTrue(layers.size() >= forward.size());
+        for (int depth = 0; depth < forward.size() - 1; depth++) {
+            assertEquals("Layer " + depth, (long) forward.get(depth), (long) layers.get(depth));
+        }
+        long total = 0;
+        for (long size : layers) {
+            total += size;
+        }
+        assertEquals(bfs.getStateCount(), total);
+    }
+}
@@ -0,0 +1,92 @@
+package test;
+
+import model.AISolver;
+import model.AnytimeSolver;
+import model.BidirectionalSolver;
+import model.CaoCaoDistanceHeuristic;
+import model.Direction;
+import model.MapModel;
+import model.MoveGenerator;
+import model.MoveMetric;
+import model.PathOptimizer;
+import model.SearchBudget;
+import model.SearchControl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PathOptimizerTest {
+
+    private static void assertSolves(int[][] board, int level, List<AISolver.Move> moves) {
+        MoveGenerator rules = MoveGenerator.forLevel(board, level);
+        for (AISolver.Move move : moves) {
+            int piece = rules.findPiece(move.row, move.col);
+            assertTrue("Move should start at a piece: " + move, piece >= 0);
+            assertTrue("Move should be legal: " + move, rules.canMove(piece, move.direction));
+            rules.apply(piece, move.direction);
+        }
+        assertTrue("Solution should end on a goal board", rules.isGoal());
+    }
+
+    @Test
+    public void testCutsDetour() {
+        int[][] board = MapModel.LEVELS[1];
+        BidirectionalSolver exact = new BidirectionalSolver(board, 1, MoveMetric.CELL);
+        assertTrue(exact.solve());
+
+        // Move the first movable piece away and back before the shortest solution
+        MoveGenerator rules = MoveGenerator.forLevel(board, 1);
+        List<AISolver.Move> detour = new ArrayList<>();
+        for (int piece = 0; piece < rules.getPieceCount() && detour.isEmpty(); piece++) {
+            for (Direction direction : Direction.values()) {
+                if (rules.canMove(piece, direction)) {
+                    int row = rules.getPieceRow(piece);
+                    int col = rules.getPieceCol(piece);
+                    Direction back = Direction.values()[(direction.ordinal() + 2) % 4];
+                    detour.add(new AISolver.Move(row, col, direction));
+                    detour.add(new AISolver.Move(row + direction.getRowOffset(), col + direction.getColOffset(), back));
+                    break;
+                }
+            }
+        }
+        detour.addAll(exact.getSolution());
+        PathOptimizer optimizer = new PathOptimizer(board, 1);
+        optimizer.setWindow(0);
+        List<AISolver.Move> optimized = optimizer.optimize(detour);
+
+        assertEquals(10, optimized.size());
+        assertSolves(board, 1, optimized);
+    }
+
+    /**
+     * Greedy best-first search on Easy, guided by the Cao Cao distance, leaves moves of one
+     * piece apart that can be made in one go
+     */
+    @Test
+    public void testNeverLongerAndMergesPieceMoves() {
+        int[][] board = MapModel.LEVELS[0];
+        AnytimeSolver greedy = new AnytimeSolver(board, 0,
+                new CaoCaoDistanceHeuristic(MoveGenerator.forLevel(board, 0).getCodec()));
+        greedy.setWeights(10_000);
+        assertTrue(greedy.solve(new SearchControl(SearchBudget.ofMillis(60_000), null), null));
+        List<AISolver.Move> found = greedy.getSolution();
+
+        PathOptimizer optimizer = new PathOptimizer(board, 0);
+        List<AISolver.Move> optimized = optimizer.optimize(found);
+
+        assertTrue(optimized.size() <= found.size());
+        assertTrue(optimizer.countPieceMoves(optimized) < optimizer.countPieceMoves(found));
+        assertSolves(board, 0, optimized);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsIllegalMove() {
+        List<AISolver.Move> moves = new ArrayList<>();
+        moves.add(new AISolver.Move(0, 0, Direction.UP));
+        new PathOptimizer(MapModel.LEVELS[1], 1).optimize(moves);
+    }
+}
@@ -0,0 +1,106 @@
+package test;
+
+import model.AISolver;
+import model.BeamSearchSolver;
+import model.MapModel;
+import model.PortfolioSolver;
+import model.SearchBudget;
+import model.SearchControl;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PortfolioSolverTest {
+
+    @Test
+    public void testAcceptableLengthPicksShortestWinner() {
+        PortfolioSolver portfolio = new PortfolioSolver(Arrays.asList(
+                PortfolioSolver.greedy(), PortfolioSolver.aStar(), PortfolioSolver.bidirectionalBfs()));
+        portfolio.setAcceptableLength(10);
+        try {
+            assertTrue(portfolio.solve(MapModel.LEVELS[1], 1));
+            assertEquals(10, portfolio.getSolution().size());
+
+            int wins = 0;
+            for (PortfolioSolver.Stats stats : portfolio.getStats(1)) {
+                assertEquals(1, stats.getRuns());
+                wins += stats.getWins();
+            }
+            assertEquals(1, wins);
+            assertEquals("Greedy", portfolio.getStats(1).get(0).getName());
+        } finally {
+            portfolio.shutdown();
+        }
+    }
+
+    @Test
+    public void testRaceSharesMemoryAndWaitsForLosers() {
+        AtomicLong bytes = new AtomicLong();
+        AtomicBoolean stopped = new AtomicBoolean();
+        PortfolioSolver.Strategy quick = new TestStrategy("Quick", (board, level, control) -> Collections.emptyList());
+        PortfolioSolver.Strategy slow = new TestStrategy("Slow", (board, level, control) -> {
+            bytes.set(control.getBudget().getMaxBytes());
+            while (!control.isCancelled()) {
+                Thread.onSpinWait();
+            }
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            stopped.set(true);
+            return null;
+        });
+        PortfolioSolver portfolio = new PortfolioSolver(Arrays.asList(slow, quick));
+        portfolio.setBudget(new SearchBudget(10_000, 0, 1_000));
+        try {
+            assertTrue(portfolio.solve(MapModel.LEVELS[1], 1));
+            assertEquals("Quick", portfolio.getWinner());
+            assertTrue(stopped.get());
+            assertEquals(500, bytes.get());
+        } finally {
+            portfolio.shutdown();
+        }
+    }
+
+    @Test
+    public void testDefaultStrategiesIncludeBeamSearch() {
+        List<String> names = new ArrayList<>();
+        for (PortfolioSolver.Strategy strategy : PortfolioSolver.defaultStrategies()) {
+            names.add(strategy.getName());
+        }
+        assertEquals(Arrays.asList("A*", "Weighted A* 3.0", "Greedy", "Bidirectional BFS",
+                "Beam " + BeamSearchSolver.DEFAULT_BEAM_WIDTH), names);
+    }
+
+    private interface Search {
+        List<AISolver.Move> solve(int[][] board, int level, SearchControl control);
+    }
+
+    private static final class TestStrategy implements PortfolioSolver.Strategy {
+        private final String name;
+        private final Search search;
+
+        TestStrategy(String name, Search search) {
+            this.name = name;
+            this.search = search;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public List<AISolver.Move> solve(int[][] board, int level, SearchControl control) {
+            return search.solve(board, level, control);
+        }
+    }
+}
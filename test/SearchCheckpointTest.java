@@ -0,0 +1,44 @@
+package test;
+
+import model.AISolver;
+import model.MapModel;
+import model.SearchBudget;
+import model.SearchCheckpoint;
+import model.SearchControl;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SearchCheckpointTest {
+
+    @Test
+    public void testStoppedSearchResumes() throws Exception {
+        File file = File.createTempFile("search", ".ckpt");
+        file.delete();
+        try {
+            MapModel model = new MapModel(0);
+            AISolver solver = new AISolver(model);
+            solver.setSolutionCache(null);
+            solver.setCheckpoint(new SearchCheckpoint(file, 60_000));
+
+            solver.setBudget(new SearchBudget(0, 3000, 0));
+            assertFalse(solver.findSolution());
+            assertEquals(SearchControl.StopReason.STATES, solver.getStopReason());
+            assertTrue("Stopping should write a checkpoint", file.isFile());
+
+            // The second run goes on from the 3000 states of the first
+            solver.setBudget(SearchBudget.unlimited());
+            assertTrue(solver.findSolution());
+            assertEquals(100, solver.getSolutionLength());
+            assertTrue(solver.getStatesExplored() > 3000);
+            assertEquals(3000, solver.getResumedStates());
+            assertFalse("A finished search should delete its checkpoint", file.exists());
+        } finally {
+            file.delete();
+        }
+    }
+}
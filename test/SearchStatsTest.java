@@ -0,0 +1,82 @@
+package test;
+
+import model.AISolver;
+import model.BidirectionalSolver;
+import model.MapModel;
+import model.MoveMetric;
+import model.SearchBudget;
+import model.SearchControl;
+import model.SearchStats;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SearchStatsTest {
+
+    @Test
+    public void testEffectiveBranchingFactor() {
+        // 1 + 2 + 4 nodes down to depth 2
+        SearchStats stats = new SearchStats(1000, 3, 8, 2, 4, 0, 0, 10, 2, true);
+        assertEquals(2.0, stats.getEffectiveBranchingFactor(), 1e-9);
+        assertEquals(8 / 3.0, stats.getMeanBranching(), 1e-9);
+        assertEquals(3, stats.getExpansionsPerSecond());
+    }
+
+    @Test
+    public void testSearchReportsWhenFinished() {
+        MapModel model = new MapModel(0);
+        AISolver solver = new AISolver(model);
+        solver.setSolutionCache(null);
+        SearchControl control = new SearchControl(SearchBudget.unlimited(), null);
+        List<SearchStats> reports = new ArrayList<>();
+        control.setStatsListener(reports::add, 1);
+
+        assertTrue(solver.findSolution(control));
+        SearchStats last = reports.get(reports.size() - 1);
+        assertTrue(last.isFinished());
+        for (SearchStats report : reports.subList(0, reports.size() - 1)) {
+            assertFalse(report.isFinished());
+        }
+        assertEquals(solver.getStatesExplored(), last.getExpanded());
+        assertEquals(100, last.getSolutionLength());
+        assertTrue(last.getFirstSolutionMillis() >= 0);
+        assertTrue(last.getGenerated() > last.getExpanded());
+        assertTrue(last.getDuplicates() > 0);
+        assertTrue(last.getPeakMemoryBytes() > 0);
+        assertTrue(last.getEffectiveBranchingFactor() > 1);
+        assertTrue(last.getEffectiveBranchingFactor() < last.getMeanBranching());
+    }
+
+    /**
+     * Library searches report through the stats listener and keep standard output to the caller
+     */
+    @Test
+    public void testSearchesDoNotPrint() {
+        PrintStream out = System.out;
+        ByteArrayOutputStream printed = new ByteArrayOutputStream();
+        List<SearchStats> reports = new ArrayList<>();
+        try {
+            System.setOut(new PrintStream(printed, true));
+            AISolver solver = new AISolver(new MapModel(1));
+            assertTrue(solver.findSolution());
+
+            SearchControl stopped = new SearchControl(new SearchBudget(0, 100, 0), null);
+            stopped.setStatsListener(reports::add, 60_000);
+            assertFalse(new AISolver(new MapModel(0)).findSolution(stopped));
+            assertTrue(new BidirectionalSolver(MapModel.LEVELS[1], 1, MoveMetric.CELL).solve());
+        } finally {
+            System.setOut(out);
+        }
+
+        assertEquals("", printed.toString());
+        SearchStats last = reports.get(reports.size() - 1);
+        assertTrue(last.isFinished());
+        assertEquals(SearchControl.StopReason.STATES, last.getStopReason());
+    }
+}
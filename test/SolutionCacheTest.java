@@ -0,0 +1,115 @@
+package test;
+
+import model.AISolver;
+import model.BidirectionalSolver;
+import model.MapModel;
+import model.MoveGenerator;
+import model.MoveMetric;
+import model.SolutionCache;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SolutionCacheTest {
+
+    private static long[] keysAlong(int[][] board, List<AISolver.Move> moves) {
+        MoveGenerator generator = MoveGenerator.forLevel(board, 0);
+        generator.setCanonical(true);
+        long[] keys = new long[moves.size() + 1];
+        keys[0] = generator.getCanonicalKey();
+        for (int i = 0; i < moves.size(); i++) {
+            AISolver.Move move = moves.get(i);
+            generator.apply(generator.findPiece(move.row, move.col), move.direction);
+            keys[i + 1] = generator.getCanonicalKey();
+        }
+        return keys;
+    }
+
+    @Test
+    public void testSuffixSurvivesSaveAndLoad() throws Exception {
+        int[][] board = new MapModel(0).copyMatrix();
+        BidirectionalSolver solver = new BidirectionalSolver(board, 0, MoveMetric.CELL);
+        solver.solve();
+        long[] keys = keysAlong(board, solver.getSolution());
+        long layout = MoveGenerator.forLevel(board, 0).getCodec().getLayoutSignature();
+
+        File file = File.createTempFile("solutions", ".cache");
+        file.deleteOnExit();
+        SolutionCache cache = new SolutionCache(file, 1 << 20);
+        cache.put(layout, keys, true);
+        cache.save();
+
+        SolutionCache reloaded = new SolutionCache(file, 1 << 20);
+        reloaded.load();
+        long[] suffix = reloaded.lookup(layout, keys[40], true);
+        assertNotNull("A board on the path should be answered", suffix);
+        assertEquals(keys.length - 40, suffix.length);
+        assertEquals(keys[keys.length - 1], suffix[suffix.length - 1]);
+        assertNull("Other layouts should not match", reloaded.lookup(layout + 1, keys[40], false));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedPathIsEvicted() {
+        SolutionCache cache = new SolutionCache(null, 2000);
+        cache.put(1, new long[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10}, false);
+        cache.put(1, new long[]{11, 12, 13, 14, 15, 16, 17, 18, 19, 20}, false);
+        cache.lookup(1, 5, false);
+        cache.put(1, new long[]{21, 22, 23, 24, 25, 26, 27, 28, 29, 30}, false);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.lookup(1, 15, false));
+        assertArrayEquals(new long[]{9, 10}, cache.lookup(1, 9, false));
+        assertNull("Only optimal paths should answer exact searches", cache.lookup(1, 25, true));
+    }
+
+    @Test
+    public void testPathFromSameStartIsReplacedOnlyByBetterOne() {
+        SolutionCache cache = new SolutionCache(null, 1 << 20);
+        cache.put(1, new long[]{1, 2, 3, 4}, true);
+        cache.put(1, new long[]{1, 5, 6}, false);
+        assertArrayEquals("A shorter non-optimal path should not replace an optimal one",
+                new long[]{1, 2, 3, 4}, cache.lookup(1, 1, false));
+        assertArrayEquals(new long[]{3, 4}, cache.lookup(1, 3, true));
+
+        cache.put(1, new long[]{1, 7, 8, 9, 10}, true);
+        assertArrayEquals("A longer path should not replace a shorter one",
+                new long[]{1, 2, 3, 4}, cache.lookup(1, 1, true));
+        assertEquals(1, cache.size());
+
+        cache.put(1, new long[]{1, 4}, true);
+        assertArrayEquals(new long[]{1, 4}, cache.lookup(1, 1, true));
+        assertNull(cache.lookup(1, 2, false));
+        assertEquals(1, cache.size());
+    }
+
+    /**
+     * A solver caches nothing unless given a cache, and a solve leaves the writing to the owner
+     */
+    @Test
+    public void testSolverUsesOnlyGivenCacheAndDoesNotSave() throws Exception {
+        File file = File.createTempFile("solutions", ".cache");
+        file.deleteOnExit();
+        SolutionCache cache = new SolutionCache(file, 1 << 20);
+        AISolver uncached = new AISolver(new MapModel(1));
+        assertTrue(uncached.findSolution());
+
+        AISolver solver = new AISolver(new MapModel(1));
+        solver.setSolutionCache(cache);
+        assertTrue(solver.findSolution());
+        assertEquals(1, cache.size());
+        assertTrue(cache.isModified());
+        assertEquals("Solving should not write the file", 0, file.length());
+
+        cache.saveIfModified();
+        assertFalse(cache.isModified());
+        assertTrue(file.length() > 0);
+    }
+}
@@ -19,7 +19,7 @@ public class TestProgressiveDifficulty {
         model = new MapModel();
         mockPanel = new GamePanel(model);
         controller = new GameController(mockPanel, model);
-        solver = new AISolver(model, controller);
+        solver = new AISolver(model);
     }
     
     @Test
@@ -27,7 +27,7 @@ public class TestProgressiveDifficulty {
         // Test easy layout
         model = new MapModel(0); // Easy level
         mockPanel.resetBoard(model.getMatrix()); // Update view's model
-        solver = new AISolver(model, controller); // Update solver with new model
+        solver = new AISolver(model); // Update solver with new model
         assertTrue("Easy layout should be solvable", solver.findSolution());
         assertTrue("Solution should not be empty", solver.getSolutionLength() > 0);
     }
@@ -37,7 +37,7 @@ public class TestProgressiveDifficulty {
         // Test hard layout
         model = new MapModel(1); // Hard level
         mockPanel.resetBoard(model.getMatrix()); // Update view's model
-        solver = new AISolver(model, controller); // Update solver with new model
+        solver = new AISolver(model); // Update solver with new model
         assertTrue("Hard layout should be solvable", solver.findSolution());
         assertTrue("Solution should not be empty", solver.getSolutionLength() > 0);
     }
@@ -47,7 +47,7 @@ public class TestProgressiveDifficulty {
         // Test expert layout
         model = new MapModel(2); // Expert level
         mockPanel.resetBoard(model.getMatrix()); // Update view's model
-        solver = new AISolver(model, controller); // Update solver with new model
+        solver = new AISolver(model); // Update solver with new model
         assertTrue("Expert layout should be solvable", solver.findSolution());
         assertTrue("Solution should not be empty", solver.getSolutionLength() > 0);
     }
@@ -57,7 +57,7 @@ public class TestProgressiveDifficulty {
         // Test master layout
         model = new MapModel(3); // Master level
         mockPanel.resetBoard(model.getMatrix()); // Update view's model
-        solver = new AISolver(model, controller); // Update solver with new model
+        solver = new AISolver(model); // Update solver with new model
         assertTrue("Master layout should be solvable", solver.findSolution());
         assertTrue("Solution should not be empty", solver.getSolutionLength() > 0);
     }
@@ -67,25 +67,25 @@ public class TestProgressiveDifficulty {
         // Test that harder layouts require more moves
         model = new MapModel(0); // Easy level
         mockPanel.resetBoard(model.getMatrix()); // Update view's model
-        solver = new AISolver(model, controller); // Update solver with new model
+        solver = new AISolver(model); // Update solver with new model
         assertTrue(solver.findSolution());
         int easyMoves = solver.getSolutionLength();
         
         model = new MapModel(1); // Hard level
         mockPanel.resetBoard(model.getMatrix()); // Update view's model
-        solver = new AISolver(model, controller); // Update solver with new model
+        solver = new AISolver(model); // Update solver with new model
         assertTrue(solver.findSolution());
         int hardMoves = solver.getSolutionLength();
         
         model = new MapModel(2); // Expert level
         mockPanel.resetBoard(model.getMatrix()); // Update view's model
-        solver = new AISolver(model, controller); // Update solver with new model
+        solver = new AISolver(model); // Update solver with new model
         assertTrue(solver.findSolution());
         int expertMoves = solver.getSolutionLength();
         
         model = new MapModel(3); // Master level
         mockPanel.resetBoard(model.getMatrix()); // Update view's model
-        solver = new AISolver(model, controller); // Update solver with new model
+        solver = new AISolver(model); // Update solver with new model
         assertTrue(solver.findSolution());
         int masterMoves = solver.getSolutionLength();
         
@@ -2,8 +2,10 @@ package view.game;
 
 import controller.GameController;
 import model.AISolver;
+import model.IncrementalPlanner;
 import model.MapModel;
 import model.Prop;
+import model.SolutionCache;
 import view.FrameUtil;
 import view.menu.SelectionMenuFrame;
 
@@ -31,6 +33,7 @@ public class GameFrame extends JFrame {
     private int currentTimeLeft = 0;  // 添加成员变量来跟踪剩余时间
     private Timer timeAttackTimer;
     private int remainingTime;
+    private AISolver activeSolver;  // search started by the AI Solve button, if still running
 
     private void setButtonStyle(JButton button, Color bgColor, Color borderColor) {
         button.setFont(new Font("微软雅黑", Font.BOLD, 14));
@@ -197,13 +200,30 @@ public class GameFrame extends JFrame {
             }
             panel.add(gifLabel, BorderLayout.CENTER);
 
+            // 搜索进度与取消按钮
+            JPanel bottomPanel = new JPanel(new BorderLayout());
+            JLabel progressLabel = new JLabel(" ", SwingConstants.CENTER);
+            progressLabel.setFont(new Font("微软雅黑", Font.PLAIN, 12));
+            bottomPanel.add(progressLabel, BorderLayout.CENTER);
+            JButton cancelSearchBtn = new JButton("取消");
+            bottomPanel.add(cancelSearchBtn, BorderLayout.SOUTH);
+            panel.add(bottomPanel, BorderLayout.SOUTH);
+
             searchingDialog.getContentPane().add(panel);
             searchingDialog.setSize(300, 180);
             searchingDialog.setLocationRelativeTo(this);
 
             // 2. 用SwingWorker后台执行AI搜索
+            AISolver solver = new AISolver(controller.getModel());
+            solver.setSolutionCache(SolutionCache.getDefault());
+            // Searches again after a failed move of the playback start from this one
+            solver.setIncrementalPlanner(new IncrementalPlanner());
+            solver.setProgressListener(progress -> SwingUtilities.invokeLater(() ->
+                    progressLabel.setText(String.format("已搜索 %,d 个局面  %,d/秒",
+                            progress.getStatesExplored(), progress.getNodesPerSecond()))));
+            cancelSearchBtn.addActionListener(event -> solver.cancel());
+            activeSolver = solver;
             SwingWorker<Boolean, Void> worker = new SwingWorker<>() {
-                AISolver solver = new AISolver(controller.getModel(), controller);
                 @Override
                 protected Boolean doInBackground() {
                     return solver.findSolution();
@@ -211,13 +231,19 @@ public class GameFrame extends JFrame {
                 @Override
                 protected void done() {
                     searchingDialog.dispose();
+                    if (activeSolver == solver) {
+                        activeSolver = null;
+                    }
+                    if (solver.getStopReason() == model.SearchControl.StopReason.CANCELLED) {
+                        return;
+                    }
                     try {
                         if (get()) {
                             JOptionPane.showMessageDialog(GameFrame.this,
                                 "AI搜索成功，正在自动演示解法！",
                                 "AI Solver",
                                 JOptionPane.INFORMATION_MESSAGE);
-                            solver.executeSolution();
+                            new SolutionPlayer(solver, controller).play();
                         } else {
                             JOptionPane.showMessageDialog(GameFrame.this,
                                 "未找到当前局面的解法。",
@@ -366,10 +392,21 @@ public class GameFrame extends JFrame {
         gamePanel.requestFocusInWindow();
     }
 
+    /**
+     * Stop a running AI search, e.g. when the player leaves the game
+     */
+    private void cancelActiveSearch() {
+        if (activeSolver != null) {
+            activeSolver.cancel();
+            activeSolver = null;
+        }
+    }
+
     /**
      * Returns to the main menu screen
      */
     private void returnToMenu() {
+        cancelActiveSearch();
         if (parentFrame != null) {
             resetTimerState();  // 在返回菜单时重置计时器状态
             parentFrame.setVisible(true);
@@ -407,10 +444,6 @@ public class GameFrame extends JFrame {
         return guestMode;
     }
 
-    public GameController getController() {
-        return controller;
-    }
-
     public void setParentFrame(SelectionMenuFrame parentFrame) {
         this.parentFrame = parentFrame;
     }
@@ -537,6 +570,7 @@ public class GameFrame extends JFrame {
         // 设置成员变量
         this.isTimeAttackMode = enabled;
         this.timeLimit = minutes;
+        controller.setTimeAttackMode(enabled);
         
         if (enabled) {
             System.out.println("Enabling time attack mode...");
@@ -667,6 +701,7 @@ public class GameFrame extends JFrame {
                 "Game Over",
                 JOptionPane.ERROR_MESSAGE);
 
+        cancelActiveSearch();
         if (parentFrame != null) {
             if (countdownTimer != null && countdownTimer.isRunning()) {
                 countdownTimer.stop();
@@ -685,6 +720,10 @@ public class GameFrame extends JFrame {
         return isTimeAttackMode;
     }
 
+    public GameController getController() {
+        return controller;
+    }
+
     public int getRemainingTime() {
         return currentTimeLeft;
     }
@@ -706,6 +745,7 @@ public class GameFrame extends JFrame {
 
     public void startTimeAttack() {
         isTimeAttackMode = true;
+        controller.setTimeAttackMode(true);
         remainingTime = 300; // 5 minutes in seconds
         
         if (timeAttackTimer != null) {
@@ -716,6 +756,7 @@ public class GameFrame extends JFrame {
             remainingTime--;
             if (remainingTime <= 0) {
                 timeAttackTimer.stop();
+                cancelActiveSearch();
                 JOptionPane.showMessageDialog(this, "Time's up! Game Over!");
                 dispose();
                 if (parentFrame != null) {
@@ -0,0 +1,105 @@
+package view.game;
+
+import controller.GameController;
+import model.AISolver;
+
+import javax.swing.JOptionPane;
+import javax.swing.Timer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Plays a solution of the {@link AISolver} on the game board, one move about every second,
+ * through the controller so that every move is animated and counted like a player's.
+ *
+ * If a move fails because the board changed, the solver searches again from the board as it
+ * is and playback starts over with the new solution.
+ */
+public class SolutionPlayer {
+    private final AISolver solver;
+    private final GameController controller;
+    private boolean playing;
+    private List<AISolver.Move> solution;
+    private int moveIndex;
+    private long lastMoveTime;
+
+    public SolutionPlayer(AISolver solver, GameController controller) {
+        this.solver = solver;
+        this.controller = controller;
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    /**
+     * Execute the solver's solution move by move with animation
+     */
+    public void play() {
+        if (solver.getSolutionLength() == 0 || playing) {
+            return;
+        }
+
+        playing = true;
+        controller.setAISolving(true);  // Set AI solving flag
+        solution = new ArrayList<>(solver.getSolutionMoves(Integer.MAX_VALUE));
+        moveIndex = 0;
+        lastMoveTime = System.currentTimeMillis();
+
+        Timer timer = new Timer(1000, e -> {
+            long currentTime = System.currentTimeMillis();
+            if (currentTime - lastMoveTime < 800) {
+                return;
+            }
+
+            if (moveIndex >= solution.size()) {
+                ((Timer) e.getSource()).stop();
+                playing = false;
+                controller.setAISolving(false);  // Reset AI solving flag
+
+                JOptionPane.showMessageDialog(
+                        null,
+                        "<html><h2>Solution Complete!</h2>" +
+                                "The AI has successfully solved the puzzle in " + solution.size() + " moves.</html>",
+                        "AI Solution Complete",
+                        JOptionPane.INFORMATION_MESSAGE
+                );
+
+                return;
+            }
+
+            AISolver.Move move = solution.get(moveIndex);
+            System.out.println("\n=== Step " + moveIndex + " in Solution ===");
+            System.out.println("Move: " + move);
+
+            // 验证当前位置的方块
+            boolean moveSuccess = controller.selectBoxAt(move.row, move.col) != null
+                    && controller.doMove(move.row, move.col, move.direction);
+            if (moveSuccess) {
+                lastMoveTime = System.currentTimeMillis();
+                moveIndex++;
+                return;
+            }
+
+            System.out.println("\nWarning: Move failed at step " + moveIndex);
+            if (solver.findSolution()) {
+                solution = new ArrayList<>(solver.getSolutionMoves(Integer.MAX_VALUE));
+                System.out.println("Recalculated solution with " + solution.size() + " moves");
+                moveIndex = 0;
+            } else {
+                System.out.println("Error: Could not find new solution after failed move");
+                ((Timer) e.getSource()).stop();
+                playing = false;
+                controller.setAISolving(false);
+                JOptionPane.showMessageDialog(
+                        null,
+                        "Failed to execute solution. The puzzle state has changed.",
+                        "AI Solution Failed",
+                        JOptionPane.ERROR_MESSAGE
+                );
+            }
+        });
+
+        timer.start();
+    }
+}